@@ -1,5 +1,5 @@
 export interface Notification {
   id: number;
-  bidId: number;
+  bidId?: number;
   text: string;
 }
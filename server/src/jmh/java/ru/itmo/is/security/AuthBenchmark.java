@@ -0,0 +1,87 @@
+package ru.itmo.is.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import ru.itmo.is.entity.user.User;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving the caller from a bearer token, as paid by AuthInterceptor on every request.
+ * Clients are simulated by a pool of tokens of different users sent round-robin.
+ * <ul>
+ *     <li>twoParsesPerRequest - previous behaviour, a new parser and a full verification for login and for role</li>
+ *     <li>prebuiltParser - one verification with the shared parser</li>
+ *     <li>cachedPrincipal - what AuthInterceptor does now</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+    private static final String ACCESS_KEY = "benchmark-access-key-with-sufficient-length-for-hmac-sha256";
+    private static final String REFRESH_KEY = "benchmark-refresh-key-with-sufficient-length-for-hmac-sha256";
+
+    @Param({"1000"})
+    private int clients;
+
+    private JwtManager jwtManager;
+    private SecretKey accessKey;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        jwtManager = new JwtManager(ACCESS_KEY, REFRESH_KEY, 10_000);
+        accessKey = Keys.hmacShaKeyFor(ACCESS_KEY.getBytes(StandardCharsets.UTF_8));
+        tokens = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            var user = new User();
+            user.setLogin("user" + i);
+            user.setRole(User.Role.RESIDENT);
+            tokens[i] = jwtManager.createAccessToken(user);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String token(AuthBenchmark benchmark) {
+            next = (next + 1) % benchmark.tokens.length;
+            return benchmark.tokens[next];
+        }
+    }
+
+    @Benchmark
+    public Object twoParsesPerRequest(Cursor cursor) {
+        String token = cursor.token(this);
+        String login = parse(token).getSubject();
+        String role = parse(token).get("role", String.class);
+        return new AccessPrincipal(login, User.Role.valueOf(role), null);
+    }
+
+    @Benchmark
+    public Object prebuiltParser(Cursor cursor) {
+        return jwtManager.verifyAccessToken(cursor.token(this));
+    }
+
+    @Benchmark
+    public Object cachedPrincipal(Cursor cursor) {
+        return jwtManager.getAccessPrincipal(cursor.token(this));
+    }
+
+    private Claims parse(String token) {
+        return Jwts.parser()
+                .verifyWith(accessKey)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
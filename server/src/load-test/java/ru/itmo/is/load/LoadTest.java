@@ -0,0 +1,167 @@
+package ru.itmo.is.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load test. Every client is a virtual thread sending GET requests one after another,
+ * so the number of clients is the number of requests in flight. Meant to compare the same build started
+ * with platform and virtual request threads (VIRTUAL_THREADS=false/true), for example:
+ * <pre>
+ * gradle loadTest -Ptargets=platform=http://localhost:8183,virtual=http://localhost:8185 -Pclients=1000,5000,10000
+ * </pre>
+ * Options (Gradle properties): targets, clients, paths, duration and warmup in seconds, token for the
+ * Authorization header. Latencies are measured after warmup, errors are non 2xx responses and failed requests.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> targets = parseTargets(System.getProperty("targets", "local=http://localhost:8183"));
+        int[] clients = Arrays.stream(System.getProperty("clients", "1000,2500,5000,10000").split(","))
+                .mapToInt(c -> Integer.parseInt(c.trim()))
+                .toArray();
+        List<String> paths = List.of(System.getProperty("paths", "/university,/dormitory,/room").split(","));
+        Duration duration = Duration.ofSeconds(Long.getLong("duration", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("warmup", 5));
+        String token = System.getProperty("token", "");
+
+        System.out.printf("%-10s %8s %12s %10s %10s %10s %8s%n", "target", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (int level : clients) {
+            for (Map.Entry<String, String> target : targets.entrySet()) {
+                Result result = run(target.getValue(), paths, token, level, warmup, duration);
+                System.out.printf("%-10s %8d %12.1f %10.1f %10.1f %10.1f %8d%n",
+                        target.getKey(), level, result.throughput(),
+                        result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors());
+            }
+        }
+    }
+
+    private static Result run(
+            String baseUrl, List<String> paths, String token, int clients, Duration warmup, Duration duration
+    ) throws Exception {
+        List<HttpRequest> requests = paths.stream().map(path -> {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path.trim()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET();
+            if (!token.isBlank()) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder.build();
+        }).toList();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            long start = System.nanoTime();
+            long measureFrom = start + warmup.toNanos();
+            long stop = measureFrom + duration.toNanos();
+
+            List<Future<Client>> futures = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                int offset = i;
+                futures.add(executor.submit(() -> {
+                    var client = new Client();
+                    for (int n = offset; ; n++) {
+                        long sent = System.nanoTime();
+                        if (sent >= stop) {
+                            return client;
+                        }
+                        boolean ok;
+                        try {
+                            int status = http.send(requests.get(n % requests.size()), HttpResponse.BodyHandlers.discarding())
+                                    .statusCode();
+                            ok = status >= 200 && status < 300;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (sent >= measureFrom) {
+                            client.record(ok, System.nanoTime() - sent);
+                        }
+                    }
+                }));
+            }
+
+            var total = new Client();
+            for (Future<Client> future : futures) {
+                total.merge(future.get());
+            }
+            return new Result(total, duration);
+        }
+    }
+
+    private static Map<String, String> parseTargets(String value) {
+        Map<String, String> targets = new LinkedHashMap<>();
+        for (String target : value.split(",")) {
+            String[] nameAndUrl = target.split("=", 2);
+            targets.put(nameAndUrl[0].trim(), nameAndUrl[1].trim());
+        }
+        return targets;
+    }
+
+    /**
+     * Latencies of successful requests of one client, kept in a growing primitive array
+     */
+    private static class Client {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(boolean ok, long latencyNanos) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        void merge(Client other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(size + other.size, latencies.length * 2));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+    }
+
+    private record Result(long[] sorted, long errors, Duration duration) {
+        Result(Client total, Duration duration) {
+            this(sortedLatencies(total), total.errors, duration);
+        }
+
+        private static long[] sortedLatencies(Client client) {
+            long[] sorted = Arrays.copyOf(client.latencies, client.size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        double throughput() {
+            return sorted.length / (duration.toMillis() / 1000.0);
+        }
+
+        double percentile(double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
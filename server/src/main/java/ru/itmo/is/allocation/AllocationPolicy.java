@@ -0,0 +1,25 @@
+package ru.itmo.is.allocation;
+
+import java.util.Comparator;
+
+/**
+ * Order in which free rooms of the same type are handed out
+ */
+public enum AllocationPolicy {
+    /** Rooms with the least free places first, so partially occupied rooms are filled before empty ones */
+    FILL_FIRST(Comparator.comparingInt(Slot::free)),
+    /** Rooms with the most free places first, so residents are spread over the dormitory */
+    SPREAD(Comparator.comparingInt(Slot::free).reversed()),
+    /** Rooms on the lowest floor first */
+    LOWEST_FLOOR(Comparator.comparingInt(Slot::getFloor));
+
+    private final Comparator<Slot> order;
+
+    AllocationPolicy(Comparator<Slot> order) {
+        this.order = order.thenComparingInt(Slot::getRoomId);
+    }
+
+    Comparator<Slot> order() {
+        return order;
+    }
+}
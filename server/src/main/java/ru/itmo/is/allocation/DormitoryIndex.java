@@ -0,0 +1,116 @@
+package ru.itmo.is.allocation;
+
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.repository.projection.RoomOccupancy;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Free places of one dormitory. Loaded on first access, every operation holds the dormitory lock.
+ * Rooms without free places are kept only in {@code slots}, so the head of a free set is always a free room.
+ */
+class DormitoryIndex {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Supplier<List<RoomOccupancy>> loader;
+    private final Comparator<Slot> order;
+    private Map<Integer, Slot> slots;
+    private Map<Room.Type, NavigableSet<Slot>> free;
+
+    DormitoryIndex(Supplier<List<RoomOccupancy>> loader, Comparator<Slot> order) {
+        this.loader = loader;
+        this.order = order;
+    }
+
+    Optional<Integer> take(Room.Type type) {
+        lock.lock();
+        try {
+            load();
+            NavigableSet<Slot> set = free.get(type);
+            if (set == null || set.isEmpty()) {
+                return Optional.empty();
+            }
+            Slot slot = set.pollFirst();
+            slot.occupy();
+            if (slot.free() > 0) set.add(slot);
+            return Optional.of(slot.getRoomId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean occupy(int roomId) {
+        lock.lock();
+        try {
+            load();
+            Slot slot = slots.get(roomId);
+            if (slot == null || slot.free() <= 0) {
+                return false;
+            }
+            NavigableSet<Slot> set = free.get(slot.getType());
+            set.remove(slot);
+            slot.occupy();
+            if (slot.free() > 0) set.add(slot);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void vacate(int roomId) {
+        lock.lock();
+        try {
+            load();
+            Slot slot = slots.get(roomId);
+            if (slot == null) return;
+            NavigableSet<Slot> set = free.get(slot.getType());
+            set.remove(slot);
+            slot.vacate();
+            if (slot.free() > 0) set.add(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void markFull(int roomId) {
+        lock.lock();
+        try {
+            load();
+            Slot slot = slots.get(roomId);
+            if (slot == null) return;
+            free.get(slot.getType()).remove(slot);
+            slot.fill();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean hasFreePlace(int roomId) {
+        lock.lock();
+        try {
+            load();
+            Slot slot = slots.get(roomId);
+            return slot != null && slot.free() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void load() {
+        if (slots != null) return;
+
+        Map<Integer, Slot> loadedSlots = new HashMap<>();
+        Map<Room.Type, NavigableSet<Slot>> loadedFree = new EnumMap<>(Room.Type.class);
+        for (Room.Type type : Room.Type.values()) {
+            loadedFree.put(type, new TreeSet<>(order));
+        }
+        for (RoomOccupancy room : loader.get()) {
+            var slot = new Slot(room.getId(), room.getType(), room.getFloor(), room.getCapacity(), room.getOccupied());
+            loadedSlots.put(slot.getRoomId(), slot);
+            if (slot.free() > 0) loadedFree.get(slot.getType()).add(slot);
+        }
+        slots = loadedSlots;
+        free = loadedFree;
+    }
+}
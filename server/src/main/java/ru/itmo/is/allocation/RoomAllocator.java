@@ -0,0 +1,180 @@
+package ru.itmo.is.allocation;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.repository.RoomRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps free places of rooms in memory, grouped by dormitory and room type.
+ * Occupancy is read from the database once per dormitory and then updated on every occupation, eviction and room change.
+ * Changes made inside a transaction are reverted if it is rolled back.
+ * Must be called before the resident row is changed in the same transaction, so the lazy load sees the old state.
+ * <p>
+ * The index only picks a candidate. The place is taken under a row lock of the room, which is held
+ * until the transaction ends, so concurrent occupations are serialized per room and not per table.
+ * If the locked room turns out to be full (filled by another instance), it is marked full and the next one is tried.
+ * A room change locks two rooms, it never waits for the second one while holding the first out of id order,
+ * so residents moving between the same rooms in opposite directions cannot deadlock.
+ * Taking a place requires an active transaction.
+ * <p>
+ * Other instances drop the index of a dormitory after its places changed here, and reload it on next access.
+ */
+@Component
+public class RoomAllocator {
+    private final RoomRepository roomRepository;
+    private final ClusterEventBus eventBus;
+    private final AllocationPolicy policy;
+    private final Map<Integer, DormitoryIndex> dormitories = new ConcurrentHashMap<>();
+
+    public RoomAllocator(
+            RoomRepository roomRepository,
+            ClusterEventBus eventBus,
+            @Value("${room.allocation.policy:FILL_FIRST}") AllocationPolicy policy
+    ) {
+        this.roomRepository = roomRepository;
+        this.eventBus = eventBus;
+        this.policy = policy;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        eventBus.subscribe(Topic.ROOMS, id -> dormitories.remove(Integer.valueOf(id)), dormitories::clear);
+    }
+
+    /**
+     * Takes a place in some free room of the dormitory, chosen by the allocation policy
+     */
+    public Optional<Room> allocate(int dormitoryId, Room.Type type) {
+        return allocate(dormitoryId, type, false);
+    }
+
+    /**
+     * Takes a place in some free room of the dormitory for a resident moving out of the current room.
+     * The current room is locked first, rooms locked by other transactions are skipped instead of waited for
+     */
+    public Optional<Room> allocateInsteadOf(Room current, Room.Type type) {
+        roomRepository.lockById(current.getId());
+        return allocate(current.getDormitory().getId(), type, true);
+    }
+
+    /**
+     * Takes a place in the given room
+     *
+     * @return false if the room is full
+     */
+    public boolean reserve(Room room) {
+        DormitoryIndex index = index(room.getDormitory().getId());
+        if (!index.occupy(room.getId()) || lockPlace(index, room.getId()).isEmpty()) {
+            return false;
+        }
+        onRollback(() -> index.vacate(room.getId()));
+        changed(room.getDormitory().getId());
+        return true;
+    }
+
+    /**
+     * Takes a place in the given room for a resident moving out of the current room.
+     * Both rooms are locked in id order first
+     *
+     * @return false if the room is full
+     */
+    public boolean reserveInsteadOf(Room current, Room room) {
+        roomRepository.lockAllById(List.of(current.getId(), room.getId()));
+        return reserve(room);
+    }
+
+    public void release(Room room) {
+        DormitoryIndex index = index(room.getDormitory().getId());
+        index.vacate(room.getId());
+        onRollback(() -> index.occupy(room.getId()));
+        changed(room.getDormitory().getId());
+    }
+
+    public boolean isFree(Room room) {
+        return index(room.getDormitory().getId()).hasFreePlace(room.getId());
+    }
+
+    /**
+     * Drops the dormitory index, it is reloaded on next access. Used when rooms are added or removed
+     */
+    public void invalidate(int dormitoryId) {
+        dormitories.remove(dormitoryId);
+        changed(dormitoryId);
+    }
+
+    private void changed(int dormitoryId) {
+        eventBus.publish(Topic.ROOMS, String.valueOf(dormitoryId));
+    }
+
+    private Optional<Room> allocate(int dormitoryId, Room.Type type, boolean skipLocked) {
+        DormitoryIndex index = index(dormitoryId);
+        List<Integer> skipped = new ArrayList<>();
+        try {
+            Optional<Integer> roomId;
+            while ((roomId = index.take(type)).isPresent()) {
+                int id = roomId.get();
+                Optional<Room> room;
+                if (skipLocked) {
+                    Optional<Room> locked = roomRepository.lockByIdSkipLocked(id);
+                    if (locked.isEmpty()) {
+                        // Held by another transaction, the place is returned once the loop stops taking
+                        skipped.add(id);
+                        continue;
+                    }
+                    room = checkPlace(index, id, locked);
+                } else {
+                    room = lockPlace(index, id);
+                }
+                if (room.isPresent()) {
+                    onRollback(() -> index.vacate(id));
+                    changed(dormitoryId);
+                    return room;
+                }
+            }
+            return Optional.empty();
+        } finally {
+            skipped.forEach(index::vacate);
+        }
+    }
+
+    private Optional<Room> lockPlace(DormitoryIndex index, int roomId) {
+        return checkPlace(index, roomId, roomRepository.lockById(roomId));
+    }
+
+    private Optional<Room> checkPlace(DormitoryIndex index, int roomId, Optional<Room> locked) {
+        Optional<Room> room = locked.filter(r -> roomRepository.getOccupied(roomId) < r.getCapacity());
+        if (room.isEmpty()) {
+            index.markFull(roomId);
+        }
+        return room;
+    }
+
+    private DormitoryIndex index(int dormitoryId) {
+        return dormitories.computeIfAbsent(dormitoryId, id -> new DormitoryIndex(
+                () -> roomRepository.getOccupancyInDormitory(id),
+                policy.order()
+        ));
+    }
+
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) compensation.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,37 @@
+package ru.itmo.is.allocation;
+
+import lombok.Getter;
+import ru.itmo.is.entity.dorm.Room;
+
+@Getter
+class Slot {
+    private final int roomId;
+    private final Room.Type type;
+    private final int floor;
+    private final int capacity;
+    private int occupied;
+
+    Slot(int roomId, Room.Type type, int floor, int capacity, int occupied) {
+        this.roomId = roomId;
+        this.type = type;
+        this.floor = floor;
+        this.capacity = capacity;
+        this.occupied = occupied;
+    }
+
+    int free() {
+        return capacity - occupied;
+    }
+
+    void occupy() {
+        occupied++;
+    }
+
+    void fill() {
+        occupied = capacity;
+    }
+
+    void vacate() {
+        if (occupied > 0) occupied--;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.itmo.is.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Local caches that are cleared on other instances whenever they are evicted here. Reference data is small
+ * and changes rarely, so other instances drop the whole cache instead of single keys
+ */
+public class ClusterCacheManager implements CacheManager {
+    private final CacheManager local;
+    private final ClusterEventBus eventBus;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public ClusterCacheManager(CacheManager local, ClusterEventBus eventBus) {
+        this.local = local;
+        this.eventBus = eventBus;
+        eventBus.subscribe(Topic.CACHE, this::clearLocal, () -> local.getCacheNames().forEach(this::clearLocal));
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = local.getCache(name);
+        return cache == null ? null : caches.computeIfAbsent(name, n -> new ClusterCache(cache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    private void clearLocal(String name) {
+        Cache cache = local.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private class ClusterCache implements Cache {
+        private final Cache cache;
+
+        ClusterCache(Cache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return cache.get(key, valueLoader);
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return cache.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return cache.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return cache.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+            eventBus.publish(Topic.CACHE, getName());
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean evicted = cache.evictIfPresent(key);
+            eventBus.publish(Topic.CACHE, getName());
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+            eventBus.publish(Topic.CACHE, getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean invalidated = cache.invalidate();
+            eventBus.publish(Topic.CACHE, getName());
+            return invalidated;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.itmo.is.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Names of reference data caches. Universities, dormitories and rooms are cached by their services
+ * and evicted by the same services on change. Occupancy (room residents and dormitory resident number)
+ * is part of the cached responses too, so bid acceptance evicts it explicitly.
+ * Uploaded file names are never changed, so files are evicted only when they are deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReferenceCache {
+    public static final String UNIVERSITIES = "universities";
+    public static final String UNIVERSITY = "university";
+    public static final String DORMITORIES = "dormitories";
+    public static final String DORMITORY = "dormitory";
+    public static final String ROOMS = "rooms";
+    public static final String ROOM = "room";
+    public static final String FILES = "files";
+
+    public static final List<String> NAMES = List.of(
+            UNIVERSITIES, UNIVERSITY, DORMITORIES, DORMITORY, ROOMS, ROOM, FILES
+    );
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Drops cached rooms and dormitories after somebody moved in or out.
+     * Cache manager is transaction aware, so inside a transaction it happens after commit
+     */
+    public void evictOccupancy() {
+        for (String name : List.of(DORMITORIES, DORMITORY, ROOMS, ROOM)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    public void evictFiles(Collection<String> keys) {
+        Cache cache = cacheManager.getCache(FILES);
+        if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+}
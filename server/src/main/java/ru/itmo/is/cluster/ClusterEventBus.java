@@ -0,0 +1,282 @@
+package ru.itmo.is.cluster;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Spreads changes of in-memory state to other instances through Postgres LISTEN/NOTIFY. An instance applies
+ * its own changes directly, the bus only tells other instances to do the same, so events of this instance
+ * are not delivered back to it.
+ * <p>
+ * Events published inside a transaction are queued after commit and dropped on rollback. Queued events are sent
+ * in batches by a sender thread on a connection of its own, so publishers never wait for a pooled connection.
+ * Delivery is at most once: notifications sent while an instance is not listening are lost, so on every
+ * (re)connect of the listener subscribers drop everything they keep in memory.
+ */
+@Component
+public class ClusterEventBus {
+    private static final Logger log = LogManager.getLogger(ClusterEventBus.class);
+    private static final String CHANNEL = "cluster_events";
+    // Postgres rejects notifications over 8000 bytes
+    private static final int MAX_MESSAGE_BYTES = 8000;
+    private static final int POLL_MILLIS = 10_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+    // Events waiting for the sender, more are dropped while the database is unreachable
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final String node = UUID.randomUUID().toString();
+    private final Map<Topic, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> outbox = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private volatile boolean running;
+    private Thread listener;
+    private Thread sender;
+
+    public ClusterEventBus(DataSourceProperties dataSourceProperties) {
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listener = new Thread(this::listen, "cluster-event-listener");
+        listener.setDaemon(true);
+        listener.start();
+        sender = new Thread(this::sendQueued, "cluster-event-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        sender.interrupt();
+        listener.join(TimeUnit.SECONDS.toMillis(10));
+        sender.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * @param handler gets payloads of events published by other instances
+     * @param missed  called when events might have been lost, state depending on them must be dropped
+     */
+    public void subscribe(Topic topic, Consumer<String> handler, Runnable missed) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(new Subscriber(handler, missed));
+    }
+
+    public void publish(Topic topic, String payload) {
+        publish(topic, List.of(payload));
+    }
+
+    public void publish(Topic topic, Collection<String> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        List<String> messages = payloads.stream().map(payload -> message(topic, payload)).toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(messages);
+            return;
+        }
+        pending().addAll(messages);
+    }
+
+    private String message(Topic topic, String payload) {
+        String message = node + ":" + topic.name() + ":" + payload;
+        if (message.getBytes(StandardCharsets.UTF_8).length >= MAX_MESSAGE_BYTES) {
+            throw new IllegalArgumentException("Cluster event payload is too long for " + topic);
+        }
+        return message;
+    }
+
+    /**
+     * Messages of the current transaction. They are queued on completion and not on commit, so events published
+     * from another after-commit callback are sent too. Repeated messages are sent once
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> pending() {
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Set<String> batch = new LinkedHashSet<>();
+        TransactionSynchronizationManager.bindResource(this, batch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ClusterEventBus.this);
+                if (status == STATUS_COMMITTED) {
+                    enqueue(batch);
+                }
+            }
+        });
+        return batch;
+    }
+
+    private void enqueue(Collection<String> messages) {
+        int dropped = 0;
+        for (String message : messages) {
+            if (!outbox.offer(message)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            // Changes are committed already, other instances catch up when their caches expire or reload
+            log.error("Cluster event queue is full, dropped {} events", dropped);
+        }
+    }
+
+    /**
+     * Sends queued events on a dedicated connection outside the pool. A batch that failed is sent again
+     * after reconnect, handlers of all topics tolerate repeated events. On stop queued events are sent once more
+     */
+    private void sendQueued() {
+        List<String> batch = new ArrayList<>();
+        while (running) {
+            try (Connection connection = connect()) {
+                try {
+                    while (running) {
+                        if (batch.isEmpty()) {
+                            batch.add(outbox.take());
+                            outbox.drainTo(batch, MAX_BATCH_SIZE - 1);
+                        }
+                        send(connection, batch);
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    outbox.drainTo(batch);
+                    if (!batch.isEmpty()) {
+                        send(connection, batch);
+                    }
+                    return;
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster event sender lost its connection, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void send(Connection connection, List<String> messages) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_notify(?, message) FROM unnest(?::text[]) AS message"
+        )) {
+            statement.setString(1, CHANNEL);
+            statement.setArray(2, connection.createArrayOf("text", messages.toArray()));
+            statement.execute();
+        }
+    }
+
+    /**
+     * Listens on a dedicated connection outside the pool, it is held for the whole life of the instance
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                subscribers.values().forEach(topicSubscribers -> topicSubscribers.forEach(this::missed));
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null || notifications.length == 0) {
+                        // Quiet period, make sure the connection is still alive
+                        if (!connection.isValid((int) TimeUnit.MILLISECONDS.toSeconds(POLL_MILLIS))) {
+                            throw new SQLException("Listener connection is broken");
+                        }
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster event listener lost its connection, reconnecting", e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword()
+        );
+    }
+
+    private void receive(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length != 3 || parts[0].equals(node)) {
+            return;
+        }
+        Topic topic;
+        try {
+            topic = Topic.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            // Sent by a newer version during rolling update
+            log.debug("Unknown cluster event topic {}", parts[1]);
+            return;
+        }
+        for (Subscriber subscriber : subscribers.getOrDefault(topic, List.of())) {
+            try {
+                subscriber.handler().accept(parts[2]);
+            } catch (RuntimeException e) {
+                log.error("Cannot handle cluster event {} {}", topic, parts[2], e);
+            }
+        }
+    }
+
+    private void missed(Subscriber subscriber) {
+        try {
+            subscriber.missed().run();
+        } catch (RuntimeException e) {
+            log.error("Cannot reset state after missed cluster events", e);
+        }
+    }
+
+    private record Subscriber(Consumer<String> handler, Runnable missed) { }
+}
@@ -0,0 +1,23 @@
+package ru.itmo.is.cluster;
+
+/**
+ * Kinds of changes instances tell each other about, the payload of every kind is a string
+ */
+public enum Topic {
+    /**
+     * Name of a reference data cache that was evicted
+     */
+    CACHE,
+    /**
+     * Id of a dormitory whose rooms or free places changed
+     */
+    ROOMS,
+    /**
+     * Login of a resident whose turnstile pass was saved or who was evicted
+     */
+    GUARD_PASSES,
+    /**
+     * Notification created for a user, as JSON with receiver login
+     */
+    NOTIFICATIONS
+}
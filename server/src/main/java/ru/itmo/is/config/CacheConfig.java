@@ -0,0 +1,37 @@
+package ru.itmo.is.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.itmo.is.cache.ClusterCacheManager;
+import ru.itmo.is.cache.ReferenceCache;
+import ru.itmo.is.cluster.ClusterEventBus;
+
+/**
+ * Caffeine caches for reference data. Puts and evictions made inside a transaction are applied
+ * after commit, so a reader can't cache rows that are being changed.
+ * Evictions are repeated on other instances through the cluster event bus.
+ * With {@code spring.cache.type: none} Spring Boot falls back to a no-op cache manager.
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheManager cacheManager(CacheProperties properties, ClusterEventBus eventBus) {
+        var caffeine = new CaffeineCacheManager();
+        caffeine.setCacheSpecification(properties.getCaffeine().getSpec());
+        caffeine.setAllowNullValues(false);
+        // Fixed set of caches, so all of them are bound to metrics on startup
+        caffeine.setCacheNames(ReferenceCache.NAMES);
+        return new TransactionAwareCacheManagerProxy(new ClusterCacheManager(caffeine, eventBus));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.itmo.is.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import ru.itmo.is.storage.BlobStore;
+import ru.itmo.is.storage.FilesystemBlobStore;
+import ru.itmo.is.storage.S3BlobStore;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Uploaded files are kept in a local directory by default. With {@code file.storage.type: s3} they are kept
+ * in an S3 compatible bucket, which lets several stateless instances run behind a load balancer.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.type", havingValue = "filesystem", matchIfMissing = true)
+    public BlobStore filesystemBlobStore(@Value("${file.storage.dir}") String storageDir) {
+        return new FilesystemBlobStore(storageDir);
+    }
+
+    /**
+     * Without an endpoint AWS is used. Without keys credentials are looked up the standard AWS way
+     * (environment, profile, instance role). Presigned URLs are built for the public endpoint,
+     * which differs from the endpoint when the backend reaches the bucket by an internal address
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "file.storage.type", havingValue = "s3")
+    public S3BlobStore s3BlobStore(
+            @Value("${file.storage.s3.endpoint:}") String endpoint,
+            @Value("${file.storage.s3.public-endpoint:${file.storage.s3.endpoint:}}") String publicEndpoint,
+            @Value("${file.storage.s3.region:us-east-1}") String region,
+            @Value("${file.storage.s3.bucket}") String bucket,
+            @Value("${file.storage.s3.access-key:}") String accessKey,
+            @Value("${file.storage.s3.secret-key:}") String secretKey,
+            @Value("${file.storage.s3.path-style:false}") boolean pathStyle,
+            @Value("${file.storage.s3.part-size:8MB}") DataSize partSize,
+            @Value("${file.storage.s3.url-expiry:5m}") Duration urlExpiry
+    ) {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        S3Configuration s3 = S3Configuration.builder().pathStyleAccessEnabled(pathStyle).build();
+
+        var client = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3);
+        if (StringUtils.hasText(endpoint)) {
+            client.endpointOverride(URI.create(endpoint));
+        }
+        var presigner = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3);
+        if (StringUtils.hasText(publicEndpoint)) {
+            presigner.endpointOverride(URI.create(publicEndpoint));
+        }
+        return new S3BlobStore(client.build(), presigner.build(), bucket, (int) partSize.toBytes(), urlExpiry);
+    }
+}
@@ -1,8 +1,10 @@
 package ru.itmo.is.config;
 
 
+import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -12,24 +14,34 @@ import ru.itmo.is.web.AuthInterceptor;
 public class WebConfig implements WebMvcConfigurer {
 
     private final AuthInterceptor authInterceptor;
+    private final EntityManagerFactory entityManagerFactory;
 
     @Autowired
-    public WebConfig(AuthInterceptor authInterceptor) {
+    public WebConfig(AuthInterceptor authInterceptor, EntityManagerFactory entityManagerFactory) {
         this.authInterceptor = authInterceptor;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(authInterceptor);
+
+        // Open session in view (spring.jpa.open-in-view is off to register it here). A session holds its
+        // connection until the request ends, notification streams stay open for minutes, large downloads
+        // and upload chunks are as slow as the client
+        var openEntityManagerInView = new OpenEntityManagerInViewInterceptor();
+        openEntityManagerInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openEntityManagerInView)
+                .excludePathPatterns("/notification/stream", "/file/download/**", "/file/preview/**", "/file/uploads/**");
     }
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("*")
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
-                .exposedHeaders("Authorization", "Content-Type")
+                .exposedHeaders("Authorization", "Content-Type", "Content-Disposition", "Content-Range", "ETag")
                 .maxAge(3600);
     }
 }
@@ -7,14 +7,17 @@ import ru.itmo.is.api.BidApi;
 import ru.itmo.is.dto.*;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.security.RolesAllowed;
+import ru.itmo.is.service.BidBatchService;
 import ru.itmo.is.service.BidService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class BidController implements BidApi {
     private final BidService bidService;
+    private final BidBatchService bidBatchService;
 
     @Override
     @RolesAllowed({User.Role.NON_RESIDENT, User.Role.RESIDENT})
@@ -40,6 +43,12 @@ public class BidController implements BidApi {
         return ResponseEntity.ok(bidService.getInProcessBids());
     }
 
+    @Override
+    @RolesAllowed(User.Role.MANAGER)
+    public ResponseEntity<List<BidResponse>> getBidQueue(Integer page, Integer size) {
+        return ResponseEntity.ok(bidService.getInProcessBidsPage(page, size));
+    }
+
     @Override
     @RolesAllowed(User.Role.MANAGER)
     public ResponseEntity<List<BidResponse>> getPendingBids() {
@@ -52,6 +61,23 @@ public class BidController implements BidApi {
         return ResponseEntity.ok(bidService.getArchivedBids());
     }
 
+    @Override
+    @RolesAllowed(User.Role.MANAGER)
+    public ResponseEntity<BidPage> searchBids(
+            List<BidStatus> status,
+            BidType type,
+            String sender,
+            String manager,
+            LocalDateTime createdFrom,
+            LocalDateTime createdTo,
+            Long cursor,
+            Integer limit
+    ) {
+        return ResponseEntity.ok(
+                bidService.searchBids(status, type, sender, manager, createdFrom, createdTo, cursor, limit)
+        );
+    }
+
     @Override
     @RolesAllowed(User.Role.NON_RESIDENT)
     public ResponseEntity<Void> createOccupationBid(OccupationRequest req) {
@@ -115,6 +141,12 @@ public class BidController implements BidApi {
         return ResponseEntity.ok().build();
     }
 
+    @Override
+    @RolesAllowed(User.Role.MANAGER)
+    public ResponseEntity<List<BidBatchResult>> processBids(BidBatchRequest req) {
+        return ResponseEntity.ok(bidBatchService.processBids(req));
+    }
+
     @Override
     @RolesAllowed(User.Role.MANAGER)
     public ResponseEntity<Void> pendBid(Long id, StringData body) {
@@ -1,36 +1,141 @@
 package ru.itmo.is.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.apache.catalina.Globals;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import ru.itmo.is.api.FileApi;
+import ru.itmo.is.dto.FileUploadRequest;
+import ru.itmo.is.dto.FileUploadResponse;
 import ru.itmo.is.dto.StringData;
 import ru.itmo.is.storage.FileData;
 import ru.itmo.is.service.FileService;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 @Log4j2
 @RestController
 @RequiredArgsConstructor
 public class FileController implements FileApi {
+    // Below it copying is as cheap as sendfile, same threshold as Tomcat DefaultServlet has
+    private static final long MIN_SENDFILE_SIZE = 48 * 1024;
+
     private final FileService fileService;
+    private final HttpServletRequest request;
 
+    /**
+     * File version (content hash) is a strong ETag. Spring answers conditional requests
+     * with 304 and Range requests with 206 for a resource body, streaming it without loading into memory.
+     * Plain full downloads of local files are handed to Tomcat sendfile and skip the JVM completely.
+     * Files of object storage are not sent by the backend at all, the client is redirected to the storage.
+     */
     @Override
     public ResponseEntity<Resource> downloadFile(String key) {
         FileData file = fileService.get(key);
+        if (file.url() != null) {
+            return redirect(file);
+        }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.name() + "\"")
-                .body(file.data());
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(file.name(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .eTag(file.version())
+                .lastModified(file.lastModified())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate());
+
+        if (sendfile(file)) {
+            return response.contentLength(file.size()).build();
+        }
+        return response.body(file.data());
+    }
+
+    @Override
+    public ResponseEntity<Resource> previewFile(String key) {
+        FileData preview = fileService.getPreview(key);
+        if (preview.url() != null) {
+            return redirect(preview);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(preview.name(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .eTag(preview.version())
+                .lastModified(preview.lastModified())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(preview.data());
     }
 
     @Override
     public ResponseEntity<StringData> uploadFile(MultipartFile file) {
         return ResponseEntity.ok(new StringData(fileService.upload(file)));
     }
+
+    @Override
+    public ResponseEntity<FileUploadResponse> startFileUpload(FileUploadRequest req) {
+        return ResponseEntity.ok(fileService.startUpload(req));
+    }
+
+    @Override
+    public ResponseEntity<FileUploadResponse> getFileUpload(String id) {
+        return ResponseEntity.ok(fileService.getUpload(id));
+    }
+
+    @Override
+    public ResponseEntity<FileUploadResponse> appendFileUpload(String id, Long offset, InputStreamResource body) {
+        return ResponseEntity.ok(fileService.appendUpload(id, offset, body));
+    }
+
+    @Override
+    public ResponseEntity<StringData> finishFileUpload(String id) {
+        return ResponseEntity.ok(new StringData(fileService.finishUpload(id)));
+    }
+
+    /**
+     * Storage URLs expire, so the redirect itself is never cached
+     */
+    private ResponseEntity<Resource> redirect(FileData file) {
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(file.url())
+                .cacheControl(CacheControl.noStore())
+                .build();
+    }
+
+    private boolean sendfile(FileData file) {
+        if (!Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getHeader(HttpHeaders.RANGE) != null
+                || request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null
+                || file.size() < MIN_SENDFILE_SIZE
+                || !file.data().isFile()) {
+            return false;
+        }
+        try {
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.data().getFile().getAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Cannot send file {} with sendfile", file.name(), e);
+            return false;
+        }
+        request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+        request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, file.size());
+        return true;
+    }
 }
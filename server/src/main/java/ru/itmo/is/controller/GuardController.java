@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 import ru.itmo.is.api.GuardApi;
+import ru.itmo.is.dto.GuardBatchRequest;
+import ru.itmo.is.dto.GuardBatchResult;
 import ru.itmo.is.dto.GuardHistory;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.security.RolesAllowed;
@@ -30,6 +32,12 @@ public class GuardController implements GuardApi {
         return ResponseEntity.ok().build();
     }
 
+    @Override
+    @RolesAllowed(User.Role.GUARD)
+    public ResponseEntity<List<GuardBatchResult>> batch(GuardBatchRequest req) {
+        return ResponseEntity.ok(guardService.batch(req));
+    }
+
     @Override
     @RolesAllowed(User.Role.MANAGER)
     public ResponseEntity<List<GuardHistory>> getHistory(String login) {
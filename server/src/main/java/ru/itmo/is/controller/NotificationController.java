@@ -3,6 +3,7 @@ package ru.itmo.is.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.itmo.is.api.NotificationApi;
 import ru.itmo.is.dto.NotificationResponse;
 import ru.itmo.is.service.NotificationService;
@@ -19,6 +20,14 @@ public class NotificationController implements NotificationApi {
         return ResponseEntity.ok(notificationService.getUnreadNotifications());
     }
 
+    @Override
+    public ResponseEntity<SseEmitter> streamNotifications() {
+        return ResponseEntity.ok()
+                // nginx would otherwise buffer events until its buffer is full
+                .header("X-Accel-Buffering", "no")
+                .body(notificationService.subscribe());
+    }
+
     @Override
     public ResponseEntity<Void> markAsRead(Long id) {
         notificationService.markAsRead(id);
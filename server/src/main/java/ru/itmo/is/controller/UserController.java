@@ -33,8 +33,8 @@ public class UserController implements UserApi {
     }
 
     @Override
-    public ResponseEntity<List<ResidentResponse>> getResidents() {
-        return ResponseEntity.ok(userService.getResidents());
+    public ResponseEntity<List<ResidentResponse>> getResidents(String after, Integer limit) {
+        return ResponseEntity.ok(userService.getResidents(after, limit));
     }
 
     @Override
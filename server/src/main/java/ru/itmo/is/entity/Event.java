@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Entity
 @Getter
 @Setter
-@SequenceGenerator(name = "eventSeq", sequenceName = "event_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "eventSeq", sequenceName = "event_id_seq", allocationSize = 50)
 public class Event {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "eventSeq")
@@ -9,13 +9,14 @@ import lombok.experimental.FieldDefaults;
 import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.user.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Getter
 @Setter
 @Inheritance(strategy = InheritanceType.JOINED)
-@SequenceGenerator(name = "bidSeq", sequenceName = "bid_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "bidSeq", sequenceName = "bid_id_seq", allocationSize = 50)
 public class Bid {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bidSeq")
@@ -32,7 +33,8 @@ public class Bid {
     @JoinColumn(name = "manager")
     private User manager;
     private String comment;
-    @OneToOne
+    private LocalDateTime createdAt = LocalDateTime.now();
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", referencedColumnName = "id")
     private Event event;
     @OneToMany(mappedBy = "bid")
@@ -7,6 +7,8 @@ import jakarta.persistence.ManyToOne;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Getter
 @Setter
@@ -17,4 +19,7 @@ public class BidFile {
     @JoinColumn(name = "bid_id")
     private Bid bid;
     private String name;
+    // Null for files stored by key before content addressing
+    private String contentHash;
+    private LocalDateTime created = LocalDateTime.now();
 }
@@ -0,0 +1,20 @@
+package ru.itmo.is.entity.bid;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+public class BidFileUpload {
+    @Id
+    private String id;
+    private String name;
+    // Declared by the client on start, upload is finished when that many bytes are received
+    private long size;
+    private LocalDateTime created;
+}
@@ -3,18 +3,22 @@ package ru.itmo.is.entity.dorm;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import java.util.List;
 
 @Entity
 @Getter
 @Setter
-@SequenceGenerator(name = "dormitorySeq", sequenceName = "dormitory_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "dormitorySeq", sequenceName = "dormitory_id_seq", allocationSize = 50)
 public class Dormitory {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dormitorySeq")
     private Integer id;
     private String address;
+    // Sum of room counters, so resident statements change only the row of their room
+    @Formula("(SELECT COALESCE(SUM(rm.occupied), 0) FROM room rm WHERE rm.dormitory_id = id)")
+    private int occupied;
 
     @ManyToMany
     @JoinTable(
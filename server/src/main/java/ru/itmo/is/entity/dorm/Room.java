@@ -11,7 +11,7 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@SequenceGenerator(name = "roomSeq", sequenceName = "room_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "roomSeq", sequenceName = "room_id_seq", allocationSize = 50)
 public class Room {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roomSeq")
@@ -25,6 +25,9 @@ public class Room {
     private int capacity;
     private int floor;
     private int cost;
+    // Maintained by resident statements in SQL, never written from the entity
+    @Column(updatable = false)
+    private int occupied;
     @OneToMany(mappedBy = "room")
     private List<Resident> residents;
     @OneToMany(mappedBy = "room", fetch = FetchType.LAZY)
@@ -10,7 +10,7 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@SequenceGenerator(name = "universitySeq", sequenceName = "university_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "universitySeq", sequenceName = "university_id_seq", allocationSize = 50)
 public class University {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "universitySeq")
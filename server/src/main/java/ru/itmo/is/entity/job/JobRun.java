@@ -0,0 +1,35 @@
+package ru.itmo.is.entity.job;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+public class JobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String job;
+    // Instance that ran the job, pid@host
+    private String node;
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.RUNNING;
+    private LocalDateTime started = LocalDateTime.now();
+    private LocalDateTime finished;
+    // Where the job stopped, an interrupted run is resumed from here
+    private String checkpoint;
+    private int processed;
+    private String error;
+
+    public enum Status {
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        // Instance stopped while running, the run was taken over by a later one
+        INTERRUPTED
+    }
+}
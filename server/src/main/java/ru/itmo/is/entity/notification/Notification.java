@@ -6,10 +6,12 @@ import lombok.Setter;
 import ru.itmo.is.entity.bid.Bid;
 import ru.itmo.is.entity.user.User;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Getter
 @Setter
-@SequenceGenerator(name = "notificationSeq", sequenceName = "notification_id_seq", allocationSize = 1)
+@SequenceGenerator(name = "notificationSeq", sequenceName = "notification_id_seq", allocationSize = 50)
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificationSeq")
@@ -24,6 +26,7 @@ public class Notification {
     private String text;
     @Enumerated(EnumType.STRING)
     private Status status = Status.CREATED;
+    private LocalDateTime created = LocalDateTime.now();
 
     public enum Status {
         CREATED,
@@ -0,0 +1,21 @@
+package ru.itmo.is.entity.user;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+public class ResidentLedger {
+    @Id
+    private String login;
+    private int roomCost;
+    // Rent is settled up to this moment, debt accrues in whole months from it
+    private LocalDateTime paidUntil;
+    // Sum paid since the current occupation
+    private long totalPaid;
+}
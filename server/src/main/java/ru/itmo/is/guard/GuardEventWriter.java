@@ -0,0 +1,163 @@
+package ru.itmo.is.guard;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.exception.ServiceUnavailableException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes turnstile events in batches. Callers put events to a bounded queue, one writer thread
+ * drains it and stores everything collected so far with one id query and one batched insert.
+ * Futures are completed after commit, so callers can wait for their event to be durable.
+ * Other instances are told to forget last passes of the written residents and reload them.
+ */
+@Component
+public class GuardEventWriter {
+    private static final Logger log = LogManager.getLogger(GuardEventWriter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final GuardStateCache stateCache;
+    private final ClusterEventBus eventBus;
+    private final BlockingQueue<PendingEvent> queue;
+    private final int batchSize;
+    private volatile boolean running;
+    // Only the writer thread touches it
+    private int idBlockSize;
+    private Thread writer;
+
+    public GuardEventWriter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            GuardStateCache stateCache,
+            ClusterEventBus eventBus,
+            @Value("${guard.queue.capacity:10000}") int queueCapacity,
+            @Value("${guard.batch.size:500}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.stateCache = stateCache;
+        this.eventBus = eventBus;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        eventBus.subscribe(Topic.GUARD_PASSES, stateCache::forget, stateCache::forgetAll);
+        running = true;
+        writer = new Thread(this::run, "guard-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Writer leaves its loop once the queue is drained
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public CompletableFuture<Void> submit(String login, Event.Type type, LocalDateTime timestamp) {
+        var event = new PendingEvent(login, type, timestamp, new CompletableFuture<>());
+        if (!running || !queue.offer(event)) {
+            throw new ServiceUnavailableException("Too many guard events are waiting to be saved");
+        }
+        return event.written();
+    }
+
+    private void run() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingEvent> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+            batch.forEach(event -> event.written().complete(null));
+        } catch (RuntimeException e) {
+            log.error("Cannot write {} guard events", batch.size(), e);
+            for (PendingEvent event : batch) {
+                // Cached state is ahead of the database now, reload it on the next pass
+                stateCache.forget(event.login());
+                event.written().completeExceptionally(e);
+            }
+            return;
+        }
+        eventBus.publish(Topic.GUARD_PASSES, batch.stream().map(PendingEvent::login).distinct().toList());
+    }
+
+    private void write(List<PendingEvent> batch) {
+        List<Long> ids = nextIds(batch.size());
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEvent event = batch.get(i);
+            rows.add(new Object[]{
+                    ids.get(i), event.type().name(), Timestamp.valueOf(event.timestamp()), event.login()
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO event (id, type, timestamp, usr) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * Every nextval of the event sequence reserves a block of ids (pooled-lo, same as Hibernate does),
+     * so a batch needs one nextval per block instead of one per event.
+     */
+    private List<Long> nextIds(int count) {
+        if (idBlockSize == 0) {
+            idBlockSize = jdbcTemplate.queryForObject(
+                    "SELECT increment_by FROM pg_sequences " +
+                    "WHERE schemaname = current_schema() AND sequencename = 'event_id_seq'",
+                    Integer.class
+            );
+        }
+        int blocks = (count + idBlockSize - 1) / idBlockSize;
+        List<Long> ids = new ArrayList<>(blocks * idBlockSize);
+        for (Long low : jdbcTemplate.queryForList(
+                "SELECT nextval('event_id_seq') FROM generate_series(1, ?)", Long.class, blocks
+        )) {
+            for (int i = 0; i < idBlockSize; i++) {
+                ids.add(low + i);
+            }
+        }
+        return ids;
+    }
+
+    private record PendingEvent(
+            String login,
+            Event.Type type,
+            LocalDateTime timestamp,
+            CompletableFuture<Void> written
+    ) { }
+}
@@ -0,0 +1,104 @@
+package ru.itmo.is.guard;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.repository.EventRepository;
+import ru.itmo.is.repository.ResidentRepository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last turnstile pass of every resident seen by this instance, so IN/OUT alternation is checked
+ * without a query. A resident is loaded from the database on first pass and kept until evicted
+ * or until writing one of the resident events fails.
+ */
+@Component
+@RequiredArgsConstructor
+public class GuardStateCache {
+    private static final LastPass NO_PASS = new LastPass(null, LocalDateTime.MIN);
+
+    private final EventRepository eventRepository;
+    private final ResidentRepository residentRepository;
+    private final ClusterEventBus eventBus;
+    private final Map<String, LastPass> passes = new ConcurrentHashMap<>();
+
+    /**
+     * Records a pass if it alternates with the previous one.
+     *
+     * @return pass that was the last before this one
+     */
+    public LastPass pass(String login, Event.Type type, LocalDateTime timestamp) {
+        if (!passes.containsKey(login)) {
+            passes.putIfAbsent(login, load(login));
+        }
+        LastPass[] previous = new LastPass[1];
+        passes.compute(login, (l, last) -> {
+            if (last == null) {
+                last = load(l);
+            }
+            if (last.type() == type) {
+                throw new BadRequestException("Last guard event was the same");
+            }
+            if (timestamp.isBefore(last.timestamp())) {
+                throw new BadRequestException("Event is older than the last guard event");
+            }
+            previous[0] = last;
+            return new LastPass(type, timestamp);
+        });
+        return previous[0];
+    }
+
+    /**
+     * Restores the previous pass if nothing was recorded after the given one.
+     */
+    public void revert(String login, LastPass recorded, LastPass previous) {
+        passes.replace(login, recorded, previous);
+    }
+
+    public void forget(String login) {
+        passes.remove(login);
+    }
+
+    /**
+     * Forgets a resident whose residency ends in the current transaction once it completes. Until then
+     * a concurrent pass still sees the resident row and would put the resident back into the cache.
+     * Other instances are told to forget the resident after commit too
+     */
+    public void forgetAfterCompletion(String login) {
+        eventBus.publish(Topic.GUARD_PASSES, login);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget(login);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                forget(login);
+            }
+        });
+    }
+
+    public void forgetAll() {
+        passes.clear();
+    }
+
+    private LastPass load(String login) {
+        if (!residentRepository.existsById(login)) {
+            throw new NotFoundException("Resident not found");
+        }
+        return eventRepository.getLastInOutEvent(login)
+                .map(event -> new LastPass(event.getType(), event.getTimestamp()))
+                .orElse(NO_PASS);
+    }
+
+    public record LastPass(Event.Type type, LocalDateTime timestamp) { }
+}
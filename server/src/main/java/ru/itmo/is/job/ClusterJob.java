@@ -0,0 +1,21 @@
+package ru.itmo.is.job;
+
+/**
+ * Periodic job run by {@link JobScheduler} on one instance of the cluster at a time.
+ * Heavy jobs work in chunks, each in its own transaction that also stores a checkpoint,
+ * so a run interrupted by a stopped instance is continued by another one from the last committed chunk.
+ */
+public interface ClusterJob {
+
+    /**
+     * Unique name, identifies the job in run history and its advisory lock
+     */
+    String name();
+
+    /**
+     * Spring cron expression, "-" disables scheduling, the job can still be run by {@link JobScheduler#run}
+     */
+    String cron();
+
+    void run(JobContext context);
+}
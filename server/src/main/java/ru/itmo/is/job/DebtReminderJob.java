@@ -0,0 +1,87 @@
+package ru.itmo.is.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.entity.user.ResidentLedger;
+import ru.itmo.is.repository.ResidentLedgerRepository;
+import ru.itmo.is.service.EventService;
+import ru.itmo.is.service.NotificationService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reminds residents of their debt when it grows by a month. Debt that grew while the job did not run
+ * is reminded of once, at the next run
+ */
+@Component
+public class DebtReminderJob implements ClusterJob {
+    static final int CHUNK_SIZE = 500;
+
+    private final ResidentLedgerRepository ledgerRepository;
+    private final EventService eventService;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final String cron;
+
+    public DebtReminderJob(
+            ResidentLedgerRepository ledgerRepository,
+            EventService eventService,
+            NotificationService notificationService,
+            TransactionTemplate transactionTemplate,
+            @Value("${debt.reminder.cron}") String cron
+    ) {
+        this.ledgerRepository = ledgerRepository;
+        this.eventService = eventService;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "debt-reminder";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        LocalDate today = LocalDate.now();
+        LocalDate since = context.getLastSucceeded() == null
+                ? today.minusDays(1)
+                : context.getLastSucceeded().toLocalDate();
+        String after = context.getCheckpoint() == null ? "" : context.getCheckpoint();
+
+        List<ResidentLedger> chunk;
+        do {
+            chunk = ledgerRepository.getDebtGrownBetween(
+                    since.atStartOfDay(),
+                    today.atStartOfDay(),
+                    after,
+                    CHUNK_SIZE
+            );
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Map<String, Integer> debts = new LinkedHashMap<>();
+            for (ResidentLedger ledger : chunk) {
+                debts.put(ledger.getLogin(), eventService.calculateDebt(ledger.getRoomCost(), ledger.getPaidUntil()));
+            }
+            String last = chunk.getLast().getLogin();
+            int size = chunk.size();
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationService.remindAboutDebt(debts);
+                context.checkpoint(last, size);
+            });
+            after = last;
+        } while (chunk.size() == CHUNK_SIZE);
+    }
+}
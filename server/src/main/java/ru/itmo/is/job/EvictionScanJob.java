@@ -0,0 +1,70 @@
+package ru.itmo.is.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.dto.EvictionReason;
+import ru.itmo.is.dto.ToEvictionResidentResponse;
+import ru.itmo.is.service.NotificationService;
+import ru.itmo.is.service.UserService;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warns residents who are to be evicted. Residents are warned in chunks by login, so a continued run
+ * skips the ones already warned
+ */
+@Component
+public class EvictionScanJob implements ClusterJob {
+    static final int CHUNK_SIZE = 100;
+
+    private final UserService userService;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final String cron;
+
+    public EvictionScanJob(
+            UserService userService,
+            NotificationService notificationService,
+            TransactionTemplate transactionTemplate,
+            @Value("${eviction.scan.cron}") String cron
+    ) {
+        this.userService = userService;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "eviction-scan";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        String after = context.getCheckpoint();
+        List<ToEvictionResidentResponse> residents = userService.getResidentsToEviction().stream()
+                .filter(resident -> after == null || resident.getResident().getLogin().compareTo(after) > 0)
+                .sorted(Comparator.comparing(resident -> resident.getResident().getLogin()))
+                .toList();
+
+        for (int from = 0; from < residents.size(); from += CHUNK_SIZE) {
+            List<ToEvictionResidentResponse> chunk = residents.subList(from, Math.min(from + CHUNK_SIZE, residents.size()));
+            Map<String, EvictionReason> reasons = new LinkedHashMap<>();
+            chunk.forEach(resident -> reasons.put(resident.getResident().getLogin(), resident.getReason()));
+            String last = chunk.getLast().getResident().getLogin();
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationService.warnAboutEviction(reasons);
+                context.checkpoint(last, chunk.size());
+            });
+        }
+    }
+}
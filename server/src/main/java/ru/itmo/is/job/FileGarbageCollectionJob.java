@@ -0,0 +1,41 @@
+package ru.itmo.is.job;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.is.service.FileService;
+
+@Component
+public class FileGarbageCollectionJob implements ClusterJob {
+    private static final Logger log = LogManager.getLogger(FileGarbageCollectionJob.class);
+
+    private final FileService fileService;
+    private final String cron;
+
+    public FileGarbageCollectionJob(FileService fileService, @Value("${file.gc.cron}") String cron) {
+        this.fileService = fileService;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "file-gc";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        int expired = fileService.deleteExpiredUploads();
+        log.info("File garbage collection deleted {} unfinished uploads", expired);
+        int detached = fileService.deleteDetachedFiles();
+        log.info("File garbage collection deleted {} files without bid", detached);
+        int deleted = fileService.collectGarbage();
+        log.info("File garbage collection deleted {} unreferenced files", deleted);
+        context.checkpoint(null, expired + detached + deleted);
+    }
+}
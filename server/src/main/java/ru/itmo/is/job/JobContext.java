@@ -0,0 +1,62 @@
+package ru.itmo.is.job;
+
+import jakarta.annotation.Nullable;
+import ru.itmo.is.repository.JobRunRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a job run passed to the job
+ */
+public class JobContext {
+    private final JobRunRepository jobRunRepository;
+    private final long runId;
+    @Nullable
+    private final LocalDateTime lastSucceeded;
+    @Nullable
+    private String checkpoint;
+    private int processed;
+
+    JobContext(
+            JobRunRepository jobRunRepository,
+            long runId,
+            @Nullable String checkpoint,
+            @Nullable LocalDateTime lastSucceeded
+    ) {
+        this.jobRunRepository = jobRunRepository;
+        this.runId = runId;
+        this.checkpoint = checkpoint;
+        this.lastSucceeded = lastSucceeded;
+    }
+
+    /**
+     * Last checkpoint of this run, when the run continues an interrupted one it starts with the checkpoint of that run
+     */
+    @Nullable
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Start of the last successful run, null if there was none
+     */
+    @Nullable
+    public LocalDateTime getLastSucceeded() {
+        return lastSucceeded;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Stores progress in the current transaction, so it is committed or rolled back together with the chunk
+     *
+     * @param processed items processed since the previous checkpoint
+     */
+    public void checkpoint(@Nullable String checkpoint, int processed) {
+        jobRunRepository.checkpoint(runId, checkpoint, processed);
+        this.checkpoint = checkpoint;
+        this.processed += processed;
+    }
+}
@@ -0,0 +1,223 @@
+package ru.itmo.is.job;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Component;
+import ru.itmo.is.entity.job.JobRun;
+import ru.itmo.is.repository.JobRunRepository;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Runs {@link ClusterJob}s by their cron on whichever instance gets to them first. While a job runs, its instance
+ * holds a Postgres advisory lock of the job on a separate connection, other instances fail to take it and skip
+ * the run. If the instance stops, its connection is closed and the lock is released with it.
+ * <p>
+ * Every run is recorded in job_run. Clocks of instances differ a bit, so an instance that gets the lock
+ * after the run for the current cron time has already succeeded skips it too. A RUNNING run with a free lock
+ * was interrupted, it is noticed by the recovery check and continued from its checkpoint.
+ * <p>
+ * Jobs run on threads of their own, one per job and one for the recovery check, so a long job delays neither
+ * other jobs nor {@code @Scheduled} tasks of the application.
+ */
+@Component
+public class JobScheduler {
+    private static final Logger log = LogManager.getLogger(JobScheduler.class);
+    // First key of two-key advisory locks of jobs, so they don't collide with other advisory locks
+    static final int LOCK_NAMESPACE = 0x4A4F42;
+    private static final String DISABLED = "-";
+
+    private final List<ClusterJob> jobs;
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final DataSource dataSource;
+    private final JobRunRepository jobRunRepository;
+    private final String recoveryCron;
+    private final String node;
+    private final List<ScheduledFuture<?>> scheduled = new ArrayList<>();
+
+    public JobScheduler(
+            List<ClusterJob> jobs,
+            DataSource dataSource,
+            JobRunRepository jobRunRepository,
+            @Value("${job.recovery.cron:0 * * * * *}") String recoveryCron
+    ) {
+        this.jobs = jobs;
+        this.dataSource = dataSource;
+        this.jobRunRepository = jobRunRepository;
+        this.recoveryCron = recoveryCron;
+        this.node = ProcessHandle.current().pid() + "@" + hostName();
+    }
+
+    @PostConstruct
+    void start() {
+        taskScheduler.setPoolSize(jobs.size() + 1);
+        taskScheduler.setThreadNamePrefix("cluster-job-");
+        taskScheduler.initialize();
+        for (ClusterJob job : jobs) {
+            if (!DISABLED.equals(job.cron())) {
+                scheduled.add(taskScheduler.schedule(() -> runScheduled(job), new CronTrigger(job.cron())));
+            }
+        }
+        if (!DISABLED.equals(recoveryCron)) {
+            scheduled.add(taskScheduler.schedule(this::recover, new CronTrigger(recoveryCron)));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduled.forEach(future -> future.cancel(false));
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * Runs a job now regardless of its cron, unless it is running on some instance
+     *
+     * @return whether the job was run
+     */
+    boolean run(String name) {
+        ClusterJob job = jobs.stream()
+                .filter(j -> j.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No job " + name));
+        return execute(job, Trigger.MANUAL);
+    }
+
+    /**
+     * Continues runs of stopped instances. Every instance checks, the first to take the lock continues the run
+     */
+    void recover() {
+        for (ClusterJob job : jobs) {
+            boolean interrupted = jobRunRepository.findFirstByJobOrderByIdDesc(job.name())
+                    .filter(run -> run.getStatus() == JobRun.Status.RUNNING)
+                    .isPresent();
+            if (interrupted) {
+                execute(job, Trigger.RECOVERY);
+            }
+        }
+    }
+
+    private void runScheduled(ClusterJob job) {
+        try {
+            execute(job, Trigger.CRON);
+        } catch (RuntimeException e) {
+            // Scheduler would cancel a cron task that throws
+            log.error("Cannot run job {}", job.name(), e);
+        }
+    }
+
+    private boolean execute(ClusterJob job, Trigger trigger) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!lock(connection, "pg_try_advisory_lock", job)) {
+                log.debug("Job {} is running on another instance", job.name());
+                return false;
+            }
+            try {
+                return runLocked(job, trigger);
+            } finally {
+                lock(connection, "pg_advisory_unlock", job);
+            }
+        } catch (SQLException e) {
+            log.error("Cannot take lock of job {}", job.name(), e);
+            return false;
+        }
+    }
+
+    private boolean runLocked(ClusterJob job, Trigger trigger) {
+        // Checked again under the lock, another instance may have finished the run meanwhile
+        Optional<JobRun> last = jobRunRepository.findFirstByJobOrderByIdDesc(job.name());
+        boolean interrupted = last.filter(run -> run.getStatus() == JobRun.Status.RUNNING).isPresent();
+        if (trigger == Trigger.CRON && last.filter(run -> done(job, run)).isPresent()) {
+            log.debug("Job {} has already run on another instance", job.name());
+            return false;
+        }
+        if (trigger == Trigger.RECOVERY && !interrupted) {
+            return false;
+        }
+        String checkpoint = null;
+        if (interrupted) {
+            // The lock is ours, so the instance of this run has stopped
+            JobRun previous = last.get();
+            jobRunRepository.finish(previous.getId(), JobRun.Status.INTERRUPTED, LocalDateTime.now(), null);
+            checkpoint = previous.getCheckpoint();
+            log.warn("Job {} was interrupted on {}, continuing from {}", job.name(), previous.getNode(), checkpoint);
+        }
+
+        var run = new JobRun();
+        run.setJob(job.name());
+        run.setNode(node);
+        run.setCheckpoint(checkpoint);
+        jobRunRepository.save(run);
+        var context = new JobContext(
+                jobRunRepository,
+                run.getId(),
+                checkpoint,
+                jobRunRepository.getLastSucceeded(job.name()).orElse(null)
+        );
+
+        try {
+            job.run(context);
+        } catch (RuntimeException e) {
+            log.error("Job {} failed after {} items", job.name(), context.getProcessed(), e);
+            jobRunRepository.finish(run.getId(), JobRun.Status.FAILED, LocalDateTime.now(), e.toString());
+            return true;
+        }
+        jobRunRepository.finish(run.getId(), JobRun.Status.SUCCEEDED, LocalDateTime.now(), null);
+        log.info("Job {} processed {} items", job.name(), context.getProcessed());
+        return true;
+    }
+
+    /**
+     * Run succeeded and the cron has not fired since it started
+     */
+    private boolean done(ClusterJob job, JobRun run) {
+        if (run.getStatus() != JobRun.Status.SUCCEEDED) {
+            return false;
+        }
+        LocalDateTime next = CronExpression.parse(job.cron()).next(run.getStarted());
+        return next == null || next.isAfter(LocalDateTime.now());
+    }
+
+    private boolean lock(Connection connection, String function, ClusterJob job) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + function + "(?, hashtext(?))"
+        )) {
+            statement.setInt(1, LOCK_NAMESPACE);
+            statement.setString(2, job.name());
+            try (ResultSet result = statement.executeQuery()) {
+                result.next();
+                return result.getBoolean(1);
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    private enum Trigger {
+        CRON,
+        MANUAL,
+        RECOVERY
+    }
+}
@@ -0,0 +1,41 @@
+package ru.itmo.is.job;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.is.service.LedgerService;
+
+@Component
+public class LedgerReconciliationJob implements ClusterJob {
+    private static final Logger log = LogManager.getLogger(LedgerReconciliationJob.class);
+
+    private final LedgerService ledgerService;
+    private final String cron;
+
+    public LedgerReconciliationJob(LedgerService ledgerService, @Value("${ledger.reconciliation.cron}") String cron) {
+        this.ledgerService = ledgerService;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "ledger-reconciliation";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        int fixed = ledgerService.reconcile();
+        if (fixed > 0) {
+            log.warn("Ledger reconciliation fixed {} rows", fixed);
+        } else {
+            log.info("Ledger is consistent with the event log");
+        }
+        context.checkpoint(null, fixed);
+    }
+}
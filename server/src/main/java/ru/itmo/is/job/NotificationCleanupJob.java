@@ -0,0 +1,62 @@
+package ru.itmo.is.job;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.repository.NotificationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes read notifications older than the retention. Rows are deleted in small transactions,
+ * so the table is not locked for long and an interrupted run keeps what it has deleted
+ */
+@Component
+public class NotificationCleanupJob implements ClusterJob {
+    private static final Logger log = LogManager.getLogger(NotificationCleanupJob.class);
+    static final int CHUNK_SIZE = 1000;
+
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final String cron;
+
+    public NotificationCleanupJob(
+            NotificationRepository notificationRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${notification.cleanup.retention:30d}") Duration retention,
+            @Value("${notification.cleanup.cron}") String cron
+    ) {
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "notification-cleanup";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                int count = notificationRepository.deleteReadCreatedBefore(before, CHUNK_SIZE);
+                context.checkpoint(null, count);
+                return count;
+            });
+        } while (deleted != null && deleted == CHUNK_SIZE);
+        log.info("Notification cleanup deleted {} read notifications", context.getProcessed());
+    }
+}
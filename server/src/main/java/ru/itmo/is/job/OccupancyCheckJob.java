@@ -0,0 +1,41 @@
+package ru.itmo.is.job;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.is.service.OccupancyService;
+
+@Component
+public class OccupancyCheckJob implements ClusterJob {
+    private static final Logger log = LogManager.getLogger(OccupancyCheckJob.class);
+
+    private final OccupancyService occupancyService;
+    private final String cron;
+
+    public OccupancyCheckJob(OccupancyService occupancyService, @Value("${occupancy.check.cron}") String cron) {
+        this.occupancyService = occupancyService;
+        this.cron = cron;
+    }
+
+    @Override
+    public String name() {
+        return "occupancy-check";
+    }
+
+    @Override
+    public String cron() {
+        return cron;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        int fixed = occupancyService.reconcile();
+        if (fixed > 0) {
+            log.warn("Occupancy check fixed {} counters", fixed);
+        } else {
+            log.info("Occupancy counters are consistent with residents");
+        }
+        context.checkpoint(null, fixed);
+    }
+}
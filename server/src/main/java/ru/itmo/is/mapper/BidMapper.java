@@ -31,6 +31,24 @@ public class BidMapper {
         };
     }
 
+    public Bid.Type mapBidTypeToModel(BidType type) {
+        return switch (type) {
+            case DEPARTURE -> Bid.Type.DEPARTURE;
+            case OCCUPATION -> Bid.Type.OCCUPATION;
+            case ROOM_CHANGE -> Bid.Type.ROOM_CHANGE;
+            case EVICTION -> Bid.Type.EVICTION;
+        };
+    }
+
+    public Bid.Status mapBidStatusToModel(BidStatus status) {
+        return switch (status) {
+            case IN_PROCESS -> Bid.Status.IN_PROCESS;
+            case PENDING_REVISION -> Bid.Status.PENDING_REVISION;
+            case ACCEPTED -> Bid.Status.ACCEPTED;
+            case DENIED -> Bid.Status.DENIED;
+        };
+    }
+
     private DepartureResponse mapDepartureBidToDto(DepartureBid bid) {
         var response = new DepartureResponse();
         doDefaultMappings(response, bid);
@@ -73,6 +91,7 @@ public class BidMapper {
         response.setAttachments(bid.getFiles().stream().map(this::mapAttachmentToDto).toList());
         response.setStatus(mapBidStatusToDto(bid.getStatus()));
         response.setComment(bid.getComment());
+        response.setCreatedAt(bid.getCreatedAt());
         if (bid.getManager() != null) {
             response.setManager(userMapper.mapUserResponse(bid.getManager()));
         }
@@ -3,11 +3,8 @@ package ru.itmo.is.mapper;
 import org.springframework.stereotype.Component;
 import ru.itmo.is.dto.DormitoryResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
-import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
 
-import java.util.List;
-
 @Component
 public class DormitoryMapper {
 
@@ -16,12 +13,7 @@ public class DormitoryMapper {
         response.setId(dormitory.getId());
         response.setAddress(dormitory.getAddress());
         response.setUniversityIds(dormitory.getUniversities().stream().map(University::getId).toList());
-        response.setResidentNumber(
-                dormitory.getRooms().stream()
-                .map(Room::getResidents)
-                .map(List::size)
-                .reduce(0, Integer::sum)
-        );
+        response.setResidentNumber(dormitory.getOccupied());
         return response;
     }
 }
@@ -1,6 +1,7 @@
 package ru.itmo.is.mapper;
 
 import org.springframework.stereotype.Component;
+import ru.itmo.is.dto.GuardEventType;
 import ru.itmo.is.dto.GuardHistory;
 import ru.itmo.is.entity.Event;
 
@@ -13,6 +14,13 @@ public class EventMapper {
         return history;
     }
 
+    public Event.Type mapGuardEventType(GuardEventType type) {
+        return switch (type) {
+            case IN -> Event.Type.IN;
+            case OUT -> Event.Type.OUT;
+        };
+    }
+
     private GuardHistory.TypeEnum mapGuardEventType(Event.Type type) {
         return switch (type) {
             case IN -> GuardHistory.TypeEnum.IN;
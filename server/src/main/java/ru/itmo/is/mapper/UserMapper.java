@@ -1,15 +1,14 @@
 package ru.itmo.is.mapper;
 
-import jakarta.annotation.Nullable;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.itmo.is.dto.*;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
 import ru.itmo.is.security.PasswordManager;
 
-import java.time.LocalDateTime;
-
 @Component
 @RequiredArgsConstructor
 public class UserMapper {
@@ -57,30 +56,33 @@ public class UserMapper {
         );
     }
 
-    public ResidentResponse toResidentResponse(Resident resident, int debt, @Nullable LocalDateTime lastCameOut) {
+    public ResidentResponse toResidentResponse(
+            ResidentSummary resident,
+            UniversityResponse university,
+            DormitoryResponse dormitory,
+            int debt
+    ) {
         var response = new ResidentResponse();
         response.setLogin(resident.getLogin());
         response.setName(resident.getName());
         response.setSurname(resident.getSurname());
-        response.setRole(toUserRoleDto(resident.getRole()));
-        response.setUniversity(universityMapper.toResponse(resident.getUniversity()));
-        response.setDormitory(dormitoryMapper.toResponse(resident.getRoom().getDormitory()));
-        response.setRoomNumber(resident.getRoom().getNumber());
+        response.setRole(UserRole.RESIDENT);
+        response.setUniversity(university);
+        response.setDormitory(dormitory);
+        response.setRoomNumber(resident.getRoomNumber());
         response.setDebt(debt);
-        response.setLastCameOut(lastCameOut);
+        response.setLastCameOut(resident.getLastInOutTime());
         return response;
     }
 
-    public ToEvictionResidentResponse nonPaymentEvictResponse(User user) {
-        return new ToEvictionResidentResponse(mapUserResponse(user), EvictionReason.NON_PAYMENT);
-    }
-
-    public ToEvictionResidentResponse nonResidenceEvictResponse(User user) {
-        return new ToEvictionResidentResponse(mapUserResponse(user), EvictionReason.NON_RESIDENCE);
-    }
-
-    public ToEvictionResidentResponse ruleViolationEvictResponse(User user) {
-        return new ToEvictionResidentResponse(mapUserResponse(user), EvictionReason.RULE_VIOLATION);
+    public ToEvictionResidentResponse toEvictionResponse(EvictionCandidate candidate) {
+        var resident = new UserResponse(
+                candidate.getLogin(),
+                candidate.getName(),
+                candidate.getSurname(),
+                toUserRoleDto(User.Role.valueOf(candidate.getRole()))
+        );
+        return new ToEvictionResidentResponse(resident, EvictionReason.valueOf(candidate.getReason()));
     }
 
     private ProfileResponse mapResidentToProfile(Resident resident) {
@@ -0,0 +1,156 @@
+package ru.itmo.is.notification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.dto.NotificationResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Open notification streams of this instance, grouped by receiver login. An idle stream is an async
+ * request and holds no thread, every write goes to a virtual thread, so a slow client delays only itself.
+ * Notifications are also sent to other instances, each of them writes to the streams it holds.
+ */
+@Component
+public class NotificationHub {
+    private static final Logger log = LogManager.getLogger(NotificationHub.class);
+    private static final String EVENT_NAME = "notification";
+
+    private final Map<String, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final ClusterEventBus eventBus;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+
+    public NotificationHub(
+            ClusterEventBus eventBus,
+            ObjectMapper objectMapper,
+            @Value("${notification.stream.timeout:600000}") long timeoutMillis
+    ) {
+        this.eventBus = eventBus;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        // Missed notifications are not replayed, clients load unread ones when they reconnect
+        eventBus.subscribe(Topic.NOTIFICATIONS, this::receive, () -> { });
+    }
+
+    /**
+     * Opens a stream and sends unread notifications to it. The stream is registered before unread ones
+     * are loaded, so a notification created in between may come twice, clients skip known ids
+     */
+    public SseEmitter subscribe(String login, Supplier<List<NotificationResponse>> unread) {
+        var emitter = new SseEmitter(timeoutMillis);
+        streams.compute(login, (l, emitters) -> {
+            Set<SseEmitter> registered = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            registered.add(emitter);
+            return registered;
+        });
+        emitter.onCompletion(() -> remove(login, emitter));
+        emitter.onTimeout(() -> remove(login, emitter));
+        emitter.onError(e -> remove(login, emitter));
+
+        for (NotificationResponse notification : unread.get()) {
+            send(login, emitter, notification);
+        }
+        return emitter;
+    }
+
+    public void publish(String login, NotificationResponse notification) {
+        deliver(login, notification);
+        try {
+            eventBus.publish(Topic.NOTIFICATIONS, objectMapper.writeValueAsString(new Push(login, notification)));
+        } catch (JsonProcessingException e) {
+            log.error("Cannot send notification {} to other instances", notification.getId(), e);
+        }
+    }
+
+    public int connections() {
+        return streams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Comment lines keep proxies from closing idle streams and reveal clients that went away
+     */
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat:30000}")
+    public void heartbeat() {
+        streams.forEach((login, emitters) -> emitters.forEach(emitter -> sender.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remove(login, emitter);
+            }
+        })));
+    }
+
+    @PreDestroy
+    void close() {
+        streams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        streams.clear();
+        sender.close();
+    }
+
+    private void receive(String payload) {
+        Push push;
+        try {
+            push = objectMapper.readValue(payload, Push.class);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot read notification from other instance: {}", payload, e);
+            return;
+        }
+        deliver(push.login(), push.notification());
+    }
+
+    private void deliver(String login, NotificationResponse notification) {
+        Set<SseEmitter> emitters = streams.get(login);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            sender.execute(() -> send(login, emitter, notification));
+        }
+    }
+
+    private void send(String login, SseEmitter emitter, NotificationResponse notification) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(notification.getId()))
+                    .name(EVENT_NAME)
+                    .data(notification, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client is gone or the stream is already completed
+            log.debug("Cannot send notification {} to {}", notification.getId(), login, e);
+            remove(login, emitter);
+        }
+    }
+
+    private void remove(String login, SseEmitter emitter) {
+        streams.computeIfPresent(login, (l, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private record Push(String login, NotificationResponse notification) { }
+}
@@ -0,0 +1,254 @@
+package ru.itmo.is.preview;
+
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.itmo.is.storage.FileData;
+import ru.itmo.is.storage.FileRecord;
+import ru.itmo.is.storage.FileStorage;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes JPEG previews of uploaded images and first pages of PDFs on a small fixed pool, so decoding
+ * never runs on request threads. When the queue is full a preview is skipped, it is requested again
+ * when somebody opens it.
+ * <p>
+ * The format is told from the first bytes of the file, before the whole file is read. Other formats and files
+ * that fail to render are marked in the storage as having no preview, so they are not tried again.
+ */
+@Component
+public class PreviewGenerator {
+    private static final Logger log = LogManager.getLogger(PreviewGenerator.class);
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    // Image readers recognize their formats by a few dozen bytes
+    private static final int SIGNATURE_LENGTH = 1024;
+
+    private final FileStorage fileStorage;
+    private final int size;
+    private final ThreadPoolExecutor executor;
+    // Versions queued or being generated, so repeated requests for one preview do not queue it again
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public PreviewGenerator(
+            FileStorage fileStorage,
+            @Value("${file.preview.size:512}") int size,
+            @Value("${file.preview.threads:2}") int threads,
+            @Value("${file.preview.queue:100}") int queueCapacity
+    ) {
+        this.fileStorage = fileStorage;
+        this.size = size;
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    var thread = new Thread(task, "file-preview-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+        );
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public void submit(FileRecord fr) {
+        String version = fr.getVersion();
+        if (!pending.add(version)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(fr);
+                } finally {
+                    pending.remove(version);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(version);
+            log.warn("Preview queue is full, preview of {} is skipped", fr.getName());
+        }
+    }
+
+    void generate(FileRecord fr) {
+        String version = fr.getVersion();
+        if (fileStorage.hasPreview(version)) {
+            return;
+        }
+        Path copy = null;
+        try {
+            Format format = detectFormat(fileStorage.readStart(fr, SIGNATURE_LENGTH));
+            if (format == null) {
+                log.debug("No preview for {}, unsupported format", fr.getName());
+                fileStorage.markPreviewUnsupported(version);
+                return;
+            }
+            FileData file = fileStorage.get(fr);
+            File source;
+            if (file.data().isFile()) {
+                source = file.data().getFile();
+            } else {
+                copy = localCopy(file);
+                source = copy.toFile();
+            }
+
+            BufferedImage preview;
+            try {
+                preview = render(format, source);
+            } catch (IOException | RuntimeException e) {
+                // The file has been read, so it is its content that cannot be rendered
+                log.warn("Cannot render preview of {}, it will not be tried again", fr.getName(), e);
+                preview = null;
+            }
+            if (preview == null) {
+                fileStorage.markPreviewUnsupported(version);
+                return;
+            }
+            fileStorage.savePreview(version, preview);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot make preview of {}", fr.getName(), e);
+        } finally {
+            deleteQuietly(copy);
+        }
+    }
+
+    /**
+     * PDF and image readers need random access, so files of object storage are downloaded first
+     */
+    private Path localCopy(FileData file) throws IOException {
+        Path copy = Files.createTempFile("preview", null);
+        try (InputStream in = file.data().getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(copy);
+            throw e;
+        }
+        return copy;
+    }
+
+    private void deleteQuietly(@Nullable Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete temporary file {}", path, e);
+        }
+    }
+
+    @Nullable
+    private Format detectFormat(byte[] signature) throws IOException {
+        if (signature.length >= PDF_MAGIC.length
+                && Arrays.equals(signature, 0, PDF_MAGIC.length, PDF_MAGIC, 0, PDF_MAGIC.length)) {
+            return Format.PDF;
+        }
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(signature))) {
+            return in != null && ImageIO.getImageReaders(in).hasNext() ? Format.IMAGE : null;
+        }
+    }
+
+    @Nullable
+    private BufferedImage render(Format format, File file) throws IOException {
+        if (format == Format.PDF) {
+            return renderFirstPage(file);
+        }
+        BufferedImage image = readSubsampled(file);
+        return image == null ? null : scale(image);
+    }
+
+    /**
+     * Page is rendered straight at preview size instead of rendering it at full resolution and scaling
+     */
+    private BufferedImage renderFirstPage(File file) throws IOException {
+        try (PDDocument document = Loader.loadPDF(file)) {
+            PDRectangle box = document.getPage(0).getCropBox();
+            float scale = size / Math.max(box.getWidth(), box.getHeight());
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    /**
+     * Full resolution scans take hundreds of megabytes decoded, so only every n-th pixel of every n-th row
+     * is decoded, leaving about twice the preview size for smooth scaling
+     */
+    @Nullable
+    private BufferedImage readSubsampled(File file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longSide / (2 * size));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double factor = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        // JPEG has no alpha, transparent pixels become white
+        var preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = preview.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return preview;
+    }
+
+    private enum Format {
+        PDF,
+        IMAGE
+    }
+}
@@ -1,12 +1,41 @@
 package ru.itmo.is.repository;
 
+import jakarta.transaction.Transactional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.entity.bid.BidFile;
+import ru.itmo.is.storage.FileRecord;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface BidFileRepository extends CrudRepository<BidFile, String> {
     List<BidFile> getByKeyIn(List<String> keys);
+
+    /**
+     * Name and key never change after upload, so they are cached for downloads
+     */
+    @Cacheable(value = ReferenceCache.FILES, unless = "#result == null")
+    @Query("SELECT new ru.itmo.is.storage.FileRecord(f.name, f.key, f.contentHash) FROM BidFile f WHERE f.key = :key")
+    Optional<FileRecord> getRecord(String key);
+
+    @Query("SELECT DISTINCT f.contentHash FROM BidFile f WHERE f.contentHash IN :hashes")
+    Set<String> getReferencedHashes(Collection<String> hashes);
+
+    @Query("SELECT f.key FROM BidFile f WHERE f.bid IS NULL AND f.created < :before")
+    List<String> getDetachedKeysCreatedBefore(LocalDateTime before);
+
+    // Checked once more, a file may have been attached since its key was read
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BidFile f WHERE f.key IN :keys AND f.bid IS NULL")
+    int deleteDetached(Collection<String> keys);
 }
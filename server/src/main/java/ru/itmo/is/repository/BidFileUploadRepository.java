@@ -0,0 +1,16 @@
+package ru.itmo.is.repository;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import ru.itmo.is.entity.bid.BidFileUpload;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BidFileUploadRepository extends CrudRepository<BidFileUpload, String> {
+
+    @Query("SELECT u.id FROM BidFileUpload u WHERE u.created < :time")
+    List<String> getIdsCreatedBefore(LocalDateTime time);
+}
@@ -1,17 +1,27 @@
 package ru.itmo.is.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.itmo.is.entity.bid.Bid;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BidRepository extends CrudRepository<Bid, Long> {
+    // Bid lists are always mapped to BidResponse, which needs sender, manager and files of every bid.
+    // Fetching them with the bid rows keeps the number of round-trips independent of the list size,
+    // the remaining to-one associations are resolved by hibernate batch fetching.
+    @EntityGraph(attributePaths = {"sender", "manager", "files"})
     List<Bid> getByStatusIn(Collection<Bid.Status> status);
+
+    @EntityGraph(attributePaths = {"sender", "manager", "files"})
     List<Bid> getBySenderLoginOrderByIdDesc(String login);
 
     boolean existsBySenderLoginAndTypeAndStatusIn(String sender, Bid.Type type, Collection<Bid.Status> status);
@@ -20,4 +30,33 @@ public interface BidRepository extends CrudRepository<Bid, Long> {
     List<Bid.Type> getOpenedBidTypes(@Param("login") String login);
 
     List<Bid> getBySenderLoginAndStatusIn(String sender, Collection<Bid.Status> status);
+
+    // Manager queue: own bids first, then unassigned ones, then bids of other managers grouped by manager
+    @Query("SELECT b FROM Bid b LEFT JOIN b.manager m " +
+           "WHERE b.status = 'IN_PROCESS' " +
+           "ORDER BY CASE WHEN m.login = :manager THEN 0 WHEN m.login IS NULL THEN 1 ELSE 2 END, m.login, b.id")
+    @EntityGraph(attributePaths = {"sender", "manager"})
+    List<Bid> getInProcessQueue(@Param("manager") String manager, Pageable pageable);
+
+    // Files are not in the graph: collection fetch with limit is paginated in memory, they are batch fetched instead
+    @Query("SELECT b FROM Bid b " +
+           "WHERE b.status IN :statuses " +
+           "AND (:type IS NULL OR b.type = :type) " +
+           "AND (:sender IS NULL OR b.sender.login = :sender) " +
+           "AND (:manager IS NULL OR b.manager.login = :manager) " +
+           "AND (:createdFrom IS NULL OR b.createdAt >= :createdFrom) " +
+           "AND (:createdTo IS NULL OR b.createdAt < :createdTo) " +
+           "AND (:cursor IS NULL OR b.id < :cursor) " +
+           "ORDER BY b.id DESC")
+    @EntityGraph(attributePaths = {"sender", "manager"})
+    List<Bid> search(
+            @Param("statuses") Collection<Bid.Status> statuses,
+            @Param("type") Bid.Type type,
+            @Param("sender") String sender,
+            @Param("manager") String manager,
+            @Param("createdFrom") LocalDateTime createdFrom,
+            @Param("createdTo") LocalDateTime createdTo,
+            @Param("cursor") Long cursor,
+            Limit limit
+    );
 }
@@ -1,10 +1,17 @@
 package ru.itmo.is.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import ru.itmo.is.entity.dorm.Dormitory;
 
 import java.util.List;
 
 public interface DormitoryRepository extends CrudRepository<Dormitory, Integer> {
     List<Dormitory> findAllByOrderById();
+
+    // Dormitories keep no counter of their own, their size is the sum of room counters
+    @Query(value = "SELECT CAST(COALESCE(SUM(rm.occupied), 0) AS int) FROM room rm WHERE rm.dormitory_id = :dormId",
+            nativeQuery = true)
+    int getOccupied(@Param("dormId") int dormId);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.itmo.is.entity.Event;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -17,11 +18,13 @@ public interface EventRepository extends CrudRepository<Event, Long> {
                     "ORDER BY e.timestamp DESC LIMIT 1")
     Optional<Event> getLastInOutEvent(@Param("resident") String resident);
 
-    List<Event> getByTypeInAndUsrLoginOrderByTimestampDesc(Collection<Event.Type> type, String resident);
+    // Each MAX is a single top-1 probe of event_usr_type_ts, so cost does not depend on the number of
+    // resident events. MAX over both types at once would scan all payments and occupations of the resident
+    @Query(value = "SELECT GREATEST(" +
+                   "(SELECT MAX(timestamp) FROM event WHERE usr = :resident AND type = 'PAYMENT'), " +
+                   "(SELECT MAX(timestamp) FROM event WHERE usr = :resident AND type = 'OCCUPATION')" +
+                   ")", nativeQuery = true)
+    Optional<LocalDateTime> getLastPaymentOrOccupationTime(@Param("resident") String resident);
 
-    @Query("SELECT e.usr.login, MAX(e.timestamp) " +
-           "FROM Event e " +
-           "WHERE e.type IN :types " +
-           "GROUP BY e.usr.login")
-    List<Object[]> getLastEventTimesForAllResidents(@Param("types") Collection<Event.Type> types);
+    List<Event> getByTypeInAndUsrLoginOrderByTimestampDesc(Collection<Event.Type> type, String resident);
 }
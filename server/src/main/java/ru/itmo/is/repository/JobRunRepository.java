@@ -0,0 +1,37 @@
+package ru.itmo.is.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.itmo.is.entity.job.JobRun;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface JobRunRepository extends CrudRepository<JobRun, Long> {
+
+    Optional<JobRun> findFirstByJobOrderByIdDesc(String job);
+
+    @Query("SELECT MAX(r.started) FROM JobRun r WHERE r.job = :job AND r.status = 'SUCCEEDED'")
+    Optional<LocalDateTime> getLastSucceeded(@Param("job") String job);
+
+    // Joins the transaction of the job chunk, so progress is committed together with the chunk
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobRun r SET r.checkpoint = :checkpoint, r.processed = r.processed + :processed WHERE r.id = :id")
+    void checkpoint(@Param("id") long id, @Param("checkpoint") String checkpoint, @Param("processed") int processed);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobRun r SET r.status = :status, r.finished = :finished, r.error = :error WHERE r.id = :id")
+    void finish(
+            @Param("id") long id,
+            @Param("status") JobRun.Status status,
+            @Param("finished") LocalDateTime finished,
+            @Param("error") String error
+    );
+}
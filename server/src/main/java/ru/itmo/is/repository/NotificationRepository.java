@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.itmo.is.entity.notification.Notification;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +17,8 @@ public interface NotificationRepository extends CrudRepository<Notification, Lon
 
     List<Notification> getByReceiverLoginAndStatus(String receiver, Notification.Status status);
 
+    List<Notification> getByReceiverLoginInAndStatusAndBidIsNull(Collection<String> receivers, Notification.Status status);
+
     @Modifying
     @Transactional
     @Query("UPDATE Notification n SET n.status = 'READ' WHERE n.id = :id")
@@ -24,4 +28,11 @@ public interface NotificationRepository extends CrudRepository<Notification, Lon
     @Transactional
     @Query("UPDATE Notification n SET n.status = 'READ' WHERE n.receiver.login = :receiver")
     void setAllReadStatus(@Param("receiver") String receiver);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM notification WHERE id IN (" +
+                   "    SELECT id FROM notification WHERE status = 'READ' AND created < :before ORDER BY id LIMIT :limit" +
+                   ")", nativeQuery = true)
+    int deleteReadCreatedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
 }
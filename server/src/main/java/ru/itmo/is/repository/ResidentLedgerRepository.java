@@ -0,0 +1,57 @@
+package ru.itmo.is.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.itmo.is.entity.user.ResidentLedger;
+import ru.itmo.is.repository.projection.LedgerReplay;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ResidentLedgerRepository extends CrudRepository<ResidentLedger, String> {
+
+    // Row lock serializes payments of one resident
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ResidentLedger l WHERE l.login = :login")
+    Optional<ResidentLedger> lockByLogin(@Param("login") String login);
+
+    // Row locks of every ledger, taken in login order like single payments take them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM ResidentLedger l ORDER BY l.login")
+    List<ResidentLedger> lockAll();
+
+    // Ledger state of every resident derived from the event log, the source of truth for reconciliation
+    @Query("SELECT r.login AS login, r.room.cost AS roomCost, " +
+           "(SELECT MAX(e.timestamp) FROM Event e " +
+           " WHERE e.usr.login = r.login AND e.type IN ('PAYMENT', 'OCCUPATION')) AS paidUntil, " +
+           "(SELECT COALESCE(SUM(p.paymentSum), 0) FROM Event p " +
+           " WHERE p.usr.login = r.login AND p.type = 'PAYMENT' AND p.timestamp >= " +
+           "  (SELECT MAX(o.timestamp) FROM Event o WHERE o.usr.login = r.login AND o.type = 'OCCUPATION')" +
+           ") AS totalPaid " +
+           "FROM Resident r " +
+           "WHERE r.role = 'RESIDENT'")
+    List<LedgerReplay> replayEvents();
+
+    // Residents whose debt has grown by a month between the two days, in pages by login.
+    // Months are counted from the day of paid_until the same way EventService counts debt
+    @Query(value = "SELECT * FROM resident_ledger l " +
+                   "WHERE l.login > :after " +
+                   "AND EXTRACT(YEAR FROM age(:today, date_trunc('day', l.paid_until))) * 12 " +
+                   "  + EXTRACT(MONTH FROM age(:today, date_trunc('day', l.paid_until))) > GREATEST(" +
+                   "    EXTRACT(YEAR FROM age(:since, date_trunc('day', l.paid_until))) * 12 " +
+                   "      + EXTRACT(MONTH FROM age(:since, date_trunc('day', l.paid_until))), 0" +
+                   ") " +
+                   "ORDER BY l.login LIMIT :limit", nativeQuery = true)
+    List<ResidentLedger> getDebtGrownBetween(
+            @Param("since") LocalDateTime since,
+            @Param("today") LocalDateTime today,
+            @Param("after") String after,
+            @Param("limit") int limit
+    );
+}
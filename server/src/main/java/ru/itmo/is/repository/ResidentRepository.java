@@ -1,20 +1,85 @@
 package ru.itmo.is.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.itmo.is.entity.user.Resident;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ResidentRepository extends CrudRepository<Resident, String> {
 
+    // Everything the residents page needs in one statement, ordered by login for keyset pagination.
+    // Last payment comes from the ledger, the event log is only scanned for residents without a ledger row
+    @Query("SELECT r.login AS login, r.name AS name, r.surname AS surname, " +
+           "r.university.id AS universityId, r.room.dormitory.id AS dormitoryId, " +
+           "r.room.number AS roomNumber, r.room.cost AS roomCost, " +
+           "COALESCE(l.paidUntil, (SELECT MAX(e.timestamp) FROM Event e " +
+           " WHERE e.usr.login = r.login AND e.type IN ('PAYMENT', 'OCCUPATION'))) AS lastPaymentTime, " +
+           "(SELECT MAX(e.timestamp) FROM Event e " +
+           " WHERE e.usr.login = r.login AND e.type IN ('IN', 'OUT')) AS lastInOutTime " +
+           "FROM Resident r LEFT JOIN ResidentLedger l ON l.login = r.login " +
+           "WHERE r.role = 'RESIDENT' AND (:after IS NULL OR r.login > :after) " +
+           "ORDER BY r.login")
+    List<ResidentSummary> getResidentSummaries(@Param("after") String after, Limit limit);
+
+    // One pass over IN/OUT events picks the last one of every resident, payments come from the ledger.
+    // A resident gets only the first matching reason: NON_PAYMENT, then NON_RESIDENCE, then RULE_VIOLATION.
+    // Unpaid months are counted with age() from the day of the last payment, like Period.between in EventService
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "WITH last_in_out AS (" +
+                   "    SELECT ranked.usr, ranked.type, ranked.timestamp FROM (" +
+                   "        SELECT e.usr, e.type, e.timestamp, " +
+                   "               ROW_NUMBER() OVER (PARTITION BY e.usr ORDER BY e.timestamp DESC) AS rn " +
+                   "        FROM event e WHERE e.type IN ('IN', 'OUT')" +
+                   "    ) ranked WHERE ranked.rn = 1" +
+                   ") " +
+                   "SELECT c.login, c.name, c.surname, c.role, c.reason FROM (" +
+                   "    SELECT u.login, u.name, u.surname, u.role, " +
+                   "        CASE " +
+                   "            WHEN EXTRACT(YEAR FROM age(CAST(:today AS timestamp), date_trunc('day', pu.paid_until))) * 12 " +
+                   "                 + EXTRACT(MONTH FROM age(CAST(:today AS timestamp), date_trunc('day', pu.paid_until))) > 6 " +
+                   "                 THEN 'NON_PAYMENT' " +
+                   "            WHEN lio.type = 'OUT' AND lio.timestamp < :residenceDeadline THEN 'NON_RESIDENCE' " +
+                   "            WHEN CAST(lio.timestamp AS time) < TIME '06:00' THEN 'RULE_VIOLATION' " +
+                   "        END AS reason " +
+                   "    FROM resident r " +
+                   "    JOIN usr u ON u.login = r.login " +
+                   "    LEFT JOIN resident_ledger l ON l.login = r.login " +
+                   "    CROSS JOIN LATERAL (SELECT COALESCE(l.paid_until, (SELECT MAX(p.timestamp) FROM event p " +
+                   "        WHERE p.usr = r.login AND p.type IN ('PAYMENT', 'OCCUPATION'))) AS paid_until) pu " +
+                   "    LEFT JOIN last_in_out lio ON lio.usr = r.login " +
+                   "    WHERE u.role = 'RESIDENT'" +
+                   ") c " +
+                   "WHERE c.reason IS NOT NULL " +
+                   "ORDER BY c.login", nativeQuery = true)
+    Stream<EvictionCandidate> streamEvictionCandidates(
+            @Param("today") LocalDate today,
+            @Param("residenceDeadline") LocalDateTime residenceDeadline
+    );
+
+    // Resident statements also update the occupancy counter of the room in the same statement
     @Modifying
     @Transactional
-    @Query(value = "INSERT INTO resident (login, university_id, room_id) VALUES " +
-                    "(:login, :universityId, :roomId)", nativeQuery = true)
+    @Query(value = "WITH inserted AS (" +
+                   "    INSERT INTO resident (login, university_id, room_id) VALUES (:login, :universityId, :roomId) " +
+                   "    RETURNING room_id" +
+                   ") " +
+                   "UPDATE room SET occupied = occupied + 1 WHERE id IN (SELECT room_id FROM inserted)",
+            nativeQuery = true)
     void userIsResidentNow(
             @Param("login") String login,
             @Param("universityId") int universityId,
@@ -23,6 +88,29 @@ public interface ResidentRepository extends CrudRepository<Resident, String> {
 
     @Modifying
     @Transactional
-    @Query(value = "DELETE FROM resident WHERE login = :login", nativeQuery = true)
+    @Query(value = "WITH deleted AS (" +
+                   "    DELETE FROM resident WHERE login = :login RETURNING room_id" +
+                   ") " +
+                   "UPDATE room SET occupied = occupied - 1 WHERE id IN (SELECT room_id FROM deleted)",
+            nativeQuery = true)
     void userIsNotResidentAnyMore(@Param("login") String login);
+
+    // Row lock on the resident keeps the old room stable until the statement ends.
+    // Both room rows must already be locked in id order (RoomAllocator does it), the update takes them in any order
+    @Modifying
+    @Transactional
+    @Query(value = "WITH previous AS (" +
+                   "    SELECT room_id FROM resident WHERE login = :login FOR UPDATE" +
+                   "), moved AS (" +
+                   "    UPDATE resident SET room_id = :roomId " +
+                   "    WHERE login = :login AND room_id IS DISTINCT FROM :roomId " +
+                   "    RETURNING room_id" +
+                   "), changed AS (" +
+                   "    SELECT room_id, 1 AS delta FROM moved " +
+                   "    UNION ALL " +
+                   "    SELECT room_id, -1 FROM previous WHERE room_id IS NOT NULL AND EXISTS (SELECT 1 FROM moved)" +
+                   ") " +
+                   "UPDATE room rm SET occupied = rm.occupied + c.delta FROM changed c WHERE rm.id = c.room_id",
+            nativeQuery = true)
+    void moveToRoom(@Param("login") String login, @Param("roomId") int roomId);
 }
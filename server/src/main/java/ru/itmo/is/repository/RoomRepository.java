@@ -1,11 +1,17 @@
 package ru.itmo.is.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.repository.projection.OccupancyDrift;
+import ru.itmo.is.repository.projection.RoomOccupancy;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +26,42 @@ public interface RoomRepository extends CrudRepository<Room, Integer> {
     @Query("SELECT r FROM Room r WHERE r.dormitory.id = :dormId")
     List<Room> getInDormitory(@Param("dormId") int dormId);
 
+    @Query("SELECT r.id AS id, r.type AS type, r.floor AS floor, r.capacity AS capacity, r.occupied AS occupied " +
+           "FROM Room r " +
+           "WHERE r.dormitory.id = :dormId")
+    List<RoomOccupancy> getOccupancyInDormitory(@Param("dormId") int dormId);
+
+    // Row lock serializes occupation of one room between transactions, other rooms stay available
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id = :id")
+    Optional<Room> lockById(@Param("id") int id);
+
+    // Rows are locked in id order, so transactions locking the same pair of rooms wait instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Room r WHERE r.id IN :ids ORDER BY r.id")
+    List<Room> lockAllById(@Param("ids") Collection<Integer> ids);
+
+    // Empty if another transaction holds the lock, the caller does not wait for it
+    @Query(value = "SELECT * FROM room WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Room> lockByIdSkipLocked(@Param("id") int id);
+
+    // Scalar query, so the value is read from the database even if the room is already in the session
+    @Query("SELECT r.occupied FROM Room r WHERE r.id = :roomId")
+    int getOccupied(@Param("roomId") int roomId);
+
+    // Rooms whose counter differs from the number of their residents
+    @Query(value = "SELECT rm.id AS id, rm.dormitory_id AS dormitoryId, rm.occupied AS occupied, " +
+                   "CAST(COUNT(r.login) AS int) AS actual " +
+                   "FROM room rm LEFT JOIN resident r ON r.room_id = rm.id " +
+                   "GROUP BY rm.id " +
+                   "HAVING rm.occupied <> COUNT(r.login)", nativeQuery = true)
+    List<OccupancyDrift> findOccupancyDrift();
+
+    @Modifying
+    @Query(value = "UPDATE room SET occupied = (SELECT COUNT(*) FROM resident r WHERE r.room_id = :roomId) " +
+                   "WHERE id = :roomId", nativeQuery = true)
+    void recountOccupied(@Param("roomId") int roomId);
+
     @Query("SELECT r.room.cost FROM Resident r WHERE r.login = :resident")
     int getResidentRoomCost(@Param("resident") String resident);
 }
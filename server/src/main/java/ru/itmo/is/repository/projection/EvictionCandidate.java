@@ -0,0 +1,13 @@
+package ru.itmo.is.repository.projection;
+
+public interface EvictionCandidate {
+    String getLogin();
+
+    String getName();
+
+    String getSurname();
+
+    String getRole();
+
+    String getReason();
+}
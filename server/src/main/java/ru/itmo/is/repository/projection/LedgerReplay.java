@@ -0,0 +1,13 @@
+package ru.itmo.is.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface LedgerReplay {
+    String getLogin();
+
+    int getRoomCost();
+
+    LocalDateTime getPaidUntil();
+
+    long getTotalPaid();
+}
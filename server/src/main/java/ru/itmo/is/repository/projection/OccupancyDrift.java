@@ -0,0 +1,11 @@
+package ru.itmo.is.repository.projection;
+
+public interface OccupancyDrift {
+    Integer getId();
+
+    Integer getDormitoryId();
+
+    int getOccupied();
+
+    int getActual();
+}
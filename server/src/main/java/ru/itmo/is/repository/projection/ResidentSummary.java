@@ -0,0 +1,23 @@
+package ru.itmo.is.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface ResidentSummary {
+    String getLogin();
+
+    String getName();
+
+    String getSurname();
+
+    Integer getUniversityId();
+
+    Integer getDormitoryId();
+
+    int getRoomNumber();
+
+    int getRoomCost();
+
+    LocalDateTime getLastPaymentTime();
+
+    LocalDateTime getLastInOutTime();
+}
@@ -0,0 +1,15 @@
+package ru.itmo.is.repository.projection;
+
+import ru.itmo.is.entity.dorm.Room;
+
+public interface RoomOccupancy {
+    Integer getId();
+
+    Room.Type getType();
+
+    int getFloor();
+
+    int getCapacity();
+
+    int getOccupied();
+}
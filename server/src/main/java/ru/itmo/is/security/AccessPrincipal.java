@@ -0,0 +1,10 @@
+package ru.itmo.is.security;
+
+import ru.itmo.is.entity.user.User;
+
+import java.time.Instant;
+
+/**
+ * Claims of a verified access token
+ */
+public record AccessPrincipal(String login, User.Role role, Instant expiresAt) { }
@@ -1,6 +1,10 @@
 package ru.itmo.is.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.apache.logging.log4j.LogManager;
@@ -11,11 +15,17 @@ import ru.itmo.is.entity.user.User;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
 import java.util.Optional;
 
+/**
+ * Issues and verifies tokens. Parsers are built once, verified access tokens are cached until they expire,
+ * so a client repeating its token doesn't cost an HMAC check and JSON decoding on every request.
+ */
 @Component
 public class JwtManager {
     private static final String ROLE_CLAIM_KEY = "role";
@@ -26,12 +36,22 @@ public class JwtManager {
 
     private final SecretKey accessKey;
     private final SecretKey refreshKey;
+    private final JwtParser accessParser;
+    private final JwtParser refreshParser;
+    private final Cache<String, AccessPrincipal> verifiedAccessTokens;
 
     public JwtManager(@Value("${jwt.access.key}") String accessKey,
-                      @Value("${jwt.refresh.key}") String refreshKey
+                      @Value("${jwt.refresh.key}") String refreshKey,
+                      @Value("${jwt.access.cache.size:10000}") long accessCacheSize
     ) {
         this.accessKey = Keys.hmacShaKeyFor(accessKey.getBytes(StandardCharsets.UTF_8));
         this.refreshKey = Keys.hmacShaKeyFor(refreshKey.getBytes(StandardCharsets.UTF_8));
+        this.accessParser = Jwts.parser().verifyWith(this.accessKey).build();
+        this.refreshParser = Jwts.parser().verifyWith(this.refreshKey).build();
+        this.verifiedAccessTokens = Caffeine.newBuilder()
+                .maximumSize(accessCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
     }
 
     public String createAccessToken(User user) {
@@ -61,14 +81,14 @@ public class JwtManager {
                 .compact();
     }
 
-    public Optional<String> getLoginFromAccessToken(String jwt) {
-        return getAccessTokenClaims(jwt)
-                .map(Claims::getSubject);
-    }
-
-    public Optional<User.Role> getRoleFromAccessToken(String jwt) {
-        return getAccessTokenClaims(jwt)
-                .map(claims -> User.Role.valueOf(claims.get(ROLE_CLAIM_KEY, String.class)));
+    public Optional<AccessPrincipal> getAccessPrincipal(String jwt) {
+        AccessPrincipal cached = verifiedAccessTokens.getIfPresent(jwt);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<AccessPrincipal> principal = verifyAccessToken(jwt);
+        principal.ifPresent(p -> verifiedAccessTokens.put(jwt, p));
+        return principal;
     }
 
     public Optional<String> getLoginFromRefreshToken(String jwt) {
@@ -76,11 +96,21 @@ public class JwtManager {
                 .map(Claims::getSubject);
     }
 
+    /**
+     * Verifies the token without looking into the cache
+     */
+    Optional<AccessPrincipal> verifyAccessToken(String jwt) {
+        return getAccessTokenClaims(jwt)
+                .map(claims -> new AccessPrincipal(
+                        claims.getSubject(),
+                        User.Role.valueOf(claims.get(ROLE_CLAIM_KEY, String.class)),
+                        claims.getExpiration().toInstant()
+                ));
+    }
+
     private Optional<Claims> getAccessTokenClaims(String jwt) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(accessKey)
-                    .build()
+            Claims claims = accessParser
                     .parseSignedClaims(jwt)
                     .getPayload();
 
@@ -99,9 +129,7 @@ public class JwtManager {
 
     private Optional<Claims> getRefreshTokenClaims(String jwt) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(refreshKey)
-                    .build()
+            Claims claims = refreshParser
                     .parseSignedClaims(jwt)
                     .getPayload();
 
@@ -117,4 +145,24 @@ public class JwtManager {
             return Optional.empty();
         }
     }
+
+    /**
+     * Cached principal lives as long as its token
+     */
+    private static class TokenExpiry implements Expiry<String, AccessPrincipal> {
+        @Override
+        public long expireAfterCreate(String token, AccessPrincipal principal, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), principal.expiresAt()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, AccessPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, AccessPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
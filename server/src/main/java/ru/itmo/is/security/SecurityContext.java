@@ -1,6 +1,8 @@
 package ru.itmo.is.security;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
@@ -10,12 +12,19 @@ import java.util.Optional;
 
 import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUEST;
 
+/**
+ * Caller of the current request, taken from token claims. The user entity is loaded
+ * only when a service needs it and then kept until the request ends.
+ */
 @Component
 @Scope(scopeName = SCOPE_REQUEST, proxyMode = ScopedProxyMode.TARGET_CLASS)
 @Data
 public class SecurityContext {
     private String username;
     private User.Role role;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User user;
 
     public void setContext(Optional<String> username, Optional<User.Role> role) {
         if (username.isEmpty() || role.isEmpty()) {
@@ -23,11 +32,13 @@ public class SecurityContext {
         }
         this.username = username.get();
         this.role = role.get();
+        this.user = null;
     }
 
     public void setAnonymous() {
         this.username = null;
         this.role = null;
+        this.user = null;
     }
 
     public boolean isAnonymous() {
@@ -0,0 +1,94 @@
+package ru.itmo.is.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.dto.BidBatchAction;
+import ru.itmo.is.dto.BidBatchRequest;
+import ru.itmo.is.dto.BidBatchResult;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.repository.BidRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes many bids of one manager request. Every chunk of bids is one transaction
+ * with a single select of the bids and a single batch of notifications.
+ * Bids that can't be processed are reported in results and don't roll back the chunk.
+ * An unexpected error rolls back its chunk only, bids of that chunk are reported as failed.
+ */
+@Service
+@RequiredArgsConstructor
+public class BidBatchService {
+    private static final Logger log = LogManager.getLogger(BidBatchService.class);
+    static final int CHUNK_SIZE = 100;
+
+    private final BidService bidService;
+    private final UserService userService;
+    private final NotificationService notificationService;
+    private final BidRepository bidRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public List<BidBatchResult> processBids(BidBatchRequest req) {
+        User manager = userService.getCurrentUserOrThrow();
+        List<Long> ids = req.getIds().stream().distinct().toList();
+
+        List<BidBatchResult> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            try {
+                results.addAll(transactionTemplate.execute(
+                        status -> processChunk(chunk, req.getAction(), req.getComment(), manager)
+                ));
+            } catch (RuntimeException e) {
+                // Chunk is rolled back, earlier chunks are committed and their results are still returned
+                log.error("Cannot process chunk of {} bids", chunk.size(), e);
+                chunk.forEach(id -> results.add(failure(id, "Not processed due to internal error")));
+            }
+        }
+        return results;
+    }
+
+    private List<BidBatchResult> processChunk(List<Long> ids, BidBatchAction action, String comment, User manager) {
+        Map<Long, Bid> bids = new HashMap<>();
+        bidRepository.findAllById(ids).forEach(bid -> bids.put(bid.getId(), bid));
+
+        List<BidBatchResult> results = new ArrayList<>(ids.size());
+        List<Bid> processed = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Bid bid = bids.get(id);
+            if (bid == null || bid.getStatus() != Bid.Status.IN_PROCESS) {
+                results.add(failure(id, "No such bid"));
+                continue;
+            }
+
+            try {
+                switch (action) {
+                    case ACCEPT -> bidService.accept(bid, manager);
+                    case DENY -> bidService.deny(bid, manager, comment);
+                }
+                processed.add(bid);
+                results.add(new BidBatchResult(id, true));
+            } catch (BadRequestException | NotFoundException e) {
+                results.add(failure(id, e.getMessage()));
+            }
+        }
+
+        notificationService.notifySendersAboutBidStatus(processed);
+        return results;
+    }
+
+    private BidBatchResult failure(Long id, String error) {
+        var result = new BidBatchResult(id, false);
+        result.setError(error);
+        return result;
+    }
+}
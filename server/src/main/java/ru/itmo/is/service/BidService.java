@@ -1,8 +1,14 @@
 package ru.itmo.is.service;
 
+import jakarta.annotation.Nullable;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.itmo.is.allocation.RoomAllocator;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.dto.*;
 import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.bid.Bid;
@@ -12,16 +18,17 @@ import ru.itmo.is.entity.bid.RoomChangeBid;
 import ru.itmo.is.entity.dorm.Dormitory;
 import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
-import ru.itmo.is.entity.notification.Notification;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.BadRequestException;
 import ru.itmo.is.exception.ForbiddenException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.guard.GuardStateCache;
 import ru.itmo.is.mapper.BidMapper;
 import ru.itmo.is.mapper.RoomMapper;
 import ru.itmo.is.repository.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,24 +45,33 @@ public class BidService {
     private final BidFileRepository bidFileRepository;
     private final EventRepository eventRepository;
     private final ResidentRepository residentRepository;
-    private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
-    private final BidComparator bidComparator;
     private final BidMapper bidMapper;
     private final RoomMapper roomMapper;
-    private final RoomService roomService;
+    private final RoomAllocator roomAllocator;
+    private final LedgerService ledgerService;
+    private final ReferenceCache referenceCache;
+    private final GuardStateCache guardStateCache;
 
     public List<BidType> getSelfOpenedBidTypes() {
-        return bidRepository.getOpenedBidTypes(userService.getCurrentUserOrThrow().getLogin())
+        return bidRepository.getOpenedBidTypes(userService.getCurrentLoginOrThrow())
                 .stream()
                 .map(bidMapper::mapBidTypeToDto)
                 .toList();
     }
 
     public List<BidResponse> getInProcessBids() {
-        List<Bid> bids = bidRepository.getByStatusIn(List.of(Bid.Status.IN_PROCESS));
-        return bids.stream()
-                .sorted(bidComparator::compare)
+        return getInProcessQueue(Pageable.unpaged());
+    }
+
+    public List<BidResponse> getInProcessBidsPage(int page, int size) {
+        return getInProcessQueue(PageRequest.of(page, size));
+    }
+
+    private List<BidResponse> getInProcessQueue(Pageable pageable) {
+        String manager = userService.getCurrentLoginOrThrow();
+        return bidRepository.getInProcessQueue(manager, pageable)
+                .stream()
                 .map(bidMapper::mapBidToDto)
                 .toList();
     }
@@ -70,9 +86,46 @@ public class BidService {
         return bids.stream().map(bidMapper::mapBidToDto).toList();
     }
 
+    public BidPage searchBids(
+            @Nullable List<BidStatus> statuses,
+            @Nullable BidType type,
+            @Nullable String sender,
+            @Nullable String manager,
+            @Nullable LocalDateTime createdFrom,
+            @Nullable LocalDateTime createdTo,
+            @Nullable Long cursor,
+            int limit
+    ) {
+        if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+            throw new BadRequestException("Invalid date range");
+        }
+        List<Bid.Status> modelStatuses = statuses == null || statuses.isEmpty()
+                ? List.of(Bid.Status.values())
+                : statuses.stream().map(bidMapper::mapBidStatusToModel).toList();
+
+        // One extra row tells whether the next page exists without a count query
+        List<Bid> bids = bidRepository.search(
+                modelStatuses,
+                type == null ? null : bidMapper.mapBidTypeToModel(type),
+                sender,
+                manager,
+                createdFrom,
+                createdTo,
+                cursor,
+                Limit.of(limit + 1)
+        );
+        boolean hasNext = bids.size() > limit;
+        List<Bid> pageBids = hasNext ? bids.subList(0, limit) : bids;
+
+        var page = new BidPage(pageBids.stream().map(bidMapper::mapBidToDto).toList());
+        if (hasNext) {
+            page.setNextCursor(pageBids.getLast().getId());
+        }
+        return page;
+    }
+
     public List<BidResponse> getSelfBids() {
-        User sender = userService.getCurrentUserOrThrow();
-        List<Bid> bids = bidRepository.getBySenderLoginOrderByIdDesc(sender.getLogin());
+        List<Bid> bids = bidRepository.getBySenderLoginOrderByIdDesc(userService.getCurrentLoginOrThrow());
         return bids.stream().map(bidMapper::mapBidToDto).toList();
     }
 
@@ -82,8 +135,8 @@ public class BidService {
             throw new NotFoundException("No bid with such id");
         }
 
-        User user = userService.getCurrentUserOrThrow();
-        if (user.getRole() == User.Role.MANAGER || bidO.get().getSender().equals(user)) {
+        if (userService.getCurrentRoleOrThrow() == User.Role.MANAGER
+                || bidO.get().getSender().getLogin().equals(userService.getCurrentLoginOrThrow())) {
             return bidMapper.mapBidToDto(bidO.get());
         }
         throw new ForbiddenException("You are not allowed to get bid by this user");
@@ -91,48 +144,51 @@ public class BidService {
 
     @Transactional
     public void denyBid(Long id, String comment) {
-        Bid bid = bidRepository.findById(id)
-                .filter(b -> b.getStatus() == Bid.Status.IN_PROCESS)
-                .orElseThrow(() -> new NotFoundException(NO_BID_MSG));
-        bid.setStatus(Bid.Status.DENIED);
-        bid.setManager(userService.getCurrentUserOrThrow());
-        bid.setComment(comment);
-        bidRepository.save(bid);
+        Bid bid = getInProcessBid(id);
+        deny(bid, userService.getCurrentUserOrThrow(), comment);
         notificationService.notifySenderAboutBidStatus(bid);
     }
 
     @Transactional
     public void acceptBid(Long id) {
-        Bid bid = bidRepository.findById(id)
-                .filter(b -> b.getStatus() == Bid.Status.IN_PROCESS)
-                .orElseThrow(() -> new NotFoundException(NO_BID_MSG));
+        Bid bid = getInProcessBid(id);
+        accept(bid, userService.getCurrentUserOrThrow());
+        notificationService.notifySenderAboutBidStatus(bid);
+    }
 
-        bid.setStatus(Bid.Status.ACCEPTED);
-        bid.setManager(userService.getCurrentUserOrThrow());
+    /**
+     * Denies in process bid without notifying the sender. Runs in the caller transaction
+     */
+    public void deny(Bid bid, User manager, String comment) {
+        bid.setStatus(Bid.Status.DENIED);
+        bid.setManager(manager);
+        bid.setComment(comment);
+        bidRepository.save(bid);
+    }
+
+    /**
+     * Accepts in process bid without notifying the sender. Runs in the caller transaction.
+     * Type specific checks go first, so a bid that can't be accepted is left unchanged
+     */
+    public void accept(Bid bid, User manager) {
         switch (bid.getType()) {
             case OCCUPATION -> acceptOccupationBid((OccupationBid) bid);
-            case EVICTION -> evictResident(bid.getSender().getLogin());
+            case EVICTION -> evict(bid.getSender().getLogin(), bid);
             case ROOM_CHANGE -> acceptRoomChangeBid((RoomChangeBid) bid);
         }
+        bid.setStatus(Bid.Status.ACCEPTED);
+        bid.setManager(manager);
         bidRepository.save(bid);
-        notificationService.notifySenderAboutBidStatus(bid);
     }
 
     @Transactional
     public void pendBid(long id, String comment) {
-        Bid bid = bidRepository.findById(id)
-                .filter(b -> b.getStatus() == Bid.Status.IN_PROCESS)
-                .orElseThrow(() -> new NotFoundException(NO_BID_MSG));
+        Bid bid = getInProcessBid(id);
         bid.setComment(comment);
         bid.setManager(userService.getCurrentUserOrThrow());
         bid.setStatus(Bid.Status.PENDING_REVISION);
         bidRepository.save(bid);
-
-        Notification notification = new Notification();
-        notification.setBid(bid);
-        notification.setReceiver(bid.getSender());
-        notification.setText("Вам нужно поправить/дополнить данные в заявке");
-        notificationRepository.save(notification);
+        notificationService.notifySenderAboutRevision(bid);
     }
 
     public void createOccupationBid(OccupationRequest req) {
@@ -257,7 +313,7 @@ public class BidService {
         bid.setRoomTo(roomO.orElse(null));
         bid.setRoomPreferType(roomMapper.mapRoomTypeToModel(req.getRoomPreferType()));
 
-        if (roomO.isPresent() && !roomService.isRoomFree(roomO.get())) {
+        if (roomO.isPresent() && !roomAllocator.isFree(roomO.get())) {
             bid.setStatus(Bid.Status.DENIED);
             bid.setComment("Auto-denied: target room is full");
             notificationService.notifySenderAboutBidStatus(bid);
@@ -271,10 +327,25 @@ public class BidService {
 
     @Transactional
     public void evictResident(String login) {
+        evict(login, null);
+    }
+
+    /**
+     * @param acceptedBid eviction bid being accepted, it is not denied with other open bids of the resident
+     */
+    private void evict(String login, @Nullable Bid acceptedBid) {
         Resident nonResident = userService.getResidentByLogin(login);
         bidRepository.getBySenderLoginAndStatusIn(login, List.of(Bid.Status.IN_PROCESS, Bid.Status.PENDING_REVISION))
+                .stream()
+                .filter(bid -> acceptedBid == null || !bid.getId().equals(acceptedBid.getId()))
                 .forEach(bid -> denyBid(bid.getId(), "Auto-denied by eviction"));
 
+        if (nonResident.getRoom() != null) {
+            roomAllocator.release(nonResident.getRoom());
+        }
+        ledgerService.close(nonResident.getLogin());
+        referenceCache.evictOccupancy();
+        guardStateCache.forgetAfterCompletion(nonResident.getLogin());
         residentRepository.userIsNotResidentAnyMore(nonResident.getLogin());
         nonResident.setRole(User.Role.NON_RESIDENT);
         userRepository.save(nonResident);
@@ -298,9 +369,15 @@ public class BidService {
         });
     }
 
+    private Bid getInProcessBid(long id) {
+        return bidRepository.findById(id)
+                .filter(b -> b.getStatus() == Bid.Status.IN_PROCESS)
+                .orElseThrow(() -> new NotFoundException(NO_BID_MSG));
+    }
+
     private void checkUserBidIsNotExists(Bid.Type type) {
         if (bidRepository.existsBySenderLoginAndTypeAndStatusIn(
-                userService.getCurrentUserOrThrow().getLogin(),
+                userService.getCurrentLoginOrThrow(),
                 type,
                 List.of(Bid.Status.IN_PROCESS, Bid.Status.PENDING_REVISION)
         )) {
@@ -313,7 +390,7 @@ public class BidService {
         if (bidO.isEmpty()) {
             throw new NotFoundException(NO_BID_MSG);
         }
-        if (!userService.getCurrentUserOrThrow().equals(bidO.get().getSender())) {
+        if (!bidO.get().getSender().getLogin().equals(userService.getCurrentLoginOrThrow())) {
             throw new ForbiddenException("You are not allowed to edit this bid");
         }
         if (!bidO.get().getType().equals(type)) {
@@ -325,18 +402,9 @@ public class BidService {
     }
 
     private void acceptOccupationBid(OccupationBid bid) {
-        List<Room> blockRoomIds = roomRepository
-                .getByTypeAndDormitoryId(Room.Type.BLOCK, bid.getDormitory().getId());
-        Optional<Room> roomO = blockRoomIds.stream()
-                .filter(roomService::isRoomFree)
-                .findFirst();
-        if (roomO.isEmpty()) {
-            List<Room> aisleRoomIds = roomRepository
-                    .getByTypeAndDormitoryId(Room.Type.AISLE, bid.getDormitory().getId());
-            roomO = aisleRoomIds.stream()
-                    .filter(roomService::isRoomFree)
-                    .findFirst();
-        }
+        int dormitoryId = bid.getDormitory().getId();
+        Optional<Room> roomO = roomAllocator.allocate(dormitoryId, Room.Type.BLOCK)
+                .or(() -> roomAllocator.allocate(dormitoryId, Room.Type.AISLE));
         if (roomO.isEmpty()) {
             throw new BadRequestException("No free room");
         }
@@ -355,35 +423,36 @@ public class BidService {
         event.setRoom(roomO.get());
         event.setUsr(resident);
         eventRepository.save(event);
+        ledgerService.open(resident.getLogin(), roomO.get(), event.getTimestamp());
+        referenceCache.evictOccupancy();
     }
 
     private void acceptRoomChangeBid(RoomChangeBid bid) {
         Resident resident = userService.getResidentByLogin(bid.getSender().getLogin());
+        Room current = resident.getRoom();
         Room room;
         if (bid.getRoomTo() != null) {
             room = bid.getRoomTo();
-            if (!roomService.isRoomFree(room)) {
+            if (!roomAllocator.reserveInsteadOf(current, room)) {
                 throw new BadRequestException("Room is not free");
             }
         } else {
-            List<Room> rooms = roomRepository
-                    .getByTypeAndDormitoryId(bid.getRoomPreferType(), resident.getRoom().getDormitory().getId());
-            Optional<Room> roomO = rooms.stream()
-                    .filter(roomService::isRoomFree)
-                    .findFirst();
-            if (roomO.isEmpty()) {
-                throw new BadRequestException("No free room");
-            }
-            room = roomO.get();
+            room = roomAllocator
+                    .allocateInsteadOf(current, bid.getRoomPreferType())
+                    .orElseThrow(() -> new BadRequestException("No free room"));
         }
+        roomAllocator.release(current);
 
+        residentRepository.moveToRoom(resident.getLogin(), room.getId());
+        // Keeps the session copy in line with the row moved above
         resident.setRoom(room);
-        residentRepository.save(resident);
 
         var event = new Event();
         event.setType(Event.Type.ROOM_CHANGE);
         event.setRoom(room);
         event.setUsr(resident);
         eventRepository.save(event);
+        ledgerService.changeRoom(resident.getLogin(), room);
+        referenceCache.evictOccupancy();
     }
 }
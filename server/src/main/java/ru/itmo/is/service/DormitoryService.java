@@ -1,11 +1,13 @@
 package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.dto.DormitoryRequest;
 import ru.itmo.is.dto.DormitoryResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
-import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
 import ru.itmo.is.exception.BadRequestException;
 import ru.itmo.is.exception.NotFoundException;
@@ -29,6 +31,7 @@ public class DormitoryService {
     private final UniversityRepository universityRepository;
     private final DormitoryMapper dormitoryMapper;
 
+    @Cacheable(ReferenceCache.DORMITORIES)
     public List<DormitoryResponse> getAllDormitories() {
         return dormitoryRepository.findAllByOrderById()
                 .stream()
@@ -36,12 +39,14 @@ public class DormitoryService {
                 .toList();
     }
 
+    @Cacheable(ReferenceCache.DORMITORY)
     public DormitoryResponse getDormitory(int id) {
         return dormitoryRepository.findById(id)
                 .map(dormitoryMapper::toResponse)
                 .orElseThrow(() -> new NotFoundException(DORMITORY_NOT_FOUND));
     }
 
+    @CacheEvict(cacheNames = {ReferenceCache.DORMITORIES, ReferenceCache.UNIVERSITIES, ReferenceCache.UNIVERSITY}, allEntries = true)
     public void addDormitory(DormitoryRequest req) {
         List<University> universities = universityRepository.getByIdIn(req.getUniversityIds());
         if (universities.size() != req.getUniversityIds().size()) {
@@ -55,6 +60,9 @@ public class DormitoryService {
         dormitoryRepository.save(dormitory);
     }
 
+    @CacheEvict(cacheNames = {
+            ReferenceCache.DORMITORIES, ReferenceCache.DORMITORY, ReferenceCache.UNIVERSITIES, ReferenceCache.UNIVERSITY
+    }, allEntries = true)
     public void updateDormitory(int id, DormitoryRequest req) {
         Dormitory dormitory = dormitoryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(DORMITORY_NOT_FOUND));
@@ -64,10 +72,7 @@ public class DormitoryService {
             throw new NotFoundException(UNIVERSITY_NOT_FOUND);
         }
 
-        int residentNumber = dormitory.getRooms().stream()
-                .map(Room::getResidents)
-                .map(List::size)
-                .reduce(0, Integer::sum);
+        int residentNumber = dormitoryRepository.getOccupied(id);
         boolean addressChanged = !req.getAddress().equals(dormitory.getAddress());
         Set<Integer> srcUniversityIds = dormitory.getUniversities().stream()
                 .map(University::getId).collect(Collectors.toSet());
@@ -84,6 +89,10 @@ public class DormitoryService {
         dormitoryRepository.save(dormitory);
     }
 
+    @CacheEvict(cacheNames = {
+            ReferenceCache.DORMITORIES, ReferenceCache.DORMITORY, ReferenceCache.UNIVERSITIES, ReferenceCache.UNIVERSITY,
+            ReferenceCache.ROOMS, ReferenceCache.ROOM
+    }, allEntries = true)
     public void deleteDormitory(int id) {
         Dormitory dormitory = dormitoryRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(DORMITORY_NOT_FOUND));
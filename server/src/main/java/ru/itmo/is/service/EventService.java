@@ -2,61 +2,50 @@ package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import ru.itmo.is.entity.Event;
+import ru.itmo.is.entity.user.ResidentLedger;
 import ru.itmo.is.exception.InvalidDataStateException;
 import ru.itmo.is.repository.EventRepository;
+import ru.itmo.is.repository.ResidentLedgerRepository;
 import ru.itmo.is.repository.RoomRepository;
 
 import java.time.LocalDateTime;
 import java.time.Period;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class EventService {
     private final EventRepository eventRepository;
     private final RoomRepository roomRepository;
+    private final ResidentLedgerRepository ledgerRepository;
 
     public LocalDateTime getLastPaymentTime(String login) {
-        List<Event> events = eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
-                List.of(Event.Type.PAYMENT, Event.Type.OCCUPATION),
-                login
-        );
-
-        if (events.isEmpty()) {
-            throw new InvalidDataStateException("Resident has no payment or occupation events");
+        Optional<ResidentLedger> ledger = ledgerRepository.findById(login);
+        if (ledger.isPresent()) {
+            return ledger.get().getPaidUntil();
         }
-        
-        return events.getFirst().getTimestamp();
+        return eventRepository.getLastPaymentOrOccupationTime(login)
+                .orElseThrow(() -> new InvalidDataStateException("Resident has no payment or occupation events"));
     }
 
     public Integer calculateResidentDebt(String login) {
-        return roomRepository.getResidentRoomCost(login) * calcDebtInMonths(getLastPaymentTime(login));
+        Optional<ResidentLedger> ledger = ledgerRepository.findById(login);
+        if (ledger.isPresent()) {
+            return calculateDebt(ledger.get().getRoomCost(), ledger.get().getPaidUntil());
+        }
+        // No ledger row yet (not reconciled), fall back to the event log
+        return calculateDebt(roomRepository.getResidentRoomCost(login), getLastPaymentTime(login));
     }
 
-    public List<String> getResidentsToEvictionByDebt() {
-        List<String> residentsToEvict = new ArrayList<>();
-
-        eventRepository.getLastEventTimesForAllResidents(List.of(Event.Type.PAYMENT, Event.Type.OCCUPATION))
-                .stream()
-                .map(row -> new ResidentPaymentTime((String) row[0], (LocalDateTime) row[1]))
-                .forEach(paymentRecord -> {
-                    if (calcDebtInMonths(paymentRecord.timestamp()) > 6) {
-                        residentsToEvict.add(paymentRecord.login());
-                    }
-                });
-        
-        return residentsToEvict;
+    public int calculateDebt(int roomCost, LocalDateTime lastPaymentTime) {
+        if (lastPaymentTime == null) {
+            throw new InvalidDataStateException("Resident has no payment or occupation events");
+        }
+        return roomCost * calcDebtInMonths(lastPaymentTime);
     }
 
     private int calcDebtInMonths(LocalDateTime lastPaymentTime) {
         Period period = Period.between(lastPaymentTime.toLocalDate(), LocalDateTime.now().toLocalDate());
         return period.getYears() * 12 + period.getMonths();
     }
-
-    record ResidentPaymentTime(
-            String login,
-            LocalDateTime timestamp
-    ) { }
 }
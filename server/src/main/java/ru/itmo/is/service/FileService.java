@@ -1,36 +1,214 @@
 package ru.itmo.is.service;
 
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import ru.itmo.is.cache.ReferenceCache;
+import ru.itmo.is.dto.FileUploadRequest;
+import ru.itmo.is.dto.FileUploadResponse;
+import ru.itmo.is.preview.PreviewGenerator;
 import ru.itmo.is.storage.FileData;
 import ru.itmo.is.entity.bid.BidFile;
+import ru.itmo.is.entity.bid.BidFileUpload;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
 import ru.itmo.is.exception.NotFoundException;
 import ru.itmo.is.repository.BidFileRepository;
+import ru.itmo.is.repository.BidFileUploadRepository;
 import ru.itmo.is.storage.FileRecord;
 import ru.itmo.is.storage.FileStorage;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
 @Service
-@RequiredArgsConstructor
 public class FileService {
+    private static final int GC_BATCH_SIZE = 500;
+
     private final BidFileRepository bidFileRepository;
+    private final BidFileUploadRepository bidFileUploadRepository;
     private final FileStorage fileStorage;
+    private final PreviewGenerator previewGenerator;
+    private final ReferenceCache referenceCache;
+    private final Duration gcGrace;
+    private final DataSize maxUploadSize;
+    private final Duration uploadExpiry;
+
+    public FileService(
+            BidFileRepository bidFileRepository,
+            BidFileUploadRepository bidFileUploadRepository,
+            FileStorage fileStorage,
+            PreviewGenerator previewGenerator,
+            ReferenceCache referenceCache,
+            @Value("${file.gc.grace:24h}") Duration gcGrace,
+            @Value("${file.upload.max-size:50MB}") DataSize maxUploadSize,
+            @Value("${file.upload.expiry:24h}") Duration uploadExpiry
+    ) {
+        this.bidFileRepository = bidFileRepository;
+        this.bidFileUploadRepository = bidFileUploadRepository;
+        this.fileStorage = fileStorage;
+        this.previewGenerator = previewGenerator;
+        this.referenceCache = referenceCache;
+        this.gcGrace = gcGrace;
+        this.maxUploadSize = maxUploadSize;
+        this.uploadExpiry = uploadExpiry;
+    }
 
     @Transactional
     public String upload(MultipartFile file) {
-        FileRecord fr = fileStorage.save(file);
+        return saveBidFile(fileStorage.save(file));
+    }
+
+    /**
+     * Previews are made in background after upload. If a preview was skipped or is still being made,
+     * it is queued again and the client gets 404 until it is ready
+     */
+    public FileData getPreview(String key) {
+        FileRecord fr = bidFileRepository.getRecord(key)
+                .orElseThrow(() -> new NotFoundException("No file with such key"));
+        return fileStorage.getPreview(fr).orElseGet(() -> {
+            if (fileStorage.isPreviewUnsupported(fr.getVersion())) {
+                throw new NotFoundException("File has no preview");
+            }
+            previewGenerator.submit(fr);
+            throw new NotFoundException("Preview is not ready");
+        });
+    }
+
+    @Transactional
+    public FileUploadResponse startUpload(FileUploadRequest req) {
+        if (req.getSize() > maxUploadSize.toBytes()) {
+            throw new BadRequestException("File is larger than " + maxUploadSize.toMegabytes() + " MB");
+        }
+        var upload = new BidFileUpload();
+        upload.setId(fileStorage.createPart());
+        upload.setName(req.getName());
+        upload.setSize(req.getSize());
+        upload.setCreated(LocalDateTime.now());
+        bidFileUploadRepository.save(upload);
+        return new FileUploadResponse(upload.getId(), 0L, upload.getSize());
+    }
+
+    public FileUploadResponse getUpload(String id) {
+        BidFileUpload upload = getUploadOrThrow(id);
+        return new FileUploadResponse(id, fileStorage.getPartSize(id), upload.getSize());
+    }
+
+    /**
+     * Not transactional, no connection is held while a slow client sends the chunk
+     */
+    public FileUploadResponse appendUpload(String id, long offset, Resource chunk) {
+        BidFileUpload upload = getUploadOrThrow(id);
+        long received = fileStorage.appendPart(id, offset, upload.getSize(), chunk);
+        return new FileUploadResponse(id, received, upload.getSize());
+    }
+
+    /**
+     * File becomes available by key only here, unfinished uploads never get a bid_file row
+     */
+    @Transactional
+    public String finishUpload(String id) {
+        BidFileUpload upload = getUploadOrThrow(id);
+        long received = fileStorage.getPartSize(id);
+        if (received != upload.getSize()) {
+            throw new ConflictException("Received " + received + " of " + upload.getSize() + " bytes");
+        }
+        String key = saveBidFile(fileStorage.savePart(id, upload.getName()));
+        bidFileUploadRepository.delete(upload);
+        return key;
+    }
+
+    public FileData get(String key) {
+        return bidFileRepository.getRecord(key)
+                .map(fileStorage::get)
+                .orElseThrow(() -> new NotFoundException("No file with such key"));
+    }
+
+    /**
+     * Deletes uploads not finished in time with bytes received by them
+     *
+     * @return number of deleted uploads
+     */
+    @Transactional
+    public int deleteExpiredUploads() {
+        List<String> ids = bidFileUploadRepository.getIdsCreatedBefore(LocalDateTime.now().minus(uploadExpiry));
+        bidFileUploadRepository.deleteAllById(ids);
+        ids.forEach(fileStorage::deletePart);
+        return ids.size();
+    }
+
+    /**
+     * Deletes files detached from their bid by bid editing or never attached to one. Files younger than
+     * the grace period are kept, their bid may not be saved yet. Their blobs are left to {@link #collectGarbage()}
+     *
+     * @return number of deleted files
+     */
+    public int deleteDetachedFiles() {
+        List<String> keys = bidFileRepository.getDetachedKeysCreatedBefore(LocalDateTime.now().minus(gcGrace));
+        int deleted = 0;
+        for (int from = 0; from < keys.size(); from += GC_BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(from + GC_BATCH_SIZE, keys.size()));
+            deleted += bidFileRepository.deleteDetached(batch);
+            referenceCache.evictFiles(batch);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes stored blobs that no bid_file refers to. Blobs younger than the grace period are kept,
+     * their upload may not be committed yet
+     *
+     * @return number of deleted blobs
+     */
+    public int collectGarbage() {
+        Instant before = Instant.now().minus(gcGrace);
+        List<String> blobs = fileStorage.getBlobsModifiedBefore(before);
+        int deleted = 0;
+        for (int from = 0; from < blobs.size(); from += GC_BATCH_SIZE) {
+            List<String> batch = blobs.subList(from, Math.min(from + GC_BATCH_SIZE, blobs.size()));
+            Set<String> referenced = bidFileRepository.getReferencedHashes(batch);
+            for (String hash : batch) {
+                if (!referenced.contains(hash) && fileStorage.deleteBlob(hash, before)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private BidFileUpload getUploadOrThrow(String id) {
+        return bidFileUploadRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Upload not found"));
+    }
+
+    private String saveBidFile(FileRecord fr) {
         var bidFile = new BidFile();
         bidFile.setKey(fr.getKey());
         bidFile.setName(fr.getName());
+        bidFile.setContentHash(fr.getContentHash());
         bidFileRepository.save(bidFile);
+        afterCommit(() -> previewGenerator.submit(fr));
         return fr.getKey();
     }
 
-    public FileData get(String key) {
-        return bidFileRepository.findById(key)
-                .map(FileRecord::new)
-                .map(fileStorage::get)
-                .orElseThrow(() -> new NotFoundException("No file with such key"));
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -2,15 +2,25 @@ package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.itmo.is.dto.GuardBatchRequest;
+import ru.itmo.is.dto.GuardBatchResult;
+import ru.itmo.is.dto.GuardEventRequest;
 import ru.itmo.is.dto.GuardHistory;
 import ru.itmo.is.entity.Event;
-import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.InternalServerErrorException;
+import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.exception.ServiceUnavailableException;
+import ru.itmo.is.guard.GuardEventWriter;
+import ru.itmo.is.guard.GuardStateCache;
 import ru.itmo.is.mapper.EventMapper;
 import ru.itmo.is.repository.EventRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -18,23 +28,52 @@ public class GuardService {
     private final EventRepository eventRepository;
     private final UserService userService;
     private final EventMapper eventMapper;
+    private final GuardStateCache stateCache;
+    private final GuardEventWriter eventWriter;
 
     public void entry(String login) {
-        Optional<Event> lastInOutEventO = eventRepository.getLastInOutEvent(login);
-        if (lastInOutEventO.isPresent() && lastInOutEventO.get().getType().equals(Event.Type.IN)) {
-            throw new BadRequestException("Last guard event was the same");
-        }
-
-        createGuardEvent(login, Event.Type.IN);
+        await(pass(login, Event.Type.IN, LocalDateTime.now()));
     }
 
     public void exit(String login) {
-        Optional<Event> lastInOutEventO = eventRepository.getLastInOutEvent(login);
-        if (lastInOutEventO.isPresent() && lastInOutEventO.get().getType().equals(Event.Type.OUT)) {
-            throw new BadRequestException("Last guard event was the same");
+        await(pass(login, Event.Type.OUT, LocalDateTime.now()));
+    }
+
+    public List<GuardBatchResult> batch(GuardBatchRequest req) {
+        List<GuardEventRequest> events = req.getEvents();
+        List<CompletableFuture<Void>> written = new ArrayList<>(events.size());
+        List<GuardBatchResult> results = new ArrayList<>(events.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (GuardEventRequest event : events) {
+            var result = new GuardBatchResult(event.getLogin(), false);
+            results.add(result);
+            LocalDateTime timestamp = event.getTimestamp() == null ? now : event.getTimestamp();
+            if (timestamp.isAfter(now)) {
+                result.setError("Event time is in the future");
+                written.add(null);
+                continue;
+            }
+            try {
+                written.add(pass(event.getLogin(), eventMapper.mapGuardEventType(event.getType()), timestamp));
+            } catch (BadRequestException | NotFoundException | ServiceUnavailableException e) {
+                result.setError(e.getMessage());
+                written.add(null);
+            }
         }
 
-        createGuardEvent(login, Event.Type.OUT);
+        // Wait after everything is queued, so the whole burst goes to the same few batches
+        for (int i = 0; i < results.size(); i++) {
+            if (written.get(i) == null) {
+                continue;
+            }
+            try {
+                written.get(i).join();
+                results.get(i).setSuccess(true);
+            } catch (CompletionException e) {
+                results.get(i).setError("Event was not saved");
+            }
+        }
+        return results;
     }
 
     public List<GuardHistory> getHistory(String login) {
@@ -46,14 +85,24 @@ public class GuardService {
     }
 
     public List<GuardHistory> getSelfHistory() {
-        User resident = userService.getCurrentUserOrThrow();
-        return getHistory(resident.getLogin());
+        return getHistory(userService.getCurrentLoginOrThrow());
     }
 
-    private void createGuardEvent(String login, Event.Type type) {
-        var event = new Event();
-        event.setUsr(userService.getResidentByLogin(login));
-        event.setType(type);
-        eventRepository.save(event);
+    private CompletableFuture<Void> pass(String login, Event.Type type, LocalDateTime timestamp) {
+        GuardStateCache.LastPass previous = stateCache.pass(login, type, timestamp);
+        try {
+            return eventWriter.submit(login, type, timestamp);
+        } catch (ServiceUnavailableException e) {
+            stateCache.revert(login, new GuardStateCache.LastPass(type, timestamp), previous);
+            throw e;
+        }
+    }
+
+    private void await(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw new InternalServerErrorException("Guard event was not saved", e.getCause());
+        }
     }
 }
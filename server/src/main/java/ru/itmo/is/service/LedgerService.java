@@ -0,0 +1,129 @@
+package ru.itmo.is.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.user.Resident;
+import ru.itmo.is.entity.user.ResidentLedger;
+import ru.itmo.is.repository.ResidentLedgerRepository;
+import ru.itmo.is.repository.projection.LedgerReplay;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps {@link ResidentLedger} in step with the event log. Every method is expected to run
+ * in the transaction that writes the corresponding event.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+    private static final Logger log = LogManager.getLogger(LedgerService.class);
+
+    private final ResidentLedgerRepository ledgerRepository;
+
+    public Optional<ResidentLedger> lock(String login) {
+        return ledgerRepository.lockByLogin(login);
+    }
+
+    public void open(String login, Room room, LocalDateTime occupiedAt) {
+        ResidentLedger ledger = ledgerRepository.findById(login).orElseGet(() -> newLedger(login));
+        ledger.setRoomCost(room.getCost());
+        ledger.setPaidUntil(occupiedAt);
+        ledger.setTotalPaid(0);
+        ledgerRepository.save(ledger);
+    }
+
+    public void recordPayment(Resident resident, Event payment) {
+        ResidentLedger ledger = ledgerRepository.findById(resident.getLogin()).orElseGet(() -> {
+            ResidentLedger created = newLedger(resident.getLogin());
+            created.setRoomCost(resident.getRoom().getCost());
+            return created;
+        });
+        ledger.setPaidUntil(payment.getTimestamp());
+        ledger.setTotalPaid(ledger.getTotalPaid() + payment.getPaymentSum());
+        ledgerRepository.save(ledger);
+    }
+
+    public void changeRoom(String login, Room room) {
+        ledgerRepository.findById(login).ifPresent(ledger -> {
+            ledger.setRoomCost(room.getCost());
+            ledgerRepository.save(ledger);
+        });
+    }
+
+    public void close(String login) {
+        if (ledgerRepository.existsById(login)) {
+            ledgerRepository.deleteById(login);
+        }
+    }
+
+    /**
+     * Replays the event log and overwrites ledger rows that drifted from it.
+     *
+     * @return number of inserted, updated or deleted rows
+     */
+    @Transactional
+    public int reconcile() {
+        // Payments wait on these locks, so the replay below already sees every committed payment
+        // and none can be written between the replay and the overwrite
+        Map<String, ResidentLedger> ledgers = new HashMap<>();
+        ledgerRepository.lockAll().forEach(ledger -> ledgers.put(ledger.getLogin(), ledger));
+
+        int fixed = 0;
+        for (LedgerReplay replay : ledgerRepository.replayEvents()) {
+            ResidentLedger ledger = ledgers.remove(replay.getLogin());
+            if (replay.getPaidUntil() == null) {
+                // Resident without payment or occupation events, debt falls back to the event log
+                if (ledger != null) {
+                    log.warn("Ledger of {} has no events behind it, removing", replay.getLogin());
+                    ledgerRepository.delete(ledger);
+                    fixed++;
+                }
+                continue;
+            }
+            if (ledger == null) {
+                log.warn("Ledger of {} is missing, restoring from events", replay.getLogin());
+                ledger = newLedger(replay.getLogin());
+            } else if (matches(ledger, replay)) {
+                continue;
+            } else {
+                log.warn("Ledger of {} drifted from events: cost {}, paid until {}, total {} instead of {}, {}, {}",
+                        replay.getLogin(), ledger.getRoomCost(), ledger.getPaidUntil(), ledger.getTotalPaid(),
+                        replay.getRoomCost(), replay.getPaidUntil(), replay.getTotalPaid());
+            }
+            ledger.setRoomCost(replay.getRoomCost());
+            ledger.setPaidUntil(replay.getPaidUntil());
+            ledger.setTotalPaid(replay.getTotalPaid());
+            ledgerRepository.save(ledger);
+            fixed++;
+        }
+
+        // Whatever is left belongs to users who are not residents any more
+        for (ResidentLedger stale : ledgers.values()) {
+            log.warn("Ledger of {} outlived the residence, removing", stale.getLogin());
+            ledgerRepository.delete(stale);
+            fixed++;
+        }
+        return fixed;
+    }
+
+    private static boolean matches(ResidentLedger ledger, LedgerReplay replay) {
+        return ledger.getRoomCost() == replay.getRoomCost()
+                && ledger.getTotalPaid() == replay.getTotalPaid()
+                && Objects.equals(ledger.getPaidUntil(), replay.getPaidUntil());
+    }
+
+    private static ResidentLedger newLedger(String login) {
+        ResidentLedger ledger = new ResidentLedger();
+        ledger.setLogin(login);
+        return ledger;
+    }
+}
@@ -2,16 +2,26 @@ package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.itmo.is.dto.EvictionReason;
 import ru.itmo.is.dto.NotificationResponse;
 import ru.itmo.is.entity.bid.Bid;
 import ru.itmo.is.entity.notification.Notification;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.ForbiddenException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.notification.NotificationHub;
 import ru.itmo.is.repository.NotificationRepository;
 import ru.itmo.is.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -20,24 +30,28 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final UserService userService;
+    private final NotificationHub notificationHub;
 
     public List<NotificationResponse> getUnreadNotifications() {
-        User receiver = userService.getCurrentUserOrThrow();
-        List<Notification> notifications = notificationRepository
-                .getByReceiverLoginAndStatus(receiver.getLogin(), Notification.Status.CREATED);
-        return notifications.stream()
-                .map(this::mapNotification)
-                .toList();
+        return getUnread(userService.getCurrentLoginOrThrow());
+    }
+
+    /**
+     * Opens a stream of notifications for current user, starting with unread ones
+     */
+    public SseEmitter subscribe() {
+        String receiver = userService.getCurrentLoginOrThrow();
+        return notificationHub.subscribe(receiver, () -> getUnread(receiver));
     }
 
     public void markAsRead(long id) {
-        User receiver = userService.getCurrentUserOrThrow();
+        String receiver = userService.getCurrentLoginOrThrow();
         Optional<Notification> notificationO = notificationRepository.findById(id);
         if (notificationO.isEmpty()) {
             throw new NotFoundException("Notification not found");
         }
 
-        if (!notificationO.get().getReceiver().equals(receiver)) {
+        if (!notificationO.get().getReceiver().getLogin().equals(receiver)) {
             throw new ForbiddenException("No rights");
         }
 
@@ -45,8 +59,7 @@ public class NotificationService {
     }
 
     public void markAllAsRead() {
-        User receiver = userService.getCurrentUserOrThrow();
-        notificationRepository.setAllReadStatus(receiver.getLogin());
+        notificationRepository.setAllReadStatus(userService.getCurrentLoginOrThrow());
     }
 
     public void notifyManagersAboutNewBid(Bid bid) {
@@ -63,10 +76,108 @@ public class NotificationService {
                     })
                     .toList();
             notificationRepository.saveAll(notifications);
+            publish(notifications);
         }
     }
 
     public void notifySenderAboutBidStatus(Bid bid) {
+        Notification notification = buildBidStatusNotification(bid);
+        if (notification != null) {
+            notificationRepository.save(notification);
+            publish(List.of(notification));
+        }
+    }
+
+    public void notifySenderAboutRevision(Bid bid) {
+        Notification notification = new Notification();
+        notification.setBid(bid);
+        notification.setReceiver(bid.getSender());
+        notification.setText("Вам нужно поправить/дополнить данные в заявке");
+        notification.setStatus(Notification.Status.CREATED);
+        notificationRepository.save(notification);
+        publish(List.of(notification));
+    }
+
+    public void notifySendersAboutBidStatus(Collection<Bid> bids) {
+        List<Notification> notifications = bids.stream()
+                .map(this::buildBidStatusNotification)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!notifications.isEmpty()) {
+            notificationRepository.saveAll(notifications);
+            publish(notifications);
+        }
+    }
+
+    /**
+     * Warns residents found by the eviction scan. A resident who has not read the same warning yet gets no new one
+     */
+    public void warnAboutEviction(Map<String, EvictionReason> reasons) {
+        Map<String, String> texts = new HashMap<>();
+        reasons.forEach((login, reason) -> texts.put(login, "Вы в списке на выселение: " + switch (reason) {
+            case NON_PAYMENT -> "проживание не оплачено больше полугода";
+            case NON_RESIDENCE -> "вы не появлялись в общежитии больше недели";
+            case RULE_VIOLATION -> "нарушение режима общежития";
+        }));
+        notificationRepository.getByReceiverLoginInAndStatusAndBidIsNull(texts.keySet(), Notification.Status.CREATED)
+                .forEach(unread -> texts.remove(unread.getReceiver().getLogin(), unread.getText()));
+        notifyWithoutBid(texts);
+    }
+
+    /**
+     * @param debts debt of every resident to remind
+     */
+    public void remindAboutDebt(Map<String, Integer> debts) {
+        Map<String, String> texts = new HashMap<>();
+        debts.forEach((login, debt) -> texts.put(login, String.format("Задолженность за проживание: %d руб.", debt)));
+        notifyWithoutBid(texts);
+    }
+
+    private void notifyWithoutBid(Map<String, String> texts) {
+        if (texts.isEmpty()) {
+            return;
+        }
+        List<Notification> notifications = new ArrayList<>();
+        for (User receiver : userRepository.findAllById(texts.keySet())) {
+            Notification notification = new Notification();
+            notification.setReceiver(receiver);
+            notification.setText(texts.get(receiver.getLogin()));
+            notification.setStatus(Notification.Status.CREATED);
+            notifications.add(notification);
+        }
+        notificationRepository.saveAll(notifications);
+        publish(notifications);
+    }
+
+    private List<NotificationResponse> getUnread(String login) {
+        return notificationRepository.getByReceiverLoginAndStatus(login, Notification.Status.CREATED)
+                .stream()
+                .map(this::mapNotification)
+                .toList();
+    }
+
+    /**
+     * Pushes saved notifications to open streams once they are committed, so a client never sees
+     * a notification that is rolled back
+     */
+    private void publish(List<Notification> notifications) {
+        List<Delivery> deliveries = notifications.stream()
+                .map(notification -> new Delivery(notification.getReceiver().getLogin(), mapNotification(notification)))
+                .toList();
+        Runnable push = () -> deliveries.forEach(d -> notificationHub.publish(d.login(), d.notification()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            push.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                push.run();
+            }
+        });
+    }
+
+    private Notification buildBidStatusNotification(Bid bid) {
         String statusText = switch (bid.getStatus()) {
             case ACCEPTED -> "одобрена :)";
             case DENIED -> "отклонена ;(";
@@ -74,7 +185,7 @@ public class NotificationService {
         };
 
         if (statusText == null) {
-            return;
+            return null;
         }
 
         Notification notification = new Notification();
@@ -82,10 +193,13 @@ public class NotificationService {
         notification.setReceiver(bid.getSender());
         notification.setText(String.format("Ваша заявка %s", statusText));
         notification.setStatus(Notification.Status.CREATED);
-        notificationRepository.save(notification);
+        return notification;
     }
 
     private NotificationResponse mapNotification(Notification entity) {
-        return new NotificationResponse(entity.getId(), entity.getBid().getId(), entity.getText());
+        return new NotificationResponse(entity.getId(), entity.getText())
+                .bidId(entity.getBid() == null ? null : entity.getBid().getId());
     }
+
+    private record Delivery(String login, NotificationResponse notification) { }
 }
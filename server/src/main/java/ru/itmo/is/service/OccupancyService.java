@@ -0,0 +1,61 @@
+package ru.itmo.is.service;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.is.allocation.RoomAllocator;
+import ru.itmo.is.cache.ReferenceCache;
+import ru.itmo.is.repository.RoomRepository;
+import ru.itmo.is.repository.projection.OccupancyDrift;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Checks occupancy counters of rooms against the resident table, dormitory sizes are sums of these counters.
+ * Counters are updated by the same statements that insert, delete and move residents,
+ * so they drift only if resident rows are changed some other way (manual fixes, cascades)
+ */
+@Service
+@RequiredArgsConstructor
+public class OccupancyService {
+    private static final Logger log = LogManager.getLogger(OccupancyService.class);
+
+    private final RoomRepository roomRepository;
+    private final RoomAllocator roomAllocator;
+    private final ReferenceCache referenceCache;
+
+    /**
+     * Recounts every room whose counter is wrong
+     *
+     * @return number of fixed rooms
+     */
+    @Transactional
+    public int reconcile() {
+        int fixed = 0;
+        Set<Integer> dormitoryIds = new HashSet<>();
+        for (OccupancyDrift room : roomRepository.findOccupancyDrift()) {
+            log.warn("Room {} counts {} residents instead of {}, recounting",
+                    room.getId(), room.getOccupied(), room.getActual());
+            roomRepository.recountOccupied(room.getId());
+            dormitoryIds.add(room.getDormitoryId());
+            fixed++;
+        }
+
+        if (!dormitoryIds.isEmpty()) {
+            // Free places in memory were built from wrong counters, reload them once the fix is visible
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dormitoryIds.forEach(roomAllocator::invalidate);
+                    referenceCache.evictOccupancy();
+                }
+            });
+        }
+        return fixed;
+    }
+}
@@ -2,6 +2,7 @@ package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itmo.is.dto.PaymentHistoryRecord;
 import ru.itmo.is.dto.PaymentRequest;
 import ru.itmo.is.dto.PaymentResponse;
@@ -18,6 +19,7 @@ import java.util.List;
 public class PaymentService {
     private final UserService userService;
     private final EventService eventService;
+    private final LedgerService ledgerService;
     private final EventRepository eventRepository;
 
     public PaymentResponse getSelfPaymentInfo() {
@@ -30,14 +32,17 @@ public class PaymentService {
         List<Event> paymentEvents = eventRepository
                 .getByTypeInAndUsrLoginOrderByTimestampDesc(List.of(Event.Type.PAYMENT), resident.getLogin());
         List<PaymentHistoryRecord> history = paymentEvents.stream().map(this::mapHistory).toList();
-        Integer debt = eventService.calculateResidentDebt(resident.getLogin());
         LocalDateTime lastPaymentTime = eventService.getLastPaymentTime(resident.getLogin());
+        int debt = eventService.calculateDebt(resident.getRoom().getCost(), lastPaymentTime);
 
         return new PaymentResponse(debt, resident.getRoom().getCost(), lastPaymentTime, history);
     }
 
+    @Transactional
     public void currentUserPay(PaymentRequest req) {
         Resident resident = userService.getCurrentResidentOrThrow();
+        // Concurrent payments of the same resident wait here, so the debt is not paid twice
+        ledgerService.lock(resident.getLogin());
         int debt = eventService.calculateResidentDebt(resident.getLogin());
         if (req.getSum() != debt) {
             throw new BadRequestException("You can pay not equals to your debt sum");
@@ -48,6 +53,7 @@ public class PaymentService {
         event.setRoom(resident.getRoom());
         event.setPaymentSum(req.getSum());
         eventRepository.save(event);
+        ledgerService.recordPayment(resident, event);
     }
 
     private PaymentHistoryRecord mapHistory(Event event) {
@@ -1,7 +1,11 @@
 package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import ru.itmo.is.allocation.RoomAllocator;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.dto.RoomRequest;
 import ru.itmo.is.dto.RoomResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
@@ -24,7 +28,9 @@ public class RoomService {
     private final RoomRepository roomRepository;
     private final DormitoryRepository dormitoryRepository;
     private final RoomMapper roomMapper;
+    private final RoomAllocator roomAllocator;
 
+    @Cacheable(ReferenceCache.ROOMS)
     public List<RoomResponse> getAllRooms() {
         return roomRepository.findAllByOrderById().stream().map(roomMapper::roomToDto).toList();
     }
@@ -32,18 +38,20 @@ public class RoomService {
     public List<RoomResponse> getForResident() {
         Resident resident = userService.getCurrentResidentOrThrow();
         return roomRepository.getInDormitory(resident.getRoom().getDormitory().getId()).stream()
-                .filter(this::isRoomFree)
+                .filter(roomAllocator::isFree)
                 .filter(r -> !Objects.equals(r.getId(), resident.getRoom().getId()))
                 .map(roomMapper::roomToDto)
                 .toList();
     }
 
+    @Cacheable(ReferenceCache.ROOM)
     public RoomResponse getRoom(int id) {
         return roomRepository.findById(id)
                 .map(roomMapper::roomToDto)
                 .orElseThrow(() -> new NotFoundException("No such room"));
     }
 
+    @CacheEvict(cacheNames = ReferenceCache.ROOMS, allEntries = true)
     public void addRoom(RoomRequest req) {
         if (roomRepository.getByDormitoryIdAndNumber(req.getDormitoryId(), req.getNumber()).isPresent()) {
             throw new BadRequestException("Such room already exists");
@@ -62,18 +70,17 @@ public class RoomService {
         room.setFloor(req.getFloor());
         room.setCost(req.getCost());
         roomRepository.save(room);
+        roomAllocator.invalidate(room.getDormitory().getId());
     }
 
+    @CacheEvict(cacheNames = {ReferenceCache.ROOMS, ReferenceCache.ROOM}, allEntries = true)
     public void deleteRoom(int id) {
         Room room = roomRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("No such room"));
-        if (!room.getResidents().isEmpty()) {
+        if (roomRepository.getOccupied(id) > 0) {
             throw new BadRequestException("Room has residents");
         }
         roomRepository.delete(room);
-    }
-
-    public boolean isRoomFree(Room room) {
-        return room.getResidents().size() < room.getCapacity();
+        roomAllocator.invalidate(room.getDormitory().getId());
     }
 }
@@ -1,7 +1,10 @@
 package ru.itmo.is.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.dto.UniversityRequest;
 import ru.itmo.is.dto.UniversityResponse;
 import ru.itmo.is.entity.dorm.University;
@@ -19,16 +22,19 @@ public class UniversityService {
     private final UniversityRepository universityRepository;
     private final UniversityMapper universityMapper;
 
+    @Cacheable(ReferenceCache.UNIVERSITIES)
     public List<UniversityResponse> getAllUniversities() {
         return universityRepository.findAllByOrderById().stream().map(universityMapper::toResponse).toList();
     }
 
+    @Cacheable(ReferenceCache.UNIVERSITY)
     public UniversityResponse getUniversity(int id) {
         return universityRepository.findById(id)
                 .map(universityMapper::toResponse)
                 .orElseThrow(() -> new NotFoundException(UNIVERSITY_NOT_FOUND));
     }
 
+    @CacheEvict(cacheNames = ReferenceCache.UNIVERSITIES, allEntries = true)
     public void addUniversity(UniversityRequest req) {
         University university = new University();
         university.setName(req.getName());
@@ -36,6 +42,7 @@ public class UniversityService {
         universityRepository.save(university);
     }
 
+    @CacheEvict(cacheNames = {ReferenceCache.UNIVERSITIES, ReferenceCache.UNIVERSITY}, allEntries = true)
     public void updateUniversity(int id, UniversityRequest req) {
         University university = universityRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(UNIVERSITY_NOT_FOUND));
@@ -44,6 +51,9 @@ public class UniversityService {
         universityRepository.save(university);
     }
 
+    @CacheEvict(cacheNames = {
+            ReferenceCache.UNIVERSITIES, ReferenceCache.UNIVERSITY, ReferenceCache.DORMITORIES, ReferenceCache.DORMITORY
+    }, allEntries = true)
     public void deleteUniversity(int id) {
         University university = universityRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException(UNIVERSITY_NOT_FOUND));
@@ -1,39 +1,50 @@
 package ru.itmo.is.service;
 
+import jakarta.annotation.Nullable;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itmo.is.dto.DormitoryResponse;
 import ru.itmo.is.dto.ResidentResponse;
 import ru.itmo.is.dto.ToEvictionResidentResponse;
+import ru.itmo.is.dto.UniversityResponse;
 import ru.itmo.is.dto.UserResponse;
-import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.BadRequestException;
 import ru.itmo.is.exception.ForbiddenException;
 import ru.itmo.is.exception.NotFoundException;
 import ru.itmo.is.exception.UnauthorizedException;
+import ru.itmo.is.mapper.DormitoryMapper;
+import ru.itmo.is.mapper.UniversityMapper;
 import ru.itmo.is.mapper.UserMapper;
-import ru.itmo.is.repository.EventRepository;
-import ru.itmo.is.repository.ResidentRepository;
-import ru.itmo.is.repository.UserRepository;
+import ru.itmo.is.repository.*;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
 import ru.itmo.is.security.SecurityContext;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final EventRepository eventRepository;
     private final SecurityContext securityContext;
     private final ResidentRepository residentRepository;
     private final UserMapper userMapper;
     private final EventService eventService;
+    private final UniversityRepository universityRepository;
+    private final DormitoryRepository dormitoryRepository;
+    private final UniversityMapper universityMapper;
+    private final DormitoryMapper dormitoryMapper;
 
     public Resident getResidentByLogin(String login) {
         return residentRepository.findById(login)
@@ -42,18 +53,42 @@ public class UserService {
 
     public Resident getCurrentResidentOrThrow() {
         try {
-            return getResidentByLogin(getCurrentUserOrThrow().getLogin());
+            return getResidentByLogin(getCurrentLoginOrThrow());
         } catch (NotFoundException e) {
             throw new ForbiddenException("You are not resident");
         }
     }
 
-    public User getCurrentUserOrThrow() {
+    /**
+     * Login from token claims, doesn't touch the database
+     */
+    public String getCurrentLoginOrThrow() {
         String login = securityContext.getUsername();
         if (login == null) {
             throw new UnauthorizedException("You are not logged in");
         }
-        return userRepository.findById(login).orElseThrow(() -> new UnauthorizedException("You are not logged in"));
+        return login;
+    }
+
+    /**
+     * Role from token claims, doesn't touch the database
+     */
+    public User.Role getCurrentRoleOrThrow() {
+        getCurrentLoginOrThrow();
+        return securityContext.getRole();
+    }
+
+    /**
+     * Loads current user once per request
+     */
+    public User getCurrentUserOrThrow() {
+        User user = securityContext.getUser();
+        if (user == null) {
+            user = userRepository.findById(getCurrentLoginOrThrow())
+                    .orElseThrow(() -> new UnauthorizedException("You are not logged in"));
+            securityContext.setUser(user);
+        }
+        return user;
     }
 
     public List<UserResponse> getStaff() {
@@ -61,19 +96,26 @@ public class UserService {
                 .stream().map(userMapper::mapUserResponse).toList();
     }
 
-    public List<ResidentResponse> getResidents() {
-        List<User> users = userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT));
-        return users.stream()
-                .map(user -> (Resident) user)
-                .map(resident -> {
-                    int debt = eventService.calculateResidentDebt(resident.getLogin());
-
-                    LocalDateTime lastCameOut = eventRepository.getLastInOutEvent(resident.getLogin())
-                            .map(Event::getTimestamp)
-                            .orElse(null);
-
-                    return userMapper.toResidentResponse(resident, debt, lastCameOut);
-                })
+    public List<ResidentResponse> getResidents(@Nullable String after, @Nullable Integer limit) {
+        List<ResidentSummary> residents = residentRepository.getResidentSummaries(
+                after,
+                limit == null ? Limit.unlimited() : Limit.of(limit)
+        );
+
+        Map<Integer, UniversityResponse> universities = new HashMap<>();
+        universityRepository.findAllById(residents.stream().map(ResidentSummary::getUniversityId).collect(Collectors.toSet()))
+                .forEach(university -> universities.put(university.getId(), universityMapper.toResponse(university)));
+        Map<Integer, DormitoryResponse> dormitories = new HashMap<>();
+        dormitoryRepository.findAllById(residents.stream().map(ResidentSummary::getDormitoryId).collect(Collectors.toSet()))
+                .forEach(dormitory -> dormitories.put(dormitory.getId(), dormitoryMapper.toResponse(dormitory)));
+
+        return residents.stream()
+                .map(resident -> userMapper.toResidentResponse(
+                        resident,
+                        universities.get(resident.getUniversityId()),
+                        dormitories.get(resident.getDormitoryId()),
+                        eventService.calculateDebt(resident.getRoomCost(), resident.getLastPaymentTime())
+                ))
                 .toList();
     }
 
@@ -88,36 +130,13 @@ public class UserService {
         userRepository.delete(userO.get());
     }
 
+    @Transactional(readOnly = true)
     public List<ToEvictionResidentResponse> getResidentsToEviction() {
-        Map<String, ToEvictionResidentResponse> residentsToEviction = new HashMap<>();
-
-        userRepository.getByLoginIn(eventService.getResidentsToEvictionByDebt())
-                .forEach(u -> residentsToEviction.putIfAbsent(u.getLogin(), userMapper.nonPaymentEvictResponse(u)));
-
-        List<UserEvent> userLastInOutEvents = userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT)).stream()
-                .map(u -> new UserOptionalEvent(u, eventRepository.getLastInOutEvent(u.getLogin())))
-                .filter(ue -> ue.event().isPresent())
-                .map(uoe -> new UserEvent(uoe.user(), uoe.event().get()))
-                .toList();
-
-        userLastInOutEvents.stream()
-                .filter(ue -> ue.event().getType().equals(Event.Type.OUT))
-                .filter(ue -> ue.event().getTimestamp().isBefore(LocalDateTime.now().minusDays(7)))
-                .map(UserEvent::user)
-                .map(userMapper::nonResidenceEvictResponse)
-                .forEach(ev -> residentsToEviction.putIfAbsent(ev.getResident().getLogin(), ev));
-
-        userLastInOutEvents.stream()
-                .map(ue -> new UserTime(ue.user(), ue.event().getTimestamp().toLocalTime()))
-                .filter(ut -> !ut.time().isBefore(LocalTime.MIDNIGHT) && ut.time.isBefore(LocalTime.of(6, 0)))
-                .map(UserTime::user)
-                .map(userMapper::ruleViolationEvictResponse)
-                .forEach(ev -> residentsToEviction.putIfAbsent(ev.getResident().getLogin(), ev));
-
-        return residentsToEviction.values().stream().toList();
+        try (Stream<EvictionCandidate> candidates = residentRepository.streamEvictionCandidates(
+                LocalDate.now(),
+                LocalDateTime.now().minusDays(7)
+        )) {
+            return candidates.map(userMapper::toEvictionResponse).toList();
+        }
     }
-
-    private record UserOptionalEvent(User user, Optional<Event> event) {}
-    private record UserEvent(User user, Event event) {}
-    private record UserTime(User user, LocalTime time) {}
 }
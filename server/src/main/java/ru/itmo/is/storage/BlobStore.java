@@ -0,0 +1,105 @@
+package ru.itmo.is.storage;
+
+import org.springframework.core.io.Resource;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where stored files physically are. Objects are addressed by slash separated keys, layout of keys
+ * is decided by {@link FileStorage}. Implementations are selected with {@code file.storage.type}.
+ * <p>
+ * Parts are objects of resumable uploads that grow by chunks until they are moved to their final key.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams content to an object, replacing it. A partly written object is never visible
+     *
+     * @param size length of the content, -1 if unknown
+     */
+    void put(String key, InputStream content, long size) throws IOException;
+
+    Optional<StoredObject> get(String key) throws IOException;
+
+    /**
+     * First bytes of the object, all of them if it is shorter. Only these bytes are transferred
+     *
+     * @throws NoSuchFileException if there is no such object
+     */
+    byte[] readStart(String key, int length) throws IOException;
+
+    /**
+     * URL the client can read the object from without the backend, empty if the store cannot give one
+     *
+     * @param contentDisposition Content-Disposition header the URL responds with
+     */
+    Optional<URI> getUrl(String key, String contentType, String contentDisposition);
+
+    /**
+     * Moves an object, replacing the target. Modification time of the target is renewed
+     */
+    void move(String from, String to) throws IOException;
+
+    /**
+     * @return whether the object existed
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Deletes the object unless it was written since the given time. A write that races with the delete is
+     * never lost: it is either seen and the object is kept, or it stays in place of the deleted one
+     *
+     * @return whether the checked object was deleted
+     */
+    boolean deleteIfModifiedBefore(String key, Instant time) throws IOException;
+
+    /**
+     * Keys under the prefix of objects not modified since the given time
+     */
+    List<String> listModifiedBefore(String prefix, Instant time) throws IOException;
+
+    void createPart(String id) throws IOException;
+
+    /**
+     * @throws NoSuchFileException if there is no such part
+     */
+    long getPartSize(String id) throws IOException;
+
+    /**
+     * Streams a chunk to the end of a part
+     *
+     * @param offset size of the part the chunk continues, the chunk is rejected with {@link ConflictException} otherwise
+     * @param limit  size the part must not exceed, the chunk is rejected with {@link BadRequestException} otherwise
+     * @return new size of the part
+     * @throws NoSuchFileException if there is no such part
+     */
+    long appendPart(String id, long offset, long limit, Resource chunk) throws IOException;
+
+    /**
+     * @throws NoSuchFileException if there is no such part
+     */
+    InputStream openPart(String id) throws IOException;
+
+    /**
+     * Moves a part to an object key, replacing the object. The part does not exist after that
+     *
+     * @throws NoSuchFileException if there is no such part
+     */
+    void movePart(String id, String key) throws IOException;
+
+    void deletePart(String id) throws IOException;
+
+    /**
+     * Object ready to be read. Size and modification time come from one stat
+     */
+    record StoredObject(Resource data, long size, Instant lastModified) {
+    }
+}
@@ -1,7 +1,20 @@
 package ru.itmo.is.storage;
 
 
+import jakarta.annotation.Nullable;
 import org.springframework.core.io.Resource;
 
-public record FileData(String name, Resource data) {
+import java.net.URI;
+import java.time.Instant;
+
+/**
+ * Stored file ready to be sent. Size and modification time come from one stat of the file,
+ * version identifies content and never changes for the same file.
+ * Url is set when the client can download the file from the storage directly
+ */
+public record FileData(String name, Resource data, long size, Instant lastModified, String version, @Nullable URI url) {
+
+    public FileData(String name, Resource data, long size, Instant lastModified, String version) {
+        this(name, data, size, lastModified, version, null);
+    }
 }
@@ -1,5 +1,6 @@
 package ru.itmo.is.storage;
 
+import jakarta.annotation.Nullable;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +13,19 @@ import ru.itmo.is.entity.bid.BidFile;
 public class FileRecord {
     String name;
     String key;
+    @Nullable
+    String contentHash;
 
     public FileRecord(BidFile file) {
         this.name = file.getName();
         this.key = file.getKey();
+        this.contentHash = file.getContentHash();
+    }
+
+    /**
+     * Identifies the content: its hash, or the key for files uploaded before content addressing
+     */
+    public String getVersion() {
+        return contentHash == null ? key : contentHash;
     }
 }
@@ -1,66 +1,307 @@
 package ru.itmo.is.storage;
 
 import org.apache.commons.lang3.RandomStringUtils;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import ru.itmo.is.exception.InternalServerErrorException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.storage.BlobStore.StoredObject;
 
-import java.io.File;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 
+/**
+ * Files are stored by SHA-256 of their content as {@code blobs/ab/cd/abcd...}, so the same scan uploaded
+ * to several bids takes storage space once. Every upload still gets its own random key, bid_file rows
+ * with the same content hash are references to one blob. Files uploaded before content addressing
+ * are stored by their key in the storage root and are read from there.
+ * <p>
+ * Resumable uploads are appended to a part of the {@link BlobStore} and the finished part is moved to its blob path,
+ * so their content is not written once more.
+ * <p>
+ * Previews are JPEG files stored by file version as {@code previews/ab/abcd...}, so uploads of the same content
+ * share one preview too. A version that cannot have a preview gets an empty {@code previews/ab/abcd....none}
+ * marker instead, so it is not tried again. A preview and a marker are deleted with their blob.
+ */
 @Component
 public class FileStorage {
-    private final static int MAX_KEY_GEN_ATTEMPTS = 10;
+    private static final int KEY_LENGTH = 16;
+    private static final String BLOB_DIR = "blobs";
+    private static final String TMP_DIR = "tmp";
+    private static final String PREVIEW_DIR = "previews";
+    private static final String PREVIEW_FORMAT = "jpg";
+    private static final String NO_PREVIEW_SUFFIX = ".none";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
 
-    private final String storageDir;
+    private final BlobStore blobStore;
 
-    public FileStorage(@Value("${file.storage.dir}") String storageDir) {
-        this.storageDir = storageDir;
+    public FileStorage(BlobStore blobStore) {
+        this.blobStore = blobStore;
     }
 
+    /**
+     * Hashes content while streaming it to a temporary object, then moves the object to its blob path
+     */
     public FileRecord save(MultipartFile file) {
+        String tmp = TMP_DIR + "/" + generateKey();
         try {
-            Path dir = Paths.get(storageDir);
-            if (dir.toFile().exists()) {
-                dir.toFile().mkdirs();
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                blobStore.put(tmp, in, file.getSize());
             }
-            String key = generateKey();
-            Path newFile = dir.resolve(key);
-            file.transferTo(newFile);
-            return new FileRecord(file.getOriginalFilename(), key);
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            // If the blob already exists it is replaced by the same content, which also renews its modification
+            // time and so protects it from garbage collection until the new reference is saved
+            blobStore.move(tmp, blobKey(hash));
+            return new FileRecord(file.getOriginalFilename(), generateKey(), hash);
         } catch (IOException e) {
+            deleteQuietly(tmp);
             throw new InternalServerErrorException("Error while file saving", e);
         }
     }
 
+    /**
+     * Creates an empty part for a resumable upload
+     *
+     * @return upload id
+     */
+    public String createPart() {
+        String id = generateKey();
+        try {
+            blobStore.createPart(id);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file saving", e);
+        }
+        return id;
+    }
+
+    /**
+     * Number of bytes received by a resumable upload
+     */
+    public long getPartSize(String id) {
+        try {
+            return blobStore.getPartSize(id);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("Upload not found");
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file reading", e);
+        }
+    }
+
+    /**
+     * Streams a chunk to the end of a part. Offset must be equal to the current part size, so a retried
+     * chunk is not written twice
+     *
+     * @param limit size the part must not exceed, the whole chunk is rejected otherwise
+     * @return new size of the part
+     */
+    public long appendPart(String id, long offset, long limit, Resource chunk) {
+        try {
+            return blobStore.appendPart(id, offset, limit, chunk);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("Upload not found");
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file saving", e);
+        }
+    }
+
+    /**
+     * Hashes a received part and moves it to its blob path
+     */
+    public FileRecord savePart(String id, String name) {
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = blobStore.openPart(id)) {
+                byte[] buffer = new byte[HASH_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            blobStore.movePart(id, blobKey(hash));
+            return new FileRecord(name, generateKey(), hash);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("Upload not found");
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file saving", e);
+        }
+    }
+
+    public void deletePart(String id) {
+        try {
+            blobStore.deletePart(id);
+        } catch (IOException ignored) {
+            // Left to garbage collection
+        }
+    }
+
     public FileData get(FileRecord fr) {
-        Path path = Paths.get(storageDir, fr.getKey());
-        Resource resource = new FileSystemResource(path);
-        if (!resource.exists() || !resource.isReadable()) {
+        String key = key(fr);
+        StoredObject object = find(key).orElseThrow(() -> new NotFoundException("File not found"));
+        URI url = blobStore.getUrl(
+                key,
+                MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                ContentDisposition.attachment().filename(fr.getName(), StandardCharsets.UTF_8).build().toString()
+        ).orElse(null);
+        return new FileData(fr.getName(), object.data(), object.size(), object.lastModified(), fr.getVersion(), url);
+    }
+
+    /**
+     * First bytes of the file, enough to tell its format without downloading it
+     */
+    public byte[] readStart(FileRecord fr, int length) {
+        try {
+            return blobStore.readStart(key(fr), length);
+        } catch (NoSuchFileException e) {
             throw new NotFoundException("File not found");
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file reading", e);
         }
+    }
 
-        return new FileData(fr.getName(), resource);
+    public Optional<FileData> getPreview(FileRecord fr) {
+        String version = fr.getVersion();
+        String key = previewKey(version);
+        String name = StringUtils.stripFilenameExtension(fr.getName()) + "." + PREVIEW_FORMAT;
+        return find(key).map(object -> new FileData(
+                name,
+                object.data(),
+                object.size(),
+                object.lastModified(),
+                version,
+                blobStore.getUrl(
+                        key,
+                        MediaType.IMAGE_JPEG_VALUE,
+                        ContentDisposition.inline().filename(name, StandardCharsets.UTF_8).build().toString()
+                ).orElse(null)
+        ));
     }
 
-    private String generateKey() {
-        String key;
-        File newFile;
-        int counter = 0;
-        do {
-            key = RandomStringUtils.random(8, true, true);
-            newFile = new File(storageDir, key);
-            counter++;
-            if (counter > MAX_KEY_GEN_ATTEMPTS) {
-                throw new InternalServerErrorException("Cannot generate unique key for file");
+    public boolean hasPreview(String version) {
+        return find(previewKey(version)).isPresent();
+    }
+
+    public boolean isPreviewUnsupported(String version) {
+        return find(previewKey(version) + NO_PREVIEW_SUFFIX).isPresent();
+    }
+
+    /**
+     * Remembers that the version cannot have a preview: its format is not supported or it cannot be rendered
+     */
+    public void markPreviewUnsupported(String version) {
+        try {
+            blobStore.put(previewKey(version) + NO_PREVIEW_SUFFIX, InputStream.nullInputStream(), 0);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while preview saving", e);
+        }
+    }
+
+    /**
+     * Previews are small, so one is encoded in memory and stored with one request
+     */
+    public void savePreview(String version, BufferedImage image) {
+        try {
+            var out = new ByteArrayOutputStream();
+            if (!ImageIO.write(image, PREVIEW_FORMAT, out)) {
+                throw new IllegalStateException("No image writer for " + PREVIEW_FORMAT);
+            }
+            blobStore.put(previewKey(version), new ByteArrayInputStream(out.toByteArray()), out.size());
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while preview saving", e);
+        }
+    }
+
+    /**
+     * Hashes of blobs not modified since the given time, unfinished uploads older than it are deleted on the way
+     */
+    public List<String> getBlobsModifiedBefore(Instant time) {
+        try {
+            blobStore.listModifiedBefore(TMP_DIR + "/", time).forEach(this::deleteQuietly);
+            return blobStore.listModifiedBefore(BLOB_DIR + "/", time).stream()
+                    .map(key -> key.substring(key.lastIndexOf('/') + 1))
+                    .toList();
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Cannot list stored files", e);
+        }
+    }
+
+    /**
+     * Deletes a blob with its preview unless it was modified since the given time, that is uploaded again
+     *
+     * @return whether the blob was deleted
+     */
+    public boolean deleteBlob(String hash, Instant modifiedBefore) {
+        try {
+            if (!blobStore.deleteIfModifiedBefore(blobKey(hash), modifiedBefore)) {
+                return false;
             }
-        } while (newFile.exists() && !newFile.isFile());
-        return key;
+            blobStore.delete(previewKey(hash));
+            blobStore.delete(previewKey(hash) + NO_PREVIEW_SUFFIX);
+            return true;
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Cannot delete stored file", e);
+        }
+    }
+
+    private Optional<StoredObject> find(String key) {
+        try {
+            return blobStore.get(key);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Error while file reading", e);
+        }
+    }
+
+    private String key(FileRecord fr) {
+        return fr.getContentHash() == null ? fr.getKey() : blobKey(fr.getContentHash());
+    }
+
+    private String blobKey(String hash) {
+        return String.join("/", BLOB_DIR, hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+
+    private String previewKey(String version) {
+        return String.join("/", PREVIEW_DIR, version.substring(0, 2), version);
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            blobStore.delete(key);
+        } catch (IOException ignored) {
+            // Left to garbage collection
+        }
+    }
+
+    private String generateKey() {
+        // Keys are not checked for collisions: 62^16 values, and bid_file key is the primary key anyway
+        return RandomStringUtils.secure().nextAlphanumeric(KEY_LENGTH);
     }
 }
@@ -0,0 +1,241 @@
+package ru.itmo.is.storage;
+
+import jakarta.annotation.Nullable;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Objects are files under {@code file.storage.dir}, keys are their relative paths. Files are written
+ * to {@code tmp} first and moved in place, stale temporary files are deleted by garbage collection.
+ * Parts are files under {@code parts} appended in place, a chunk is written to disk once.
+ * <p>
+ * Directory must be shared by all instances, otherwise one instance does not see files uploaded to another.
+ */
+public class FilesystemBlobStore implements BlobStore {
+    private static final String TMP_DIR = "tmp";
+    private static final String PART_DIR = "parts";
+
+    private final Path root;
+
+    public FilesystemBlobStore(String storageDir) {
+        this.root = Paths.get(storageDir);
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve(TMP_DIR));
+        Path tmp = Files.createTempFile(tmpDir, "upload", null);
+        try {
+            Files.copy(content, tmp, StandardCopyOption.REPLACE_EXISTING);
+            moveFile(tmp, path(key));
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> get(String key) {
+        Path path = path(key);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+        if (!attributes.isRegularFile() || !Files.isReadable(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredObject(
+                new FileSystemResource(path),
+                attributes.size(),
+                attributes.lastModifiedTime().toInstant()
+        ));
+    }
+
+    @Override
+    public byte[] readStart(String key, int length) throws IOException {
+        try (InputStream in = Files.newInputStream(path(key))) {
+            return in.readNBytes(length);
+        }
+    }
+
+    /**
+     * Files are sent by the backend itself, with sendfile when possible
+     */
+    @Override
+    public Optional<URI> getUrl(String key, String contentType, String contentDisposition) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void move(String from, String to) throws IOException {
+        moveFile(path(from), path(to));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(path(key));
+    }
+
+    /**
+     * The file is renamed away first and checked afterwards. A file moved in place before the rename is renamed
+     * with it, found fresh and moved back, one moved in after the rename is not touched
+     */
+    @Override
+    public boolean deleteIfModifiedBefore(String key, Instant time) throws IOException {
+        Path path = path(key);
+        Path trash = Files.createDirectories(root.resolve(TMP_DIR)).resolve("deleted-" + UUID.randomUUID());
+        try {
+            Files.move(path, trash, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (modifiedBefore(trash, time)) {
+            Files.delete(trash);
+            return true;
+        }
+        // Whatever was moved in place meanwhile has the same content, so it may be replaced
+        Files.move(trash, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return false;
+    }
+
+    @Override
+    public List<String> listModifiedBefore(String prefix, Instant time) throws IOException {
+        Path dir = path(prefix);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(path -> modifiedBefore(path, time))
+                    .map(path -> root.relativize(path).toString().replace(File.separatorChar, '/'))
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void createPart(String id) throws IOException {
+        Files.createDirectories(root.resolve(PART_DIR));
+        Files.createFile(partPath(id));
+    }
+
+    @Override
+    public long getPartSize(String id) throws IOException {
+        return Files.size(partPath(id));
+    }
+
+    /**
+     * If the client disconnects, bytes received so far stay in the part file and the upload is resumed from them
+     */
+    @Override
+    public long appendPart(String id, long offset, long limit, Resource chunk) throws IOException {
+        try (FileChannel channel = FileChannel.open(partPath(id), StandardOpenOption.WRITE)) {
+            FileLock lock = tryLock(channel);
+            if (lock == null) {
+                throw new ConflictException("Another chunk of the upload is being written");
+            }
+            long size = channel.size();
+            if (offset != size) {
+                throw new ConflictException("Upload offset is " + size);
+            }
+
+            ReadableByteChannel source = chunk.readableChannel();
+            long position = offset;
+            long transferred;
+            // One byte over the limit is requested to find out that the chunk is too long
+            while (position <= limit && (transferred = channel.transferFrom(source, position, limit + 1 - position)) > 0) {
+                position += transferred;
+            }
+            if (position > limit) {
+                channel.truncate(offset);
+                throw new BadRequestException("Chunk exceeds declared file size");
+            }
+            return position;
+        }
+    }
+
+    @Override
+    public InputStream openPart(String id) throws IOException {
+        return Files.newInputStream(partPath(id));
+    }
+
+    @Override
+    public void movePart(String id, String key) throws IOException {
+        moveFile(partPath(id), path(key));
+    }
+
+    @Override
+    public void deletePart(String id) throws IOException {
+        Files.deleteIfExists(partPath(id));
+    }
+
+    private void moveFile(Path from, Path to) throws IOException {
+        Files.createDirectories(to.getParent());
+        // Rename keeps modification time of the source, a part may have got its last chunk long ago.
+        // The time is renewed before the rename, so the file is never in place with the old one
+        Files.setLastModifiedTime(from, FileTime.from(Instant.now()));
+        Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path path(String key) {
+        return root.resolve(key);
+    }
+
+    private Path partPath(String id) {
+        return root.resolve(PART_DIR).resolve(id);
+    }
+
+    @Nullable
+    private FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another request in this process
+            return null;
+        }
+    }
+
+    private boolean modifiedBefore(Path path, Instant time) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(time);
+        } catch (IOException e) {
+            // Deleted meanwhile
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Left to garbage collection
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package ru.itmo.is.storage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Objects are stored in an S3 compatible bucket (AWS, MinIO), so instances keep no files and can be
+ * added and removed freely. Content of known size shorter than a part is streamed with one request, longer
+ * content with multipart uploads holding one part in memory. Clients download files by presigned URLs
+ * straight from the bucket.
+ * <p>
+ * A part of a resumable upload is a sequence of chunk objects {@code parts/<id>/<offset>}. A chunk is uploaded
+ * whole or not at all, after a disconnect the upload is resumed from the last received chunk.
+ * When every chunk but the last is at least {@value #MIN_PART_SIZE} bytes, the finished part is assembled
+ * inside the bucket, otherwise it is streamed through the backend once more.
+ * <p>
+ * The bucket must have versioning enabled: a blob is deleted by the version that was checked, a version written
+ * after the check stays. Two writes of the same content have the same ETag, so only the version tells them apart.
+ */
+public class S3BlobStore implements BlobStore, AutoCloseable {
+    private static final Logger log = LogManager.getLogger(S3BlobStore.class);
+
+    // S3 rejects smaller parts of a multipart upload, except the last one
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final String PART_DIR = "parts";
+    private static final int DELETE_BATCH_SIZE = 1000;
+    // Version id of objects written while versioning of the bucket was suspended
+    private static final String NULL_VERSION = "null";
+
+    private final S3Client client;
+    private final S3Presigner presigner;
+    private final String bucket;
+    private final int partSize;
+    private final Duration urlExpiry;
+    private final AtomicBoolean versioningWarned = new AtomicBoolean();
+
+    public S3BlobStore(S3Client client, S3Presigner presigner, String bucket, int partSize, Duration urlExpiry) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.client = client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.urlExpiry = urlExpiry;
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        client.close();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size) throws IOException {
+        try {
+            upload(key, content, size);
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public Optional<StoredObject> get(String key) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new StoredObject(
+                    new ObjectResource(key, head.contentLength(), head.lastModified()),
+                    head.contentLength(),
+                    head.lastModified()
+            ));
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw failure(e);
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Ranged GET, an empty object answers any range with 416
+     */
+    @Override
+    public byte[] readStart(String key, int length) throws IOException {
+        try {
+            return client.getObjectAsBytes(request -> request
+                    .bucket(bucket)
+                    .key(key)
+                    .range("bytes=0-" + (length - 1))
+            ).asByteArray();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            if (e.statusCode() == 416) {
+                return new byte[0];
+            }
+            throw failure(e);
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * URL is signed locally without a request to the bucket. It carries its own content type and disposition,
+     * so the bucket answers it with the same headers as the backend would
+     */
+    @Override
+    public Optional<URI> getUrl(String key, String contentType, String contentDisposition) {
+        URI url;
+        try {
+            url = presigner.presignGetObject(request -> request
+                    .signatureDuration(urlExpiry)
+                    .getObjectRequest(get -> get
+                            .bucket(bucket)
+                            .key(key)
+                            .responseContentType(contentType)
+                            .responseContentDisposition(contentDisposition)))
+                    .url()
+                    .toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+        return Optional.of(url);
+    }
+
+    /**
+     * Object is copied inside the bucket, copy gets a new modification time
+     */
+    @Override
+    public void move(String from, String to) throws IOException {
+        try {
+            copy(from, to);
+            client.deleteObject(request -> request.bucket(bucket).key(from));
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * S3 deletes missing objects without an error, so the object is looked up first
+     */
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (get(key).isEmpty()) {
+            return false;
+        }
+        try {
+            client.deleteObject(request -> request.bucket(bucket).key(key));
+            return true;
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Deletes the checked version, a version written after the check becomes current and stays.
+     * Without versioning the check and the delete cannot be bound, and the object is kept
+     */
+    @Override
+    public boolean deleteIfModifiedBefore(String key, Instant time) throws IOException {
+        try {
+            HeadObjectResponse head = client.headObject(request -> request.bucket(bucket).key(key));
+            if (!head.lastModified().isBefore(time)) {
+                return false;
+            }
+            String versionId = head.versionId();
+            if (versionId == null || NULL_VERSION.equals(versionId)) {
+                if (!versioningWarned.getAndSet(true)) {
+                    log.warn("Bucket {} is not versioned, unused blobs are kept", bucket);
+                }
+                return false;
+            }
+            client.deleteObject(request -> request.bucket(bucket).key(key).versionId(versionId));
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw failure(e);
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public List<String> listModifiedBefore(String prefix, Instant time) throws IOException {
+        try {
+            return list(prefix).stream()
+                    .filter(object -> object.lastModified().isBefore(time))
+                    .map(S3Object::key)
+                    .toList();
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Part starts with an empty chunk, so an upload with no bytes received yet can be told from a missing one
+     */
+    @Override
+    public void createPart(String id) throws IOException {
+        try {
+            client.putObject(request -> request.bucket(bucket).key(chunkKey(id, 0)), RequestBody.empty());
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public long getPartSize(String id) throws IOException {
+        try {
+            return partSize(id, chunks(id));
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Chunks are not locked. If the same chunk is sent twice at once, the later one replaces the other,
+     * and the client learns the actual offset from the next request
+     */
+    @Override
+    public long appendPart(String id, long offset, long limit, Resource chunk) throws IOException {
+        try {
+            long size = partSize(id, chunks(id));
+            if (offset != size) {
+                throw new ConflictException("Upload offset is " + size);
+            }
+            try (InputStream in = new LimitedInputStream(chunk.getInputStream(), limit - offset)) {
+                return offset + upload(chunkKey(id, offset), in, -1);
+            }
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public InputStream openPart(String id) throws IOException {
+        try {
+            List<S3Object> chunks = chunks(id);
+            partSize(id, chunks);
+            Iterator<S3Object> iterator = chunks.iterator();
+            return new SequenceInputStream(new Enumeration<>() {
+                @Override
+                public boolean hasMoreElements() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    String key = iterator.next().key();
+                    return client.getObject(request -> request.bucket(bucket).key(key));
+                }
+            });
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void movePart(String id, String key) throws IOException {
+        try {
+            List<S3Object> chunks = chunks(id);
+            long size = partSize(id, chunks);
+            List<S3Object> filled = chunks.stream().filter(chunk -> chunk.size() > 0).toList();
+            if (filled.isEmpty()) {
+                client.putObject(request -> request.bucket(bucket).key(key), RequestBody.empty());
+            } else if (filled.size() == 1) {
+                copy(filled.get(0).key(), key);
+            } else if (filled.subList(0, filled.size() - 1).stream().allMatch(chunk -> chunk.size() >= MIN_PART_SIZE)) {
+                compose(filled, key);
+            } else {
+                try (InputStream in = openPart(id)) {
+                    upload(key, in, size);
+                }
+            }
+            delete(chunks);
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public void deletePart(String id) throws IOException {
+        try {
+            delete(chunks(id));
+        } catch (SdkException e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Content that fits one part is sent with one request, longer content as a multipart upload.
+     * Content of known size that fits is streamed without buffering. Otherwise the first part is read
+     * into a buffer growing with the content, so a full part is held in memory only for long content
+     *
+     * @param size length of the content, -1 if unknown
+     * @return number of uploaded bytes
+     */
+    private long upload(String key, InputStream content, long size) throws IOException {
+        if (size >= 0 && size < partSize) {
+            client.putObject(request -> request.bucket(bucket).key(key), RequestBody.fromInputStream(content, size));
+            return size;
+        }
+        byte[] buffer = content.readNBytes(partSize);
+        int length = buffer.length;
+        if (length < partSize) {
+            client.putObject(request -> request.bucket(bucket).key(key), body(buffer, length));
+            return length;
+        }
+
+        String uploadId = client.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            long uploaded = 0;
+            while (length > 0) {
+                int number = parts.size() + 1;
+                String eTag = client.uploadPart(
+                        request -> request.bucket(bucket).key(key).uploadId(uploadId).partNumber(number),
+                        body(buffer, length)
+                ).eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(eTag).build());
+                uploaded += length;
+                length = content.readNBytes(buffer, 0, partSize);
+            }
+            client.completeMultipartUpload(request -> request
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+            return uploaded;
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * Concatenates objects inside the bucket, every object but the last must be at least {@value #MIN_PART_SIZE} bytes
+     */
+    private void compose(List<S3Object> objects, String key) {
+        String uploadId = client.createMultipartUpload(request -> request.bucket(bucket).key(key)).uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            for (S3Object object : objects) {
+                int number = parts.size() + 1;
+                String eTag = client.uploadPartCopy(request -> request
+                        .sourceBucket(bucket).sourceKey(object.key())
+                        .destinationBucket(bucket).destinationKey(key)
+                        .uploadId(uploadId).partNumber(number)
+                ).copyPartResult().eTag();
+                parts.add(CompletedPart.builder().partNumber(number).eTag(eTag).build());
+            }
+            client.completeMultipartUpload(request -> request
+                    .bucket(bucket).key(key).uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts)));
+        } catch (RuntimeException e) {
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+        } catch (SdkException ignored) {
+            // Left to the bucket lifecycle rule
+        }
+    }
+
+    private void copy(String from, String to) {
+        client.copyObject(request -> request
+                .sourceBucket(bucket).sourceKey(from)
+                .destinationBucket(bucket).destinationKey(to));
+    }
+
+    private void delete(List<S3Object> objects) {
+        for (int from = 0; from < objects.size(); from += DELETE_BATCH_SIZE) {
+            List<ObjectIdentifier> batch = objects.subList(from, Math.min(from + DELETE_BATCH_SIZE, objects.size()))
+                    .stream()
+                    .map(object -> ObjectIdentifier.builder().key(object.key()).build())
+                    .toList();
+            client.deleteObjects(request -> request.bucket(bucket).delete(delete -> delete.objects(batch).quiet(true)));
+        }
+    }
+
+    private List<S3Object> list(String prefix) {
+        return client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix))
+                .contents()
+                .stream()
+                .toList();
+    }
+
+    /**
+     * Chunks in offset order, keys are listed in lexicographical order and offsets are zero padded
+     */
+    private List<S3Object> chunks(String id) {
+        return list(PART_DIR + "/" + id + "/");
+    }
+
+    private long partSize(String id, List<S3Object> chunks) throws NoSuchFileException {
+        if (chunks.isEmpty()) {
+            throw new NoSuchFileException(PART_DIR + "/" + id);
+        }
+        S3Object last = chunks.get(chunks.size() - 1);
+        return Long.parseLong(last.key().substring(last.key().lastIndexOf('/') + 1)) + last.size();
+    }
+
+    private String chunkKey(String id, long offset) {
+        return "%s/%s/%019d".formatted(PART_DIR, id, offset);
+    }
+
+    private RequestBody body(byte[] buffer, int length) {
+        return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length);
+    }
+
+    private IOException failure(SdkException e) {
+        return new IOException("Object storage request failed: " + e.getMessage(), e);
+    }
+
+    private class ObjectResource extends AbstractResource {
+        private final String key;
+        private final long size;
+        private final Instant lastModified;
+
+        ObjectResource(String key, long size, Instant lastModified) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return client.getObject(request -> request.bucket(bucket).key(key));
+            } catch (SdkException e) {
+                throw failure(e);
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified.toEpochMilli();
+        }
+    }
+
+    /**
+     * Fails as soon as more than the limit is read, before the excess is uploaded anywhere
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new BadRequestException("Chunk exceeds declared file size");
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import ru.itmo.is.entity.user.User;
+import ru.itmo.is.security.AccessPrincipal;
 import ru.itmo.is.security.RolesAllowed;
 import ru.itmo.is.security.Anonymous;
 import ru.itmo.is.security.JwtManager;
@@ -34,10 +35,9 @@ public class AuthInterceptor implements HandlerInterceptor {
         if (authHeader != null && authHeader.startsWith(AUTH_PREFIX)) {
             try {
                 String token = authHeader.split(" ")[1];
-                Optional<String> username = jwtManager.getLoginFromAccessToken(token);
-                Optional<User.Role> role = jwtManager.getRoleFromAccessToken(token);
+                Optional<AccessPrincipal> principal = jwtManager.getAccessPrincipal(token);
 
-                securityContext.setContext(username, role);
+                securityContext.setContext(principal.map(AccessPrincipal::login), principal.map(AccessPrincipal::role));
             } catch (Exception e) {
                 securityContext.setAnonymous();
             }
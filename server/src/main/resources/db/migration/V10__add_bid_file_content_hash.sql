@@ -0,0 +1,6 @@
+-- SHA-256 of file content. Files with a hash are stored once per content and shared by all
+-- uploads of it, a blob is deleted by the garbage collection job when no bid_file refers to it.
+-- Files uploaded before have no hash and stay stored by their key
+ALTER TABLE bid_file ADD COLUMN content_hash varchar;
+
+CREATE INDEX bid_file_content_hash ON bid_file USING BTREE (content_hash);
@@ -0,0 +1,12 @@
+-- Resumable uploads in progress. Received bytes are kept in the upload's part file, its size is the offset
+-- the next chunk starts from. The bid_file row is created when the upload is finished
+CREATE TABLE bid_file_upload (
+	id varchar PRIMARY KEY,
+	name varchar NOT NULL,
+	size bigint NOT NULL,
+	created timestamp NOT NULL,
+
+	CONSTRAINT non_negative_size CHECK (size >= 0)
+);
+
+CREATE INDEX bid_file_upload_created ON bid_file_upload USING BTREE (created);
@@ -0,0 +1,20 @@
+-- History of scheduled job runs. A run holds an advisory lock of its job while it is RUNNING, a RUNNING run
+-- whose lock is free belongs to a stopped instance and is resumed from its checkpoint by another one
+CREATE TABLE job_run (
+	id bigserial PRIMARY KEY,
+	job varchar NOT NULL,
+	node varchar NOT NULL,
+	status varchar NOT NULL, -- [RUNNING, SUCCEEDED, FAILED, INTERRUPTED]
+	started timestamp NOT NULL,
+	finished timestamp,
+	checkpoint varchar,
+	processed int NOT NULL DEFAULT 0,
+	error text
+);
+
+CREATE INDEX job_run_job_started ON job_run USING BTREE (job, started);
+
+-- Read notifications are deleted some time after they were created
+ALTER TABLE notification ADD COLUMN created timestamp NOT NULL DEFAULT now();
+
+CREATE INDEX notification_read_created ON notification USING BTREE (created) WHERE status = 'READ';
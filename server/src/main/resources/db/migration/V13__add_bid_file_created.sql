@@ -0,0 +1,5 @@
+-- Files detached from their bid or never attached to one are deleted by the garbage collection job
+-- some time after upload, so their blobs are collected too
+ALTER TABLE bid_file ADD COLUMN created timestamp NOT NULL DEFAULT now();
+
+CREATE INDEX bid_file_detached_created ON bid_file USING BTREE (created) WHERE bid_id IS NULL;
@@ -0,0 +1,4 @@
+-- Dormitory size is the sum of its room counters, read through the unique (dormitory_id, number) index.
+-- A stored total made every occupation, eviction and room change in a dormitory wait on one row
+ALTER TABLE dormitory DROP CONSTRAINT non_negative_dormitory_occupied;
+ALTER TABLE dormitory DROP COLUMN occupied;
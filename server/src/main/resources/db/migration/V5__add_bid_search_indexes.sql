@@ -0,0 +1,8 @@
+-- Creation time of bid, used for date range filtering
+ALTER TABLE bid
+ADD COLUMN created_at timestamp NOT NULL DEFAULT now();
+
+-- Keyset pagination by id inside status/sender/manager filters
+CREATE INDEX bid_status_id ON bid USING BTREE (status, id DESC);
+CREATE INDEX bid_sender_id ON bid USING BTREE (sender, id DESC);
+CREATE INDEX bid_manager_id ON bid USING BTREE (manager, id DESC);
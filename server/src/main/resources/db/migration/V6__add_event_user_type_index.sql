@@ -0,0 +1,2 @@
+-- Last event of given types for a resident (last payment, last IN/OUT) is a single index lookup
+CREATE INDEX event_usr_type_ts ON event USING BTREE (usr, type, timestamp DESC);
@@ -0,0 +1,28 @@
+-- Running payment state of every resident, so debt is read by primary key instead of replaying events.
+-- paid_until is the moment rent is settled up to (last payment or occupation), total_paid is the sum
+-- paid since the current occupation, room_cost is the cost of the room the resident lives in
+CREATE TABLE resident_ledger (
+	login varchar PRIMARY KEY,
+	room_cost int NOT NULL,
+	paid_until timestamp NOT NULL,
+	total_paid bigint NOT NULL DEFAULT 0,
+
+	CONSTRAINT fk_ledger_resident FOREIGN KEY (login) REFERENCES resident (login) ON DELETE CASCADE ON UPDATE CASCADE,
+	CONSTRAINT non_negative_total_paid CHECK (total_paid >= 0)
+);
+
+INSERT INTO resident_ledger (login, room_cost, paid_until, total_paid)
+SELECT r.login, rm.cost, last_payment.ts, COALESCE(paid.total, 0)
+FROM resident r
+JOIN room rm ON rm.id = r.room_id
+CROSS JOIN LATERAL (
+	SELECT MAX(e.timestamp) AS ts FROM event e
+	WHERE e.usr = r.login AND e.type IN ('PAYMENT', 'OCCUPATION')
+) last_payment
+LEFT JOIN LATERAL (
+	SELECT SUM(e.payment_sum) AS total FROM event e
+	WHERE e.usr = r.login AND e.type = 'PAYMENT' AND e.timestamp >= (
+		SELECT MAX(o.timestamp) FROM event o WHERE o.usr = r.login AND o.type = 'OCCUPATION'
+	)
+) paid ON true
+WHERE last_payment.ts IS NOT NULL;
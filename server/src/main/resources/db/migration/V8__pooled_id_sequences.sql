@@ -0,0 +1,8 @@
+-- Hibernate takes a block of 50 ids per nextval (pooled-lo), increments must match entity allocationSize.
+-- Plain nextval callers (column defaults) still get unique ids, they just use one id of their block
+ALTER SEQUENCE university_id_seq INCREMENT BY 50;
+ALTER SEQUENCE dormitory_id_seq INCREMENT BY 50;
+ALTER SEQUENCE room_id_seq INCREMENT BY 50;
+ALTER SEQUENCE bid_id_seq INCREMENT BY 50;
+ALTER SEQUENCE event_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notification_id_seq INCREMENT BY 50;
@@ -0,0 +1,16 @@
+-- Number of residents living in every room and dormitory, so free places and dormitory sizes
+-- are read from one row instead of counting residents. Kept in sync by the statements that
+-- insert, delete and move residents, checked by the occupancy consistency job
+ALTER TABLE room ADD COLUMN occupied int NOT NULL DEFAULT 0;
+ALTER TABLE dormitory ADD COLUMN occupied int NOT NULL DEFAULT 0;
+
+UPDATE room rm SET occupied = counted.residents
+FROM (SELECT room_id, COUNT(*) AS residents FROM resident GROUP BY room_id) counted
+WHERE rm.id = counted.room_id;
+
+UPDATE dormitory d SET occupied = counted.residents
+FROM (SELECT dormitory_id, SUM(occupied) AS residents FROM room GROUP BY dormitory_id) counted
+WHERE d.id = counted.dormitory_id;
+
+ALTER TABLE room ADD CONSTRAINT non_negative_room_occupied CHECK (occupied >= 0);
+ALTER TABLE dormitory ADD CONSTRAINT non_negative_dormitory_occupied CHECK (occupied >= 0);
@@ -16,6 +16,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import ru.itmo.is.util.JwtTestHelper;
+import ru.itmo.is.util.ResidentTestHelper;
 import ru.itmo.is.util.TestDataBuilder;
 
 /**
@@ -69,6 +70,9 @@ public abstract class AbstractIntegrationTest {
     @Autowired
     protected JwtTestHelper jwtHelper;
 
+    @Autowired
+    protected ResidentTestHelper residentHelper;
+
     @BeforeEach
     void setUp() {
         if (entityManager != null && entityManager.isOpen()) {
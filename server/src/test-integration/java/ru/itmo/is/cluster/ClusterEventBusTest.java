@@ -0,0 +1,115 @@
+package ru.itmo.is.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.AbstractIntegrationTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterEventBusTest extends AbstractIntegrationTest {
+    // Large ids, so the room allocator of this instance has nothing to drop
+    private static final String FIRST = "1000001";
+    private static final String SECOND = "1000002";
+
+    @Autowired
+    private ClusterEventBus eventBus;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private ClusterEventBus otherInstance;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void startOtherInstance() throws InterruptedException {
+        var listening = new CountDownLatch(1);
+        otherInstance = new ClusterEventBus(dataSourceProperties);
+        otherInstance.subscribe(Topic.ROOMS, received::add, listening::countDown);
+        otherInstance.start();
+        assertTrue(listening.await(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void stopOtherInstance() throws InterruptedException {
+        otherInstance.stop();
+    }
+
+    @Test
+    void testPublish_InCommittedTransaction_ShouldDeliverEachEventOnceAfterCommit() throws InterruptedException {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            eventBus.publish(Topic.ROOMS, FIRST);
+            eventBus.publish(Topic.ROOMS, List.of(FIRST, SECOND));
+            assertTrue(received.isEmpty());
+        });
+
+        // Then
+        assertEquals(FIRST, received.poll(5, TimeUnit.SECONDS));
+        assertEquals(SECOND, received.poll(5, TimeUnit.SECONDS));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testPublish_InRolledBackTransaction_ShouldDeliverNothing() throws InterruptedException {
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            eventBus.publish(Topic.ROOMS, FIRST);
+            status.setRollbackOnly();
+        });
+        eventBus.publish(Topic.ROOMS, SECOND);
+
+        // Then
+        assertEquals(SECOND, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testPublish_ShouldNotDeliverEventsBackToPublisher() throws InterruptedException {
+        // When
+        otherInstance.publish(Topic.ROOMS, FIRST);
+        eventBus.publish(Topic.ROOMS, SECOND);
+
+        // Then
+        assertEquals(SECOND, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testPublish_WhenPoolExhausted_ShouldStillDeliver() throws SQLException, InterruptedException {
+        // Given: the transaction gets the last pooled connection
+        List<Connection> taken = new ArrayList<>();
+        try {
+            for (int i = 0; i < 19; i++) {
+                taken.add(dataSource.getConnection());
+            }
+
+            // When
+            transactionTemplate.executeWithoutResult(status -> eventBus.publish(Topic.ROOMS, FIRST));
+
+            // Then
+            assertEquals(FIRST, received.poll(5, TimeUnit.SECONDS));
+        } finally {
+            for (Connection connection : taken) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ru.itmo.is.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.apache.catalina.Globals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.unit.DataSize;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.service.FileService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class FileControllerTest extends AbstractIntegrationTest {
+    private static final int SIZE = 100 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileService fileService;
+
+    private byte[] data;
+    private String hash;
+    private String key;
+
+    @BeforeEach
+    void uploadFile() throws NoSuchAlgorithmException {
+        data = new byte[SIZE];
+        new Random(42).nextBytes(data);
+        hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        key = fileService.upload(new MockMultipartFile("file", "скан.pdf", "application/pdf", data));
+    }
+
+    @Test
+    void testDownloadFile_ShouldReturnWholeFileWithValidators() throws Exception {
+        mockMvc.perform(get("/file/download/{key}", key))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, SIZE))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        containsString("filename*=UTF-8''%D1%81%D0%BA%D0%B0%D0%BD.pdf")))
+                .andExpect(content().bytes(data));
+    }
+
+    @Test
+    void testDownloadFile_WhenETagMatches_ShouldReturnNotModified() throws Exception {
+        mockMvc.perform(get("/file/download/{key}", key)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testDownloadFile_WithRange_ShouldReturnPartialContent() throws Exception {
+        mockMvc.perform(get("/file/download/{key}", key)
+                        .header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/" + SIZE))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(content().bytes(Arrays.copyOfRange(data, 1000, 2000)));
+    }
+
+    @Test
+    void testDownloadFile_WhenSendfileSupported_ShouldLeaveBodyToContainer() throws Exception {
+        MvcResult result = mockMvc.perform(get("/file/download/{key}", key)
+                        .requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, SIZE))
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+        String path = (String) result.getRequest().getAttribute(Globals.SENDFILE_FILENAME_ATTR);
+        assertTrue(path.endsWith(hash));
+        assertEquals(0L, result.getRequest().getAttribute(Globals.SENDFILE_FILE_START_ATTR));
+        assertEquals((long) SIZE, result.getRequest().getAttribute(Globals.SENDFILE_FILE_END_ATTR));
+    }
+
+    @Test
+    void testDownloadFile_WhenKeyUnknown_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/file/download/{key}", "unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testFileUpload_WithChunks_ShouldResumeAndMakeFileDownloadable() throws Exception {
+        String id = JsonPath.read(mockMvc.perform(post("/file/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"scan.pdf\", \"size\": " + SIZE + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(0))
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        appendChunk(id, 0, Arrays.copyOfRange(data, 0, 40000))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(40000));
+        mockMvc.perform(post("/file/uploads/{id}/finish", id))
+                .andExpect(status().isConflict());
+        appendChunk(id, 0, Arrays.copyOfRange(data, 0, 40000))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/file/uploads/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(40000))
+                .andExpect(jsonPath("$.size").value(SIZE));
+        appendChunk(id, 40000, Arrays.copyOfRange(data, 40000, SIZE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(SIZE));
+        String uploadedKey = JsonPath.read(mockMvc.perform(post("/file/uploads/{id}/finish", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), "$.data");
+
+        mockMvc.perform(get("/file/download/{key}", uploadedKey))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+                .andExpect(content().bytes(data));
+        mockMvc.perform(get("/file/uploads/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testFileUpload_WhenLargerThanLimit_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/file/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"scan.pdf\", \"size\": " + DataSize.ofGigabytes(1).toBytes() + "}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testPreviewFile_WithImage_ShouldReturnDownscaledJpegOnceReady() throws Exception {
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2048, 1024, BufferedImage.TYPE_INT_RGB), "png", out);
+        String imageKey = fileService.upload(new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray()));
+
+        MvcResult result = awaitPreview(imageKey);
+
+        assertEquals(MediaType.IMAGE_JPEG_VALUE, result.getResponse().getContentType());
+        BufferedImage preview = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(512, preview.getWidth());
+        assertEquals(256, preview.getHeight());
+    }
+
+    @Test
+    void testPreviewFile_WithUnsupportedFile_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/file/preview/{key}", key))
+                .andExpect(status().isNotFound());
+    }
+
+    private MvcResult awaitPreview(String key) throws Exception {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/file/preview/{key}", key)).andReturn();
+            if (result.getResponse().getStatus() == HttpStatus.OK.value()) {
+                return result;
+            }
+            assertTrue(Instant.now().isBefore(deadline), "No preview of " + key);
+            Thread.sleep(20);
+        }
+    }
+
+    private ResultActions appendChunk(String id, long offset, byte[] chunk) throws Exception {
+        return mockMvc.perform(patch("/file/uploads/{id}", id)
+                .param("offset", String.valueOf(offset))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(chunk));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.itmo.is.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.notification.Notification;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.notification.NotificationHub;
+import ru.itmo.is.repository.BidRepository;
+import ru.itmo.is.repository.NotificationRepository;
+import ru.itmo.is.repository.UserRepository;
+import ru.itmo.is.service.NotificationService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class NotificationControllerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationHub notificationHub;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private BidRepository bidRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testStreamNotifications_ShouldReplayUnreadAndPushNewOnes() throws Exception {
+        // Given
+        User sender = userRepository.save(testDataBuilder.user()
+                .withLogin("stream_sender")
+                .withRole(User.Role.NON_RESIDENT)
+                .build());
+        Bid bid = bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+        var unread = new Notification();
+        unread.setBid(bid);
+        unread.setReceiver(sender);
+        unread.setText("Unread before connect");
+        notificationRepository.save(unread);
+        flushAndClear();
+
+        // When
+        MvcResult result = mockMvc.perform(get("/notification/stream")
+                        .header("Authorization", jwtHelper.generateAuthHeader(sender))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        bid.setStatus(Bid.Status.DENIED);
+        notificationService.notifySenderAboutBidStatus(bid);
+
+        // Then
+        awaitContent(result, "Ваша заявка отклонена");
+        String content = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(content.contains("event:notification"));
+        assertTrue(content.contains("Unread before connect"));
+        assertTrue(content.indexOf("Unread before connect") < content.indexOf("Ваша заявка отклонена"));
+        assertEquals(1, notificationHub.connections());
+    }
+
+    @Test
+    void testStreamNotifications_WhenAnonymous_ShouldReturnUnauthorized() throws Exception {
+        mockMvc.perform(get("/notification/stream"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private void awaitContent(MvcResult result, String expected) throws Exception {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (!result.getResponse().getContentAsString(StandardCharsets.UTF_8).contains(expected)) {
+            assertTrue(Instant.now().isBefore(deadline), "No event with " + expected);
+            Thread.sleep(20);
+        }
+    }
+}
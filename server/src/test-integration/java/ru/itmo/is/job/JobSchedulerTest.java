@@ -0,0 +1,168 @@
+package ru.itmo.is.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.job.JobRun;
+import ru.itmo.is.repository.JobRunRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobSchedulerTest extends AbstractIntegrationTest {
+    private static final String JOB = "test-job";
+    private static final AtomicReference<Consumer<JobContext>> body = new AtomicReference<>();
+
+    @Autowired
+    private JobScheduler jobScheduler;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TestConfiguration
+    static class TestJobConfig {
+        @Bean
+        ClusterJob testJob() {
+            return new ClusterJob() {
+                @Override
+                public String name() {
+                    return JOB;
+                }
+
+                @Override
+                public String cron() {
+                    return "-";
+                }
+
+                @Override
+                public void run(JobContext context) {
+                    body.get().accept(context);
+                }
+            };
+        }
+    }
+
+    @AfterEach
+    void resetJob() {
+        body.set(null);
+    }
+
+    @Test
+    void testRun_ShouldRecordSucceededRunWithProgress() {
+        // Given
+        body.set(context -> {
+            context.checkpoint("first", 2);
+            context.checkpoint("second", 3);
+        });
+
+        // When
+        boolean ran = jobScheduler.run(JOB);
+
+        // Then
+        assertTrue(ran);
+        JobRun run = jobRunRepository.findFirstByJobOrderByIdDesc(JOB).orElseThrow();
+        assertEquals(JobRun.Status.SUCCEEDED, run.getStatus());
+        assertEquals("second", run.getCheckpoint());
+        assertEquals(5, run.getProcessed());
+        assertNotNull(run.getFinished());
+        assertNotNull(run.getNode());
+    }
+
+    @Test
+    void testRun_WhenLockHeldByAnotherInstance_ShouldSkip() throws SQLException {
+        // Given
+        body.set(context -> fail("Job must not run"));
+        long runs = jobRunRepository.count();
+
+        try (Connection other = dataSource.getConnection()) {
+            lock(other, "pg_advisory_lock");
+
+            // When
+            boolean ran = jobScheduler.run(JOB);
+
+            // Then
+            assertFalse(ran);
+            assertEquals(runs, jobRunRepository.count());
+            lock(other, "pg_advisory_unlock");
+        }
+    }
+
+    @Test
+    void testRecover_WhenRunInterrupted_ShouldContinueFromCheckpoint() {
+        // Given
+        var interrupted = new JobRun();
+        interrupted.setJob(JOB);
+        interrupted.setNode("stopped@instance");
+        interrupted.setCheckpoint("user050");
+        interrupted.setProcessed(50);
+        jobRunRepository.save(interrupted);
+        AtomicReference<String> resumedFrom = new AtomicReference<>();
+        body.set(context -> resumedFrom.set(context.getCheckpoint()));
+
+        // When
+        jobScheduler.recover();
+
+        // Then
+        assertEquals("user050", resumedFrom.get());
+        assertEquals(JobRun.Status.INTERRUPTED, jobRunRepository.findById(interrupted.getId()).orElseThrow().getStatus());
+        JobRun run = jobRunRepository.findFirstByJobOrderByIdDesc(JOB).orElseThrow();
+        assertNotEquals(interrupted.getId(), run.getId());
+        assertEquals(JobRun.Status.SUCCEEDED, run.getStatus());
+    }
+
+    @Test
+    void testRecover_WhenLastRunFinished_ShouldNotRun() {
+        // Given
+        body.set(context -> { });
+        jobScheduler.run(JOB);
+        body.set(context -> fail("Job must not run"));
+        long runs = jobRunRepository.count();
+
+        // When
+        jobScheduler.recover();
+
+        // Then
+        assertEquals(runs, jobRunRepository.count());
+    }
+
+    @Test
+    void testRun_WhenJobThrows_ShouldRecordFailedRun() {
+        // Given
+        body.set(context -> {
+            context.checkpoint("first", 1);
+            throw new IllegalStateException("broken");
+        });
+
+        // When
+        boolean ran = jobScheduler.run(JOB);
+
+        // Then
+        assertTrue(ran);
+        JobRun run = jobRunRepository.findFirstByJobOrderByIdDesc(JOB).orElseThrow();
+        assertEquals(JobRun.Status.FAILED, run.getStatus());
+        assertEquals(1, run.getProcessed());
+        assertTrue(run.getError().contains("broken"));
+    }
+
+    private void lock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + function + "(?, hashtext(?))"
+        )) {
+            statement.setInt(1, JobScheduler.LOCK_NAMESPACE);
+            statement.setString(2, JOB);
+            statement.execute();
+        }
+    }
+}
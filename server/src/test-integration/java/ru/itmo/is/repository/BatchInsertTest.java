@@ -0,0 +1,127 @@
+package ru.itmo.is.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.notification.Notification;
+import ru.itmo.is.entity.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of bulk inserts. With allocationSize 1 and no JDBC batching every row costs
+ * a sequence call and an insert, so 500 rows used to take 1000 statements.
+ */
+class BatchInsertTest extends AbstractIntegrationTest {
+    private static final int ROWS = 500;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private BidRepository bidRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testSaveAll_WithNotificationFanOut_ShouldBatchInsertsAndSequenceCalls() {
+        // Given
+        User sender = userRepository.save(testDataBuilder.user()
+                .withLogin("fanout_sender")
+                .withRole(User.Role.NON_RESIDENT)
+                .build());
+        Bid bid = bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+        List<User> managers = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            managers.add(testDataBuilder.user()
+                    .withLogin("fanout_manager_" + i)
+                    .withRole(User.Role.MANAGER)
+                    .build());
+        }
+        userRepository.saveAll(managers);
+        flushAndClear();
+
+        List<Notification> notifications = managers.stream().map(manager -> {
+            var notification = new Notification();
+            notification.setBid(bid);
+            notification.setReceiver(manager);
+            notification.setText("New bid");
+            return notification;
+        }).toList();
+        Statistics statistics = statistics();
+
+        // When
+        notificationRepository.saveAll(notifications);
+
+        // Then
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertTrue(
+                statistics.getPrepareStatementCount() <= 2L * ROWS / BATCH_SIZE + 2,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements"
+        );
+        assertUniqueIds(notifications.stream().map(Notification::getId).toList());
+    }
+
+    @Test
+    void testSaveAll_WithEventBurst_ShouldBatchInsertsAndSequenceCalls() {
+        // Given
+        User resident = userRepository.save(testDataBuilder.user()
+                .withLogin("burst_resident")
+                .withRole(User.Role.RESIDENT)
+                .build());
+        flushAndClear();
+
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            events.add(testDataBuilder.event()
+                    .withUser(resident)
+                    .withType(i % 2 == 0 ? Event.Type.OUT : Event.Type.IN)
+                    .withTimestamp(start.plusMinutes(i))
+                    .build());
+        }
+        Statistics statistics = statistics();
+
+        // When
+        eventRepository.saveAll(events);
+
+        // Then
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertTrue(
+                statistics.getPrepareStatementCount() <= 2L * ROWS / BATCH_SIZE + 2,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements"
+        );
+        assertUniqueIds(events.stream().map(Event::getId).toList());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private void assertUniqueIds(List<Long> ids) {
+        Set<Long> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        assertFalse(unique.contains(null));
+    }
+}
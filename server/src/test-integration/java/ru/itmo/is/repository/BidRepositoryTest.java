@@ -0,0 +1,247 @@
+package ru.itmo.is.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.dto.BidStatus;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.bid.BidFile;
+import ru.itmo.is.entity.bid.OccupationBid;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.service.BidService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidRepositoryTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private BidRepository bidRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private BidFileRepository bidFileRepository;
+
+    @Autowired
+    private BidService bidService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testSearch_ShouldPaginateByIdDescending() {
+        // Given
+        User sender = saveUser("search_sender1", User.Role.RESIDENT);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build()).getId());
+        }
+        flushAndClear();
+
+        // When
+        List<Bid> firstPage = search(sender.getLogin(), null, null, 2);
+        List<Bid> secondPage = search(sender.getLogin(), null, firstPage.getLast().getId(), 2);
+        List<Bid> lastPage = search(sender.getLogin(), null, secondPage.getLast().getId(), 2);
+
+        // Then
+        assertEquals(List.of(ids.get(4), ids.get(3)), firstPage.stream().map(Bid::getId).toList());
+        assertEquals(List.of(ids.get(2), ids.get(1)), secondPage.stream().map(Bid::getId).toList());
+        assertEquals(List.of(ids.get(0)), lastPage.stream().map(Bid::getId).toList());
+    }
+
+    @Test
+    void testSearch_ShouldApplyStatusAndManagerFilters() {
+        // Given
+        User sender = saveUser("search_sender2", User.Role.RESIDENT);
+        User manager = saveUser("search_manager2", User.Role.MANAGER);
+
+        Bid accepted = testDataBuilder.evictionBid()
+                .withSender(sender)
+                .withStatus(Bid.Status.ACCEPTED)
+                .build();
+        accepted.setManager(manager);
+        bidRepository.save(accepted);
+
+        Bid denied = testDataBuilder.evictionBid()
+                .withSender(sender)
+                .withStatus(Bid.Status.DENIED)
+                .build();
+        bidRepository.save(denied);
+
+        bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+        flushAndClear();
+
+        // When
+        List<Bid> archived = bidRepository.search(
+                List.of(Bid.Status.ACCEPTED, Bid.Status.DENIED), null, sender.getLogin(), null,
+                null, null, null, Limit.of(10)
+        );
+        List<Bid> managed = bidRepository.search(
+                List.of(Bid.Status.values()), Bid.Type.EVICTION, null, manager.getLogin(),
+                null, null, null, Limit.of(10)
+        );
+
+        // Then
+        assertEquals(2, archived.size());
+        assertEquals(1, managed.size());
+        assertEquals(accepted.getId(), managed.getFirst().getId());
+    }
+
+    @Test
+    void testSearch_ShouldApplyCreationDateRange() {
+        // Given
+        User sender = saveUser("search_sender3", User.Role.RESIDENT);
+
+        Bid oldBid = testDataBuilder.evictionBid().withSender(sender).build();
+        oldBid.setCreatedAt(LocalDateTime.now().minusDays(10));
+        bidRepository.save(oldBid);
+
+        Bid newBid = testDataBuilder.evictionBid().withSender(sender).build();
+        bidRepository.save(newBid);
+        flushAndClear();
+
+        // When
+        List<Bid> result = search(sender.getLogin(), LocalDateTime.now().minusDays(1), null, 10);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(newBid.getId(), result.getFirst().getId());
+    }
+
+    @Test
+    void testGetInProcessQueue_ShouldOrderOwnThenUnassignedThenOtherManagers() {
+        // Given
+        User sender = saveUser("queue_sender", User.Role.RESIDENT);
+        User me = saveUser("queue_me", User.Role.MANAGER);
+        User alice = saveUser("queue_alice", User.Role.MANAGER);
+        User bob = saveUser("queue_bob", User.Role.MANAGER);
+
+        Bid bobBid = saveInProcessBid(sender, bob);
+        Bid unassignedBid = saveInProcessBid(sender, null);
+        Bid myBid = saveInProcessBid(sender, me);
+        Bid aliceBid = saveInProcessBid(sender, alice);
+        Bid otherUnassignedBid = saveInProcessBid(sender, null);
+        bidRepository.save(testDataBuilder.evictionBid()
+                .withSender(sender)
+                .withStatus(Bid.Status.PENDING_REVISION)
+                .build());
+        flushAndClear();
+
+        // When
+        List<Bid> queue = bidRepository.getInProcessQueue(me.getLogin(), PageRequest.of(0, 10));
+        List<Bid> secondPage = bidRepository.getInProcessQueue(me.getLogin(), PageRequest.of(1, 2));
+
+        // Then
+        assertEquals(
+                List.of(myBid.getId(), unassignedBid.getId(), otherUnassignedBid.getId(), aliceBid.getId(), bobBid.getId()),
+                queue.stream().map(Bid::getId).toList()
+        );
+        assertEquals(
+                List.of(otherUnassignedBid.getId(), aliceBid.getId()),
+                secondPage.stream().map(Bid::getId).toList()
+        );
+    }
+
+    @Test
+    void testBidListMapping_ShouldUseConstantNumberOfStatements() {
+        // Given
+        savePendingOccupationBids("small", 3);
+        long smallListStatements = countStatements(() -> bidService.getPendingBids());
+        long smallPageStatements = countStatements(() -> bidService.searchBids(
+                List.of(BidStatus.PENDING_REVISION), null, null, null, null, null, null, 100
+        ));
+
+        // When
+        savePendingOccupationBids("large", 12);
+        long largeListStatements = countStatements(() -> bidService.getPendingBids());
+        long largePageStatements = countStatements(() -> bidService.searchBids(
+                List.of(BidStatus.PENDING_REVISION), null, null, null, null, null, null, 100
+        ));
+
+        // Then
+        assertEquals(15, bidService.getPendingBids().size());
+        assertEquals(smallListStatements, largeListStatements);
+        assertEquals(smallPageStatements, largePageStatements);
+    }
+
+    private long countStatements(Runnable action) {
+        flushAndClear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        // Single transaction mimics open session in view of real requests, so lazy loads are counted too
+        transactionTemplate.executeWithoutResult(status -> action.run());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void savePendingOccupationBids(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            User sender = saveUser(prefix + "_sender" + i, User.Role.NON_RESIDENT);
+
+            University university = universityRepository.save(testDataBuilder.university()
+                    .withName(prefix + " University " + i)
+                    .build());
+            Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                    .withAddress(prefix + " Dormitory " + i)
+                    .addUniversity(university)
+                    .build());
+
+            OccupationBid bid = bidRepository.save(testDataBuilder.occupationBid()
+                    .withSender(sender)
+                    .withUniversity(university)
+                    .withDormitory(dormitory)
+                    .withStatus(Bid.Status.PENDING_REVISION)
+                    .build());
+
+            BidFile file = new BidFile();
+            file.setKey(prefix + "_file" + i);
+            file.setName("passport.pdf");
+            file.setBid(bid);
+            bidFileRepository.save(file);
+        }
+    }
+
+    private List<Bid> search(String sender, LocalDateTime createdFrom, Long cursor, int limit) {
+        return bidRepository.search(
+                List.of(Bid.Status.values()), null, sender, null, createdFrom, null, cursor, Limit.of(limit)
+        );
+    }
+
+    private Bid saveInProcessBid(User sender, User manager) {
+        Bid bid = testDataBuilder.evictionBid()
+                .withSender(sender)
+                .withStatus(Bid.Status.IN_PROCESS)
+                .build();
+        bid.setManager(manager);
+        return bidRepository.save(bid);
+    }
+
+    private User saveUser(String login, User.Role role) {
+        User user = testDataBuilder.user()
+                .withLogin(login)
+                .withRole(role)
+                .build();
+        return userRepository.save(user);
+    }
+}
@@ -1,5 +1,8 @@
 package ru.itmo.is.repository;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import ru.itmo.is.AbstractIntegrationTest;
@@ -10,7 +13,10 @@ import ru.itmo.is.entity.dorm.University;
 import ru.itmo.is.entity.user.User;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,6 +40,9 @@ class EventRepositoryTest extends AbstractIntegrationTest {
     @Autowired
     private DormitoryRepository dormitoryRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     void testGetLastInOutEvent_WhenEventsExist_ShouldReturnLatest() {
         // Given
@@ -164,5 +173,53 @@ class EventRepositoryTest extends AbstractIntegrationTest {
         assertEquals(event2.getId(), result.get(1).getId());
         assertEquals(event1.getId(), result.get(2).getId());
     }
-}
 
+    @Test
+    void testGetLastPaymentOrOccupationTime_ShouldNotDependOnHistoryLength() {
+        // Given
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        User shortHistory = saveResidentWithPayments("short_history", 3, now);
+        User longHistory = saveResidentWithPayments("long_history", 500, now);
+        flushAndClear();
+
+        // When
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> statements = new ArrayList<>();
+        List<Long> loadedEntities = new ArrayList<>();
+        List<Optional<LocalDateTime>> results = new ArrayList<>();
+        for (User user : List.of(shortHistory, longHistory)) {
+            statistics.clear();
+            results.add(eventRepository.getLastPaymentOrOccupationTime(user.getLogin()));
+            statements.add(statistics.getPrepareStatementCount());
+            loadedEntities.add(statistics.getEntityLoadCount());
+        }
+
+        // Then
+        assertEquals(Optional.of(now), results.get(0));
+        assertEquals(Optional.of(now), results.get(1));
+        assertEquals(List.of(1L, 1L), statements);
+        assertEquals(List.of(0L, 0L), loadedEntities);
+        assertTrue(eventRepository.getLastPaymentOrOccupationTime("no_events").isEmpty());
+    }
+
+    private User saveResidentWithPayments(String login, int payments, LocalDateTime lastPayment) {
+        User user = userRepository.save(testDataBuilder.user()
+                .withLogin(login)
+                .withRole(User.Role.RESIDENT)
+                .build());
+        eventRepository.save(testDataBuilder.event()
+                .withUser(user)
+                .withType(Event.Type.OCCUPATION)
+                .withTimestamp(lastPayment.minusMonths(payments + 1L))
+                .build());
+        for (int i = payments - 1; i >= 0; i--) {
+            eventRepository.save(testDataBuilder.event()
+                    .withUser(user)
+                    .withType(Event.Type.PAYMENT)
+                    .withPaymentSum(1000)
+                    .withTimestamp(lastPayment.minusMonths(i))
+                    .build());
+        }
+        return user;
+    }
+}
@@ -2,12 +2,27 @@ package ru.itmo.is.repository;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.annotation.Transactional;
 import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.dorm.Dormitory;
 import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
 import ru.itmo.is.entity.user.Resident;
+import ru.itmo.is.entity.user.ResidentLedger;
 import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,6 +43,162 @@ class ResidentRepositoryTest extends AbstractIntegrationTest {
     @Autowired
     private DormitoryRepository dormitoryRepository;
 
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ResidentLedgerRepository ledgerRepository;
+
+    @Test
+    void testGetResidentSummaries_ShouldReturnLastEventsAndPaginateByLogin() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory().build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(305)
+                .withCapacity(3)
+                .withCost(1500)
+                .build());
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (String login : List.of("summary_c", "summary_a", "summary_b")) {
+            User user = userRepository.save(testDataBuilder.user()
+                    .withLogin(login)
+                    .withRole(User.Role.RESIDENT)
+                    .build());
+            residentRepository.userIsResidentNow(login, university.getId(), room.getId());
+            saveEvent(user, Event.Type.OCCUPATION, now.minusMonths(3));
+        }
+        User resident = userRepository.findById("summary_a").orElseThrow();
+        saveEvent(resident, Event.Type.PAYMENT, now.minusMonths(1));
+        saveEvent(resident, Event.Type.OUT, now.minusHours(5));
+        saveEvent(resident, Event.Type.IN, now.minusHours(2));
+        flushAndClear();
+
+        // When
+        List<ResidentSummary> firstPage = residentRepository.getResidentSummaries(null, Limit.of(2));
+        List<ResidentSummary> secondPage = residentRepository.getResidentSummaries("summary_b", Limit.of(2));
+
+        // Then
+        assertEquals(List.of("summary_a", "summary_b"), firstPage.stream().map(ResidentSummary::getLogin).toList());
+        assertEquals(List.of("summary_c"), secondPage.stream().map(ResidentSummary::getLogin).toList());
+
+        ResidentSummary summary = firstPage.getFirst();
+        assertEquals(university.getId(), summary.getUniversityId());
+        assertEquals(dormitory.getId(), summary.getDormitoryId());
+        assertEquals(305, summary.getRoomNumber());
+        assertEquals(1500, summary.getRoomCost());
+        assertEquals(now.minusMonths(1), summary.getLastPaymentTime());
+        assertEquals(now.minusHours(2), summary.getLastInOutTime());
+
+        assertEquals(now.minusMonths(3), firstPage.get(1).getLastPaymentTime());
+        assertNull(firstPage.get(1).getLastInOutTime());
+    }
+
+    @Test
+    @Transactional
+    void testStreamEvictionCandidates_ShouldPickFirstMatchingReason() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory().build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(410)
+                .withCapacity(10)
+                .build());
+
+        LocalDate today = LocalDate.now();
+        LocalDateTime noon = today.atTime(12, 0);
+
+        User debtor = residentHelper.saveResident("evict_debtor", university, room);
+        saveEvent(debtor, Event.Type.OCCUPATION, noon.minusMonths(8));
+        saveEvent(debtor, Event.Type.OUT, noon.minusDays(10));
+
+        User paidByLedger = residentHelper.saveResident("evict_ledger", university, room);
+        saveEvent(paidByLedger, Event.Type.OCCUPATION, noon.minusMonths(8));
+        ResidentLedger ledger = new ResidentLedger();
+        ledger.setLogin("evict_ledger");
+        ledger.setRoomCost(room.getCost());
+        ledger.setPaidUntil(noon.minusMonths(1));
+        ledgerRepository.save(ledger);
+
+        User absent = residentHelper.saveResident("evict_absent", university, room);
+        saveEvent(absent, Event.Type.OCCUPATION, noon.minusMonths(1));
+        saveEvent(absent, Event.Type.OUT, today.minusDays(10).atTime(3, 0));
+
+        User returned = residentHelper.saveResident("evict_returned", university, room);
+        saveEvent(returned, Event.Type.OCCUPATION, noon.minusMonths(1));
+        saveEvent(returned, Event.Type.OUT, noon.minusDays(10));
+        saveEvent(returned, Event.Type.IN, noon.minusDays(9));
+
+        User nightOwl = residentHelper.saveResident("evict_night", university, room);
+        saveEvent(nightOwl, Event.Type.OCCUPATION, noon.minusMonths(1));
+        saveEvent(nightOwl, Event.Type.IN, today.minusDays(1).atTime(3, 0));
+
+        User formerResident = userRepository.save(testDataBuilder.user()
+                .withLogin("evict_former")
+                .withRole(User.Role.NON_RESIDENT)
+                .build());
+        saveEvent(formerResident, Event.Type.OCCUPATION, noon.minusYears(2));
+        flushAndClear();
+
+        // When
+        Map<String, String> reasons;
+        try (Stream<EvictionCandidate> candidates = residentRepository.streamEvictionCandidates(
+                today, LocalDateTime.now().minusDays(7))) {
+            reasons = candidates.collect(Collectors.toMap(
+                    EvictionCandidate::getLogin, EvictionCandidate::getReason, (a, b) -> a, LinkedHashMap::new
+            ));
+        }
+
+        // Then
+        assertEquals(List.of("evict_absent", "evict_debtor", "evict_night"), List.copyOf(reasons.keySet()));
+        assertEquals("NON_PAYMENT", reasons.get("evict_debtor"));
+        assertEquals("NON_RESIDENCE", reasons.get("evict_absent"));
+        assertEquals("RULE_VIOLATION", reasons.get("evict_night"));
+    }
+
+    @Test
+    @Transactional
+    void testStreamEvictionCandidates_WhenPaidAtMonthEnd_ShouldCountMonthsLikePeriod() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory().build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(411)
+                .withCapacity(10)
+                .build());
+        LocalDate today = LocalDate.of(2025, 2, 28);
+
+        // Six months and 28 days, adding seven months to July 31 would already reach February 28
+        User monthEnd = residentHelper.saveResident("evict_month_end", university, room);
+        saveEvent(monthEnd, Event.Type.OCCUPATION, LocalDate.of(2024, 7, 31).atTime(12, 0));
+
+        User sevenMonths = residentHelper.saveResident("evict_seven_months", university, room);
+        saveEvent(sevenMonths, Event.Type.OCCUPATION, LocalDate.of(2024, 7, 28).atTime(12, 0));
+        flushAndClear();
+
+        // When
+        List<String> logins;
+        try (Stream<EvictionCandidate> candidates = residentRepository.streamEvictionCandidates(
+                today, today.minusDays(7).atStartOfDay())) {
+            logins = candidates.map(EvictionCandidate::getLogin).toList();
+        }
+
+        // Then
+        assertEquals(List.of("evict_seven_months"), logins);
+    }
+
+    private void saveEvent(User user, Event.Type type, LocalDateTime timestamp) {
+        eventRepository.save(testDataBuilder.event()
+                .withUser(user)
+                .withType(type)
+                .withTimestamp(timestamp)
+                .build());
+    }
+
     @Test
     void testUserIsResidentNow_ShouldInsertResidentRecord() {
         // Given
@@ -5,8 +5,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import ru.itmo.is.AbstractIntegrationTest;
 import ru.itmo.is.entity.dorm.Dormitory;
 import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.projection.RoomOccupancy;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +24,65 @@ class RoomRepositoryTest extends AbstractIntegrationTest {
     @Autowired
     private DormitoryRepository dormitoryRepository;
 
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ResidentRepository residentRepository;
+
+    @Test
+    void testGetOccupancyInDormitory_ShouldCountResidentsPerRoom() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Occupancy Dorm")
+                .build());
+        Dormitory otherDormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Other Dorm")
+                .build());
+
+        Room occupiedRoom = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(101)
+                .withType(Room.Type.BLOCK)
+                .withCapacity(2)
+                .withFloor(1)
+                .build());
+        Room emptyRoom = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(201)
+                .withType(Room.Type.AISLE)
+                .withCapacity(3)
+                .withFloor(2)
+                .build());
+        roomRepository.save(testDataBuilder.room()
+                .withDormitory(otherDormitory)
+                .withNumber(101)
+                .build());
+
+        for (String login : List.of("occupant1", "occupant2")) {
+            User user = userRepository.save(testDataBuilder.user().withLogin(login).build());
+            residentRepository.userIsResidentNow(user.getLogin(), university.getId(), occupiedRoom.getId());
+        }
+        flushAndClear();
+
+        // When
+        Map<Integer, RoomOccupancy> occupancy = roomRepository.getOccupancyInDormitory(dormitory.getId())
+                .stream()
+                .collect(Collectors.toMap(RoomOccupancy::getId, Function.identity()));
+
+        // Then
+        assertEquals(2, occupancy.size());
+        assertEquals(2, occupancy.get(occupiedRoom.getId()).getOccupied());
+        assertEquals(Room.Type.BLOCK, occupancy.get(occupiedRoom.getId()).getType());
+        assertEquals(0, occupancy.get(emptyRoom.getId()).getOccupied());
+        assertEquals(3, occupancy.get(emptyRoom.getId()).getCapacity());
+        assertEquals(2, occupancy.get(emptyRoom.getId()).getFloor());
+    }
+
     @Test
     void testGetByTypeAndDormitoryId_ShouldReturnRoomsOfType() {
         // Given
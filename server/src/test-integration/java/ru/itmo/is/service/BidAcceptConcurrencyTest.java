@@ -0,0 +1,261 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.allocation.AllocationPolicy;
+import ru.itmo.is.allocation.RoomAllocator;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.repository.*;
+import ru.itmo.is.security.SecurityContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidAcceptConcurrencyTest extends AbstractIntegrationTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BidService bidService;
+
+    @Autowired
+    private SecurityContext securityContext;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BidRepository bidRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private ClusterEventBus eventBus;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ResidentRepository residentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAcceptBid_FromManyThreads_ShouldNotOverfillRooms() throws Exception {
+        // Given
+        User manager = userRepository.save(testDataBuilder.user()
+                .withLogin("stress_manager")
+                .withRole(User.Role.MANAGER)
+                .build());
+
+        List<Room> rooms = new ArrayList<>();
+        List<Long> bidIds = new ArrayList<>();
+        for (int d = 0; d < 4; d++) {
+            University university = universityRepository.save(testDataBuilder.university()
+                    .withName("Stress University " + d)
+                    .build());
+            Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                    .withAddress("Stress Dormitory " + d)
+                    .addUniversity(university)
+                    .build());
+            rooms.add(saveRoom(dormitory, 1, Room.Type.BLOCK, 2));
+            rooms.add(saveRoom(dormitory, 2, Room.Type.BLOCK, 3));
+            rooms.add(saveRoom(dormitory, 3, Room.Type.AISLE, 2));
+
+            for (int i = 0; i < 12; i++) {
+                User sender = userRepository.save(testDataBuilder.user()
+                        .withLogin("stress_" + d + "_" + i)
+                        .withRole(User.Role.NON_RESIDENT)
+                        .build());
+                bidIds.add(bidRepository.save(testDataBuilder.occupationBid()
+                        .withSender(sender)
+                        .withUniversity(university)
+                        .withDormitory(dormitory)
+                        .build()).getId());
+            }
+        }
+        flushAndClear();
+        Collections.shuffle(bidIds);
+
+        // When
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(bidIds.stream().<Runnable>map(id -> () -> runAs(manager, () -> {
+            try {
+                bidService.acceptBid(id);
+                accepted.incrementAndGet();
+            } catch (BadRequestException e) {
+                rejected.incrementAndGet();
+            }
+        })).toList());
+
+        // Then
+        int places = rooms.stream().mapToInt(Room::getCapacity).sum();
+        for (Room room : rooms) {
+            assertTrue(
+                    countResidents(room) <= room.getCapacity(),
+                    "Room " + room.getId() + " is overfilled"
+            );
+        }
+        assertEquals(places, accepted.get());
+        assertEquals(bidIds.size() - places, rejected.get());
+        assertEquals(places, bidRepository.getByStatusIn(List.of(Bid.Status.ACCEPTED)).size());
+    }
+
+    @Test
+    void testAllocate_FromIndependentAllocators_ShouldSerializeOnRoomLock() throws Exception {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university()
+                .withName("Two Instances University")
+                .build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Two Instances Dormitory")
+                .addUniversity(university)
+                .build());
+        List<Room> rooms = List.of(
+                saveRoom(dormitory, 1, Room.Type.BLOCK, 3),
+                saveRoom(dormitory, 2, Room.Type.BLOCK, 3)
+        );
+        List<String> logins = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            logins.add(userRepository.save(testDataBuilder.user().withLogin("instance_" + i).build()).getLogin());
+        }
+        flushAndClear();
+
+        // Separate allocators do not see each other's places, like two application instances
+        List<RoomAllocator> instances = List.of(
+                new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST),
+                new RoomAllocator(roomRepository, eventBus, AllocationPolicy.SPREAD)
+        );
+
+        // When
+        AtomicInteger occupied = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < logins.size(); i++) {
+            RoomAllocator allocator = instances.get(i % instances.size());
+            String login = logins.get(i);
+            tasks.add(() -> transactionTemplate.executeWithoutResult(status ->
+                    allocator.allocate(dormitory.getId(), Room.Type.BLOCK).ifPresent(room -> {
+                        residentRepository.userIsResidentNow(login, university.getId(), room.getId());
+                        occupied.incrementAndGet();
+                    })
+            ));
+        }
+        runConcurrently(tasks);
+
+        // Then
+        for (Room room : rooms) {
+            assertEquals(room.getCapacity(), countResidents(room));
+        }
+        assertEquals(6, occupied.get());
+    }
+
+    @Test
+    void testAcceptBid_WhenResidentsSwapRooms_ShouldNotDeadlock() throws Exception {
+        // Given
+        User manager = userRepository.save(testDataBuilder.user()
+                .withLogin("swap_manager")
+                .withRole(User.Role.MANAGER)
+                .build());
+        University university = universityRepository.save(testDataBuilder.university()
+                .withName("Swap University")
+                .build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Swap Dormitory")
+                .addUniversity(university)
+                .build());
+
+        List<Room> rooms = new ArrayList<>();
+        List<Long> bidIds = new ArrayList<>();
+        for (int pair = 0; pair < 8; pair++) {
+            Room first = saveRoom(dormitory, 2 * pair + 1, Room.Type.BLOCK, 2);
+            Room second = saveRoom(dormitory, 2 * pair + 2, Room.Type.BLOCK, 2);
+            rooms.add(first);
+            rooms.add(second);
+            bidIds.add(saveRoomChangeBid("swap_" + pair + "_a", university, first, second));
+            bidIds.add(saveRoomChangeBid("swap_" + pair + "_b", university, second, first));
+        }
+        flushAndClear();
+
+        // When
+        runConcurrently(bidIds.stream().<Runnable>map(id -> () -> runAs(manager, () -> bidService.acceptBid(id)))
+                .toList());
+
+        // Then
+        for (Room room : rooms) {
+            assertEquals(1, countResidents(room));
+            assertEquals(1, roomRepository.getOccupied(room.getId()));
+        }
+        assertEquals(bidIds.size(), bidRepository.getByStatusIn(List.of(Bid.Status.ACCEPTED)).size());
+    }
+
+    private long saveRoomChangeBid(String login, University university, Room from, Room to) {
+        User sender = residentHelper.saveResident(login, university, from);
+        return bidRepository.save(testDataBuilder.roomChangeBid()
+                .withSender(sender)
+                .withRoomTo(to)
+                .build()).getId();
+    }
+
+    private int countResidents(Room room) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resident WHERE room_id = ?", Integer.class, room.getId());
+    }
+
+    private Room saveRoom(Dormitory dormitory, int number, Room.Type type, int capacity) {
+        return roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(number)
+                .withType(type)
+                .withCapacity(capacity)
+                .build());
+    }
+
+    private void runAs(User user, Runnable action) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            securityContext.setContext(Optional.of(user.getLogin()), Optional.of(user.getRole()));
+            action.run();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private void runConcurrently(List<Runnable> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = tasks.stream().<Future<?>>map(executor::submit).toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
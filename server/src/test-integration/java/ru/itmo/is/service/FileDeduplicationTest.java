@@ -0,0 +1,112 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.bid.BidFile;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.BidFileRepository;
+import ru.itmo.is.repository.BidRepository;
+import ru.itmo.is.repository.UserRepository;
+import ru.itmo.is.storage.FileData;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "file.gc.grace=0s")
+class FileDeduplicationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private BidFileRepository bidFileRepository;
+
+    @Autowired
+    private BidRepository bidRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testUpload_WithSameScanForTwoBids_ShouldShareBlobUntilLastReferenceIsGone() throws Exception {
+        // Given
+        byte[] scan = "passport scan".getBytes(StandardCharsets.UTF_8);
+        User sender = userRepository.save(testDataBuilder.user()
+                .withLogin("dedup_sender")
+                .withRole(User.Role.NON_RESIDENT)
+                .build());
+        Bid first = bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+        Bid second = bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+
+        // When
+        String firstKey = fileService.upload(new MockMultipartFile("file", "passport.pdf", "application/pdf", scan));
+        String secondKey = fileService.upload(new MockMultipartFile("file", "passport.pdf", "application/pdf", scan));
+        attach(firstKey, first);
+        attach(secondKey, second);
+        flushAndClear();
+
+        // Then
+        assertNotEquals(firstKey, secondKey);
+        FileData firstFile = fileService.get(firstKey);
+        FileData secondFile = fileService.get(secondKey);
+        assertEquals(firstFile.version(), secondFile.version());
+        Path blob = firstFile.data().getFile().toPath();
+        assertEquals(blob, secondFile.data().getFile().toPath());
+
+        // When
+        bidRepository.deleteById(first.getId());
+        flushAndClear();
+
+        // Then
+        fileService.collectGarbage();
+        assertArrayEquals(scan, fileService.get(secondKey).data().getContentAsByteArray());
+
+        // When
+        bidRepository.deleteById(second.getId());
+        flushAndClear();
+
+        // Then
+        assertTrue(fileService.collectGarbage() >= 1);
+        assertFalse(Files.exists(blob));
+    }
+
+    @Test
+    void testCollectGarbage_WhenFileDetachedFromBid_ShouldDeleteFileAndBlob() throws Exception {
+        // Given
+        User sender = userRepository.save(testDataBuilder.user()
+                .withLogin("detached_sender")
+                .withRole(User.Role.NON_RESIDENT)
+                .build());
+        Bid bid = bidRepository.save(testDataBuilder.evictionBid().withSender(sender).build());
+        String key = fileService.upload(new MockMultipartFile(
+                "file", "old.pdf", "application/pdf", "replaced scan".getBytes(StandardCharsets.UTF_8)
+        ));
+        attach(key, bid);
+        Path blob = fileService.get(key).data().getFile().toPath();
+
+        // When
+        BidFile file = bidFileRepository.findById(key).orElseThrow();
+        file.setBid(null);
+        bidFileRepository.save(file);
+        flushAndClear();
+
+        // Then
+        assertEquals(1, fileService.deleteDetachedFiles());
+        assertTrue(fileService.collectGarbage() >= 1);
+        assertFalse(bidFileRepository.existsById(key));
+        assertFalse(Files.exists(blob));
+    }
+
+    private void attach(String key, Bid bid) {
+        BidFile file = bidFileRepository.findById(key).orElseThrow();
+        file.setBid(bid);
+        bidFileRepository.save(file);
+    }
+}
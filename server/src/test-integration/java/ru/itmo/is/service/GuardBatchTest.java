@@ -0,0 +1,100 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.dto.GuardBatchRequest;
+import ru.itmo.is.dto.GuardBatchResult;
+import ru.itmo.is.dto.GuardEventRequest;
+import ru.itmo.is.dto.GuardEventType;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.repository.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuardBatchTest extends AbstractIntegrationTest {
+    private static final int RESIDENTS = 300;
+
+    @Autowired
+    private GuardService guardService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ResidentRepository residentRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Test
+    void testBatch_WithShiftChangeBurst_ShouldStoreEveryAlternatingEvent() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Turnstile Dorm")
+                .addUniversity(university)
+                .build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withCapacity(RESIDENTS)
+                .build());
+        for (int i = 0; i < RESIDENTS; i++) {
+            userRepository.save(testDataBuilder.user()
+                    .withLogin("turnstile_" + i)
+                    .withRole(User.Role.RESIDENT)
+                    .build());
+            residentRepository.userIsResidentNow("turnstile_" + i, university.getId(), room.getId());
+        }
+        flushAndClear();
+
+        LocalDateTime start = LocalDateTime.now().minusMinutes(30);
+        List<GuardEventRequest> events = new ArrayList<>();
+        for (int i = 0; i < RESIDENTS; i++) {
+            events.add(guardEvent("turnstile_" + i, GuardEventType.OUT, start.plusSeconds(i)));
+            events.add(guardEvent("turnstile_" + i, GuardEventType.IN, start.plusMinutes(10).plusSeconds(i)));
+        }
+        events.add(guardEvent("turnstile_0", GuardEventType.IN, start.plusMinutes(20)));
+        events.add(guardEvent("turnstile_unknown", GuardEventType.IN, start.plusMinutes(20)));
+
+        // When
+        List<GuardBatchResult> results = guardService.batch(new GuardBatchRequest(events));
+
+        // Then
+        assertEquals(events.size(), results.size());
+        assertEquals(2 * RESIDENTS, results.stream().filter(GuardBatchResult::getSuccess).count());
+        assertEquals("Last guard event was the same", results.get(2 * RESIDENTS).getError());
+        assertEquals("Resident not found", results.get(2 * RESIDENTS + 1).getError());
+
+        List<Event> history = eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
+                List.of(Event.Type.IN, Event.Type.OUT), "turnstile_7"
+        );
+        assertEquals(List.of(Event.Type.IN, Event.Type.OUT), history.stream().map(Event::getType).toList());
+        assertThrows(BadRequestException.class, () -> guardService.entry("turnstile_7"));
+        assertDoesNotThrow(() -> guardService.exit("turnstile_7"));
+    }
+
+    private GuardEventRequest guardEvent(String login, GuardEventType type, LocalDateTime timestamp) {
+        var event = new GuardEventRequest(login, type);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -0,0 +1,211 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.Resident;
+import ru.itmo.is.entity.user.ResidentLedger;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private ResidentLedgerRepository ledgerRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ResidentRepository residentRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testReconcile_WhenLedgerDiffersFromEvents_ShouldRestoreItFromEvents() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Ledger Dorm")
+                .addUniversity(university)
+                .build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(101)
+                .withCost(1500)
+                .build());
+        LocalDateTime occupiedAt = LocalDateTime.now().minusMonths(5).truncatedTo(ChronoUnit.SECONDS);
+
+        User drifted = residentHelper.saveResident("ledger_drifted", university, room);
+        saveEvent(drifted, room, Event.Type.OCCUPATION, occupiedAt, null);
+        saveEvent(drifted, room, Event.Type.PAYMENT, occupiedAt.plusMonths(1), 1500);
+        saveEvent(drifted, room, Event.Type.PAYMENT, occupiedAt.plusMonths(2), 1500);
+        saveLedger("ledger_drifted", 1500, occupiedAt, 0);
+
+        User missing = residentHelper.saveResident("ledger_missing", university, room);
+        saveEvent(missing, room, Event.Type.OCCUPATION, occupiedAt, null);
+
+        User consistent = residentHelper.saveResident("ledger_ok", university, room);
+        saveEvent(consistent, room, Event.Type.OCCUPATION, occupiedAt, null);
+        saveLedger("ledger_ok", 1500, occupiedAt, 0);
+
+        saveLedger("ledger_stale", 1500, occupiedAt, 0);
+        flushAndClear();
+
+        // When
+        int fixed = ledgerService.reconcile();
+
+        // Then
+        assertEquals(3, fixed);
+
+        ResidentLedger restored = ledgerRepository.findById("ledger_drifted").orElseThrow();
+        assertEquals(occupiedAt.plusMonths(2), restored.getPaidUntil());
+        assertEquals(3000, restored.getTotalPaid());
+        assertEquals(1500, restored.getRoomCost());
+
+        ResidentLedger created = ledgerRepository.findById("ledger_missing").orElseThrow();
+        assertEquals(occupiedAt, created.getPaidUntil());
+        assertEquals(0, created.getTotalPaid());
+
+        assertFalse(ledgerRepository.existsById("ledger_stale"));
+        assertEquals(0, ledgerService.reconcile());
+    }
+
+    @Test
+    void testReconcile_ShouldCountOnlyPaymentsOfCurrentOccupation() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Returning Dorm")
+                .addUniversity(university)
+                .build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(202)
+                .withCost(900)
+                .build());
+        LocalDateTime firstOccupation = LocalDateTime.now().minusYears(2).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime secondOccupation = LocalDateTime.now().minusMonths(1).truncatedTo(ChronoUnit.SECONDS);
+
+        User resident = residentHelper.saveResident("ledger_returning", university, room);
+        saveEvent(resident, room, Event.Type.OCCUPATION, firstOccupation, null);
+        saveEvent(resident, room, Event.Type.PAYMENT, firstOccupation.plusMonths(1), 900);
+        saveEvent(resident, null, Event.Type.EVICTION, firstOccupation.plusMonths(6), null);
+        saveEvent(resident, room, Event.Type.OCCUPATION, secondOccupation, null);
+        flushAndClear();
+
+        // When
+        ledgerService.reconcile();
+
+        // Then
+        ResidentLedger ledger = ledgerRepository.findById("ledger_returning").orElseThrow();
+        assertEquals(secondOccupation, ledger.getPaidUntil());
+        assertEquals(0, ledger.getTotalPaid());
+        assertEquals(900, ledger.getRoomCost());
+    }
+
+    @Test
+    void testReconcile_WhenPaymentIsInProgress_ShouldNotOverwriteIt() throws Exception {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Paying Dorm")
+                .addUniversity(university)
+                .build());
+        Room room = roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(303)
+                .withCost(1200)
+                .build());
+        LocalDateTime occupiedAt = LocalDateTime.now().minusMonths(2).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime paidAt = occupiedAt.plusMonths(1);
+
+        User user = residentHelper.saveResident("ledger_paying", university, room);
+        saveEvent(user, room, Event.Type.OCCUPATION, occupiedAt, null);
+        // Drifted, so reconciliation has something to write
+        saveLedger("ledger_paying", 1200, occupiedAt, 500);
+        flushAndClear();
+
+        // When
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> payment = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    ledgerService.lock("ledger_paying");
+                    locked.countDown();
+                    sleep();
+                    Resident resident = residentRepository.findById("ledger_paying").orElseThrow();
+                    var event = testDataBuilder.event()
+                            .withType(Event.Type.PAYMENT)
+                            .withUser(user)
+                            .withRoom(room)
+                            .withTimestamp(paidAt)
+                            .withPaymentSum(1200)
+                            .build();
+                    eventRepository.save(event);
+                    ledgerService.recordPayment(resident, event);
+                })
+        );
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        ledgerService.reconcile();
+        payment.get(10, TimeUnit.SECONDS);
+
+        // Then
+        ResidentLedger ledger = ledgerRepository.findById("ledger_paying").orElseThrow();
+        assertEquals(paidAt, ledger.getPaidUntil());
+        assertEquals(1200, ledger.getTotalPaid());
+        assertEquals(0, ledgerService.reconcile());
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void saveEvent(User user, Room room, Event.Type type, LocalDateTime timestamp, Integer sum) {
+        eventRepository.save(testDataBuilder.event()
+                .withType(type)
+                .withUser(user)
+                .withRoom(room)
+                .withTimestamp(timestamp)
+                .withPaymentSum(sum)
+                .build());
+    }
+
+    private void saveLedger(String login, int roomCost, LocalDateTime paidUntil, long totalPaid) {
+        ResidentLedger ledger = new ResidentLedger();
+        ledger.setLogin(login);
+        ledger.setRoomCost(roomCost);
+        ledger.setPaidUntil(paidUntil);
+        ledger.setTotalPaid(totalPaid);
+        ledgerRepository.save(ledger);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.repository.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private ResidentRepository residentRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testResidentStatements_ShouldKeepRoomAndDormitoryCountersInSync() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = saveDormitory("Counter Dorm", university);
+        Dormitory otherDormitory = saveDormitory("Other Counter Dorm", university);
+        Room room = saveRoom(dormitory, 101);
+        Room neighbourRoom = saveRoom(dormitory, 102);
+        Room otherRoom = saveRoom(otherDormitory, 101);
+
+        // When
+        residentHelper.saveResident("counter_1", university, room);
+        residentHelper.saveResident("counter_2", university, room);
+        residentRepository.moveToRoom("counter_1", neighbourRoom.getId());
+        residentRepository.moveToRoom("counter_2", otherRoom.getId());
+        residentHelper.saveResident("counter_3", university, room);
+        residentRepository.userIsNotResidentAnyMore("counter_3");
+        flushAndClear();
+
+        // Then
+        assertEquals(0, roomRepository.getOccupied(room.getId()));
+        assertEquals(1, roomRepository.getOccupied(neighbourRoom.getId()));
+        assertEquals(1, roomRepository.getOccupied(otherRoom.getId()));
+        assertEquals(1, dormitoryRepository.getOccupied(dormitory.getId()));
+        assertEquals(1, dormitoryRepository.getOccupied(otherDormitory.getId()));
+        assertEquals(0, occupancyService.reconcile());
+    }
+
+    @Test
+    void testReconcile_WhenCountersDrifted_ShouldRecountThem() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        Dormitory dormitory = saveDormitory("Drift Dorm", university);
+        Room room = saveRoom(dormitory, 101);
+        Room emptyRoom = saveRoom(dormitory, 102);
+        residentHelper.saveResident("drift_1", university, room);
+        residentHelper.saveResident("drift_2", university, room);
+        flushAndClear();
+        // Resident row removed bypassing the counters
+        jdbcTemplate.update("DELETE FROM resident WHERE login = 'drift_2'");
+        jdbcTemplate.update("UPDATE room SET occupied = 3 WHERE id = ?", emptyRoom.getId());
+
+        // When
+        int fixed = occupancyService.reconcile();
+
+        // Then
+        assertEquals(2, fixed);
+        assertEquals(1, roomRepository.getOccupied(room.getId()));
+        assertEquals(0, roomRepository.getOccupied(emptyRoom.getId()));
+        assertEquals(1, dormitoryRepository.getOccupied(dormitory.getId()));
+        assertEquals(0, occupancyService.reconcile());
+    }
+
+    private Dormitory saveDormitory(String address, University university) {
+        return dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress(address)
+                .addUniversity(university)
+                .build());
+    }
+
+    private Room saveRoom(Dormitory dormitory, int number) {
+        return roomRepository.save(testDataBuilder.room()
+                .withDormitory(dormitory)
+                .withNumber(number)
+                .withCapacity(3)
+                .build());
+    }
+}
@@ -0,0 +1,100 @@
+package ru.itmo.is.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import ru.itmo.is.AbstractIntegrationTest;
+import ru.itmo.is.cache.ReferenceCache;
+import ru.itmo.is.dto.DormitoryRequest;
+import ru.itmo.is.dto.DormitoryResponse;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.repository.DormitoryRepository;
+import ru.itmo.is.repository.UniversityRepository;
+import ru.itmo.is.storage.FileData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "spring.cache.type=caffeine")
+class ReferenceCacheTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private DormitoryService dormitoryService;
+
+    @Autowired
+    private DormitoryRepository dormitoryRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testGetAllDormitories_ShouldServeRepeatedReadsFromCacheUntilChanged() {
+        // Given
+        University university = universityRepository.save(testDataBuilder.university().build());
+        dormitoryRepository.save(testDataBuilder.dormitory()
+                .withAddress("Cached Dorm")
+                .addUniversity(university)
+                .build());
+        flushAndClear();
+        dormitoryService.getAllDormitories();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        List<DormitoryResponse> cached = dormitoryService.getAllDormitories();
+
+        // Then
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of("Cached Dorm"), cached.stream().map(DormitoryResponse::getAddress).toList());
+        assertTrue(hits(ReferenceCache.DORMITORIES) >= 1);
+
+        // When
+        var request = new DormitoryRequest();
+        request.setAddress("New Dorm");
+        request.setUniversityIds(List.of(university.getId()));
+        dormitoryService.addDormitory(request);
+
+        // Then
+        assertEquals(
+                List.of("Cached Dorm", "New Dorm"),
+                dormitoryService.getAllDormitories().stream().map(DormitoryResponse::getAddress).toList()
+        );
+    }
+
+    @Test
+    void testGetFile_ShouldReadFileRecordOnce() {
+        // Given
+        String key = fileService.upload(new MockMultipartFile("file", "scan.pdf", "application/pdf", new byte[]{1, 2, 3}));
+        fileService.get(key);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        FileData file = fileService.get(key);
+
+        // Then
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("scan.pdf", file.name());
+        assertEquals(3, file.size());
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,310 @@
+package ru.itmo.is.storage;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
+import ru.itmo.is.storage.BlobStore.StoredObject;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.BucketVersioningStatus;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * S3 object storage against MinIO. Part size is the minimum S3 allows, so a few megabytes make multipart uploads
+ */
+@Testcontainers
+class S3BlobStoreTest {
+    private static final String BUCKET = "files";
+    private static final int PART_SIZE = S3BlobStore.MIN_PART_SIZE;
+
+    @Container
+    static final MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-12-18T13-15-44Z");
+
+    private static S3Client client;
+    private static S3Presigner presigner;
+    private static S3BlobStore blobStore;
+
+    @BeforeAll
+    static void createBucket() {
+        var credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())
+        );
+        S3Configuration pathStyle = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        client = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .build();
+        presigner = S3Presigner.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(credentials)
+                .serviceConfiguration(pathStyle)
+                .build();
+        client.createBucket(request -> request.bucket(BUCKET));
+        client.putBucketVersioning(request -> request
+                .bucket(BUCKET)
+                .versioningConfiguration(versioning -> versioning.status(BucketVersioningStatus.ENABLED)));
+        blobStore = new S3BlobStore(client, presigner, BUCKET, PART_SIZE, Duration.ofMinutes(1));
+    }
+
+    @AfterAll
+    static void closeStore() {
+        blobStore.close();
+    }
+
+    @Test
+    void testPut_WithContentLongerThanPart_ShouldUploadInPartsAndReadBack() throws IOException {
+        // Given
+        byte[] content = randomBytes(2 * PART_SIZE + 10);
+        String key = randomKey("blobs");
+
+        // When
+        blobStore.put(key, new ByteArrayInputStream(content), content.length);
+
+        // Then
+        StoredObject object = blobStore.get(key).orElseThrow();
+        assertEquals(content.length, object.size());
+        assertArrayEquals(content, read(object));
+    }
+
+    @Test
+    void testPut_WithShortContentOfUnknownSize_ShouldUploadWholeContent() throws IOException {
+        // Given
+        byte[] content = randomBytes(1000);
+        String key = randomKey("blobs");
+
+        // When
+        blobStore.put(key, new ByteArrayInputStream(content), -1);
+
+        // Then
+        StoredObject object = blobStore.get(key).orElseThrow();
+        assertEquals(content.length, object.size());
+        assertArrayEquals(content, read(object));
+    }
+
+    @Test
+    void testGet_WhenObjectNotExists_ShouldReturnEmpty() throws IOException {
+        assertTrue(blobStore.get(randomKey("blobs")).isEmpty());
+        assertFalse(blobStore.delete(randomKey("blobs")));
+    }
+
+    @Test
+    void testGetUrl_ShouldServeObjectWithGivenHeadersWithoutBackend() throws IOException, InterruptedException {
+        // Given
+        byte[] content = "scan".getBytes(StandardCharsets.UTF_8);
+        String key = randomKey("blobs");
+        blobStore.put(key, new ByteArrayInputStream(content), content.length);
+        String disposition = ContentDisposition.attachment()
+                .filename("паспорт.pdf", StandardCharsets.UTF_8)
+                .build()
+                .toString();
+
+        // When
+        URI url = blobStore.getUrl(key, "application/octet-stream", disposition).orElseThrow();
+
+        // Then
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(url).build(),
+                HttpResponse.BodyHandlers.ofByteArray()
+        );
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(content, response.body());
+        assertEquals(disposition, response.headers().firstValue(HttpHeaders.CONTENT_DISPOSITION).orElseThrow());
+    }
+
+    @Test
+    void testMove_ShouldReplaceTargetAndDeleteSource() throws IOException {
+        // Given
+        String from = randomKey("tmp");
+        String to = randomKey("blobs");
+        blobStore.put(from, new ByteArrayInputStream(new byte[]{1, 2}), 2);
+        blobStore.put(to, new ByteArrayInputStream(new byte[]{3}), 1);
+
+        // When
+        blobStore.move(from, to);
+
+        // Then
+        assertTrue(blobStore.get(from).isEmpty());
+        assertArrayEquals(new byte[]{1, 2}, read(blobStore.get(to).orElseThrow()));
+    }
+
+    @Test
+    void testListModifiedBefore_ShouldSkipFreshObjectsAndOtherPrefixes() throws IOException {
+        // Given
+        String prefix = randomKey("list") + "/";
+        blobStore.put(prefix + "first", new ByteArrayInputStream(new byte[]{1}), 1);
+        blobStore.put(prefix + "second", new ByteArrayInputStream(new byte[]{2}), 1);
+        blobStore.put(randomKey("list"), new ByteArrayInputStream(new byte[]{3}), 1);
+
+        // When
+        List<String> old = blobStore.listModifiedBefore(prefix, Instant.now().minus(Duration.ofDays(1)));
+        List<String> all = blobStore.listModifiedBefore(prefix, Instant.now().plus(Duration.ofMinutes(1)));
+
+        // Then
+        assertEquals(List.of(), old);
+        assertEquals(List.of(prefix + "first", prefix + "second"), all);
+    }
+
+    @Test
+    void testDeleteIfModifiedBefore_WhenNotWrittenSince_ShouldDeleteObject() throws IOException {
+        // Given
+        String key = randomKey("blobs");
+        blobStore.put(key, new ByteArrayInputStream(randomBytes(100)), 100);
+
+        // When
+        boolean fresh = blobStore.deleteIfModifiedBefore(key, Instant.now().minus(Duration.ofHours(1)));
+        boolean old = blobStore.deleteIfModifiedBefore(key, Instant.now().plus(Duration.ofMinutes(1)));
+
+        // Then
+        assertFalse(fresh);
+        assertTrue(old);
+        assertTrue(blobStore.get(key).isEmpty());
+    }
+
+    @Test
+    void testDeleteIfModifiedBefore_WhenWrittenAgainAfterCheck_ShouldKeepNewVersion() throws IOException {
+        // Given
+        byte[] content = randomBytes(100);
+        String key = randomKey("blobs");
+        blobStore.put(key, new ByteArrayInputStream(content), content.length);
+        // Upload of the same content lands right after the store has checked the object
+        S3Client racingClient = (S3Client) Proxy.newProxyInstance(
+                S3Client.class.getClassLoader(),
+                new Class<?>[]{S3Client.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(client, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("headObject")) {
+                        client.putObject(request -> request.bucket(BUCKET).key(key), RequestBody.fromBytes(content));
+                    }
+                    return result;
+                }
+        );
+        // Not closed, it shares the client with the main store
+        S3BlobStore racingStore = new S3BlobStore(racingClient, presigner, BUCKET, PART_SIZE, Duration.ofMinutes(1));
+
+        // When
+        boolean deleted = racingStore.deleteIfModifiedBefore(key, Instant.now().plus(Duration.ofMinutes(1)));
+
+        // Then
+        assertTrue(deleted);
+        assertArrayEquals(content, read(blobStore.get(key).orElseThrow()));
+    }
+
+    @Test
+    void testAppendPart_WithSmallChunks_ShouldResumeAndStreamPartToKey() throws IOException {
+        // Given
+        byte[] content = randomBytes(1000);
+        String id = RandomStringUtils.secure().nextAlphanumeric(16);
+        String key = randomKey("blobs");
+        blobStore.createPart(id);
+
+        // When
+        long afterFirst = blobStore.appendPart(id, 0, content.length, chunk(content, 0, 400));
+        assertThrows(ConflictException.class,
+                () -> blobStore.appendPart(id, 0, content.length, chunk(content, 0, 400)));
+        long afterSecond = blobStore.appendPart(id, afterFirst, content.length, chunk(content, 400, 1000));
+        blobStore.movePart(id, key);
+
+        // Then
+        assertEquals(400, afterFirst);
+        assertEquals(content.length, afterSecond);
+        assertArrayEquals(content, read(blobStore.get(key).orElseThrow()));
+        assertThrows(NoSuchFileException.class, () -> blobStore.getPartSize(id));
+    }
+
+    @Test
+    void testAppendPart_WhenChunkExceedsLimit_ShouldKeepReceivedChunks() throws IOException {
+        // Given
+        String id = RandomStringUtils.secure().nextAlphanumeric(16);
+        blobStore.createPart(id);
+        blobStore.appendPart(id, 0, 4, new ByteArrayResource(new byte[]{1, 2}));
+
+        // When
+        assertThrows(BadRequestException.class,
+                () -> blobStore.appendPart(id, 2, 4, new ByteArrayResource(new byte[]{3, 4, 5})));
+
+        // Then
+        assertEquals(2, blobStore.getPartSize(id));
+        blobStore.deletePart(id);
+        assertThrows(NoSuchFileException.class, () -> blobStore.getPartSize(id));
+    }
+
+    @Test
+    void testMovePart_WithChunksOfPartSize_ShouldComposePartInBucket() throws IOException {
+        // Given
+        byte[] content = randomBytes(PART_SIZE + 10);
+        String id = RandomStringUtils.secure().nextAlphanumeric(16);
+        String key = randomKey("blobs");
+        blobStore.createPart(id);
+        blobStore.appendPart(id, 0, content.length, chunk(content, 0, PART_SIZE));
+        blobStore.appendPart(id, PART_SIZE, content.length, chunk(content, PART_SIZE, content.length));
+
+        // When
+        try (InputStream in = blobStore.openPart(id)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        blobStore.movePart(id, key);
+
+        // Then
+        assertArrayEquals(content, read(blobStore.get(key).orElseThrow()));
+    }
+
+    private byte[] read(StoredObject object) throws IOException {
+        try (InputStream in = object.data().getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private ByteArrayResource chunk(byte[] content, int from, int to) {
+        return new ByteArrayResource(Arrays.copyOfRange(content, from, to));
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private String randomKey(String prefix) {
+        return prefix + "/" + RandomStringUtils.secure().nextAlphanumeric(16);
+    }
+}
@@ -22,6 +22,7 @@ public class DatabaseCleaner {
         truncateTable("bid_file");
         truncateTable("bid");
         truncateTable("event");
+        truncateTable("resident_ledger");
         truncateTable("resident");
         truncateTable("room");
         truncateTable("dormitory");
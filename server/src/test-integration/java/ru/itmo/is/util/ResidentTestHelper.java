@@ -0,0 +1,37 @@
+package ru.itmo.is.util;
+
+import org.springframework.stereotype.Component;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.entity.dorm.University;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.ResidentRepository;
+import ru.itmo.is.repository.UserRepository;
+
+@Component
+public class ResidentTestHelper {
+    private final TestDataBuilder testDataBuilder;
+    private final UserRepository userRepository;
+    private final ResidentRepository residentRepository;
+
+    public ResidentTestHelper(
+            TestDataBuilder testDataBuilder,
+            UserRepository userRepository,
+            ResidentRepository residentRepository
+    ) {
+        this.testDataBuilder = testDataBuilder;
+        this.userRepository = userRepository;
+        this.residentRepository = residentRepository;
+    }
+
+    /**
+     * Saves a user with the resident role living in the room, room counters are updated as on occupation
+     */
+    public User saveResident(String login, University university, Room room) {
+        User user = userRepository.save(testDataBuilder.user()
+                .withLogin(login)
+                .withRole(User.Role.RESIDENT)
+                .build());
+        residentRepository.userIsResidentNow(login, university.getId(), room.getId());
+        return user;
+    }
+}
@@ -0,0 +1,331 @@
+package ru.itmo.is.allocation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.entity.dorm.Dormitory;
+import ru.itmo.is.entity.dorm.Room;
+import ru.itmo.is.repository.RoomRepository;
+import ru.itmo.is.repository.projection.RoomOccupancy;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomAllocatorTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private ClusterEventBus eventBus;
+
+    private Dormitory dormitory;
+
+    @BeforeEach
+    void setUp() {
+        dormitory = new Dormitory();
+        dormitory.setId(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testAllocate_WithFillFirstPolicy_ShouldPreferPartiallyOccupiedRoom() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 3, 0),
+                occupancy(2, Room.Type.BLOCK, 2, 3, 2),
+                occupancy(3, Room.Type.BLOCK, 3, 3, 1)
+        );
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(3, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(3, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(1, allocatedId(allocator, Room.Type.BLOCK));
+    }
+
+    @Test
+    void testAllocate_WithSpreadPolicy_ShouldPreferRoomWithMostFreePlaces() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 3, 2),
+                occupancy(2, Room.Type.BLOCK, 2, 3, 0),
+                occupancy(3, Room.Type.BLOCK, 3, 3, 1)
+        );
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.SPREAD);
+
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(3, allocatedId(allocator, Room.Type.BLOCK));
+    }
+
+    @Test
+    void testAllocate_WithLowestFloorPolicy_ShouldPreferLowerFloor() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 3, 2, 0),
+                occupancy(2, Room.Type.BLOCK, 1, 2, 1),
+                occupancy(3, Room.Type.BLOCK, 2, 2, 0)
+        );
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.LOWEST_FLOOR);
+
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+        assertEquals(3, allocatedId(allocator, Room.Type.BLOCK));
+    }
+
+    @Test
+    void testAllocate_WhenNoFreePlaces_ShouldReturnEmpty() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 2, 2),
+                occupancy(2, Room.Type.AISLE, 1, 1, 0)
+        );
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertTrue(allocator.allocate(1, Room.Type.BLOCK).isEmpty());
+        assertEquals(2, allocatedId(allocator, Room.Type.AISLE));
+        assertTrue(allocator.allocate(1, Room.Type.AISLE).isEmpty());
+    }
+
+    @Test
+    void testAllocate_ShouldLoadDormitoryOnce() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 10, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        for (int i = 0; i < 5; i++) {
+            allocator.allocate(1, Room.Type.BLOCK);
+        }
+
+        verify(roomRepository, times(1)).getOccupancyInDormitory(1);
+    }
+
+    @Test
+    void testReserveAndRelease_ShouldTrackRoomOccupancy() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 1, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+        Room room = room(1);
+
+        assertTrue(allocator.isFree(room));
+        assertTrue(allocator.reserve(room));
+        assertFalse(allocator.isFree(room));
+        assertFalse(allocator.reserve(room));
+
+        allocator.release(room);
+
+        assertTrue(allocator.isFree(room));
+    }
+
+    @Test
+    void testAllocate_WhenTransactionRolledBack_ShouldReturnPlace() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 1, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(1, allocatedId(allocator, Room.Type.BLOCK));
+        assertFalse(allocator.isFree(room(1)));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(allocator.isFree(room(1)));
+    }
+
+    @Test
+    void testAllocate_WhenTransactionCommitted_ShouldKeepPlace() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 1, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+        TransactionSynchronizationManager.initSynchronization();
+
+        allocatedId(allocator, Room.Type.BLOCK);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertFalse(allocator.isFree(room(1)));
+    }
+
+    @Test
+    void testInvalidate_ShouldReloadDormitory() {
+        when(roomRepository.getOccupancyInDormitory(1))
+                .thenReturn(List.of(occupancy(1, Room.Type.BLOCK, 1, 1, 1)))
+                .thenReturn(List.of(occupancy(1, Room.Type.BLOCK, 1, 1, 1), occupancy(2, Room.Type.BLOCK, 1, 1, 0)));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertTrue(allocator.allocate(1, Room.Type.BLOCK).isEmpty());
+
+        allocator.invalidate(1);
+        givenFreeInDatabase();
+
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+    }
+
+    @Test
+    void testReserve_ShouldTellOtherInstancesAboutDormitory() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 1, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        allocator.reserve(room(1));
+
+        verify(eventBus).publish(Topic.ROOMS, "1");
+    }
+
+    @Test
+    void testRoomsEventFromAnotherInstance_ShouldReloadDormitory() {
+        when(roomRepository.getOccupancyInDormitory(1))
+                .thenReturn(List.of(occupancy(1, Room.Type.BLOCK, 1, 1, 1)))
+                .thenReturn(List.of(occupancy(1, Room.Type.BLOCK, 1, 1, 0)));
+        givenFreeInDatabase();
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.captor();
+        allocator.subscribe();
+        verify(eventBus).subscribe(eq(Topic.ROOMS), handler.capture(), any());
+        assertFalse(allocator.isFree(room(1)));
+
+        handler.getValue().accept("1");
+
+        assertTrue(allocator.isFree(room(1)));
+        verify(eventBus, never()).publish(any(), anyString());
+    }
+
+    @Test
+    void testAllocate_WhenRoomFilledByAnotherInstance_ShouldMarkItFullAndTakeNext() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 2, 1),
+                occupancy(2, Room.Type.BLOCK, 1, 2, 0)
+        );
+        when(roomRepository.getOccupied(1)).thenReturn(10);
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertEquals(2, allocatedId(allocator, Room.Type.BLOCK));
+        assertFalse(allocator.isFree(room(1)));
+        verify(roomRepository).lockById(1);
+        verify(roomRepository).lockById(2);
+    }
+
+    @Test
+    void testReserve_WhenRoomFilledByAnotherInstance_ShouldReturnFalse() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 2, 0));
+        when(roomRepository.getOccupied(1)).thenReturn(10);
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertFalse(allocator.reserve(room(1)));
+        assertFalse(allocator.isFree(room(1)));
+    }
+
+    @Test
+    void testAllocate_ShouldLockChosenRoom() {
+        givenRooms(occupancy(1, Room.Type.BLOCK, 1, 2, 0));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        allocatedId(allocator, Room.Type.BLOCK);
+
+        verify(roomRepository).lockById(1);
+        verify(roomRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void testReserveInsteadOf_ShouldLockBothRoomsBeforeTakingPlace() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 2, 1),
+                occupancy(2, Room.Type.BLOCK, 1, 2, 0)
+        );
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        assertTrue(allocator.reserveInsteadOf(room(2), room(1)));
+
+        InOrder inOrder = inOrder(roomRepository);
+        inOrder.verify(roomRepository).lockAllById(List.of(2, 1));
+        inOrder.verify(roomRepository).lockById(1);
+    }
+
+    @Test
+    void testAllocateInsteadOf_WhenRoomLockedByAnotherTransaction_ShouldSkipItAndKeepItFree() {
+        givenRooms(
+                occupancy(1, Room.Type.BLOCK, 1, 2, 1),
+                occupancy(2, Room.Type.BLOCK, 1, 2, 0),
+                occupancy(3, Room.Type.AISLE, 1, 2, 1)
+        );
+        when(roomRepository.lockByIdSkipLocked(1)).thenReturn(Optional.empty());
+        when(roomRepository.lockByIdSkipLocked(2)).thenReturn(Optional.of(room(2)));
+        RoomAllocator allocator = new RoomAllocator(roomRepository, eventBus, AllocationPolicy.FILL_FIRST);
+
+        Room allocated = allocator.allocateInsteadOf(room(3), Room.Type.BLOCK).orElseThrow();
+
+        assertEquals(2, allocated.getId());
+        assertTrue(allocator.isFree(room(1)));
+        InOrder inOrder = inOrder(roomRepository);
+        inOrder.verify(roomRepository).lockById(3);
+        inOrder.verify(roomRepository).lockByIdSkipLocked(1);
+        inOrder.verify(roomRepository).lockByIdSkipLocked(2);
+        verify(roomRepository, never()).lockById(1);
+    }
+
+    private int allocatedId(RoomAllocator allocator, Room.Type type) {
+        return allocator.allocate(1, type).orElseThrow().getId();
+    }
+
+    private void givenRooms(RoomOccupancy... rooms) {
+        when(roomRepository.getOccupancyInDormitory(1)).thenReturn(List.of(rooms));
+        givenFreeInDatabase();
+    }
+
+    private void givenFreeInDatabase() {
+        lenient().when(roomRepository.lockById(anyInt())).thenAnswer(inv -> Optional.of(room(inv.getArgument(0))));
+        lenient().when(roomRepository.getOccupied(anyInt())).thenReturn(0);
+    }
+
+    private Room room(int id) {
+        Room room = new Room();
+        room.setId(id);
+        room.setDormitory(dormitory);
+        room.setCapacity(10);
+        return room;
+    }
+
+    private RoomOccupancy occupancy(int id, Room.Type type, int floor, int capacity, int occupied) {
+        return new RoomOccupancy() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Room.Type getType() {
+                return type;
+            }
+
+            @Override
+            public int getFloor() {
+                return floor;
+            }
+
+            @Override
+            public int getCapacity() {
+                return capacity;
+            }
+
+            @Override
+            public int getOccupied() {
+                return occupied;
+            }
+        };
+    }
+}
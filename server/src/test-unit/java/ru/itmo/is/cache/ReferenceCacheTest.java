@@ -0,0 +1,32 @@
+package ru.itmo.is.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceCacheTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private ReferenceCache referenceCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(ReferenceCache.NAMES.toArray(String[]::new));
+        referenceCache = new ReferenceCache(cacheManager);
+        ReferenceCache.NAMES.forEach(name -> cacheManager.getCache(name).put(1, "cached"));
+    }
+
+    @Test
+    void testEvictOccupancy_ShouldClearRoomsAndDormitoriesOnly() {
+        referenceCache.evictOccupancy();
+
+        assertNull(cacheManager.getCache(ReferenceCache.ROOMS).get(1));
+        assertNull(cacheManager.getCache(ReferenceCache.ROOM).get(1));
+        assertNull(cacheManager.getCache(ReferenceCache.DORMITORIES).get(1));
+        assertNull(cacheManager.getCache(ReferenceCache.DORMITORY).get(1));
+        assertNotNull(cacheManager.getCache(ReferenceCache.UNIVERSITIES).get(1));
+        assertNotNull(cacheManager.getCache(ReferenceCache.UNIVERSITY).get(1));
+    }
+}
@@ -0,0 +1,131 @@
+package ru.itmo.is.guard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.entity.Event;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.repository.EventRepository;
+import ru.itmo.is.repository.ResidentRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GuardStateCacheTest {
+
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private ResidentRepository residentRepository;
+    @Mock
+    private ClusterEventBus eventBus;
+    @InjectMocks
+    private GuardStateCache stateCache;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testPass_ShouldLoadResidentOnceAndAlternateInMemory() {
+        LocalDateTime now = LocalDateTime.now();
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(event(Event.Type.OUT, now.minusHours(3))));
+
+        stateCache.pass("resident1", Event.Type.IN, now.minusHours(2));
+        stateCache.pass("resident1", Event.Type.OUT, now.minusHours(1));
+        GuardStateCache.LastPass previous = stateCache.pass("resident1", Event.Type.IN, now);
+
+        assertEquals(new GuardStateCache.LastPass(Event.Type.OUT, now.minusHours(1)), previous);
+        verify(eventRepository, times(1)).getLastInOutEvent("resident1");
+    }
+
+    @Test
+    void testPass_WhenSameTypeTwice_ShouldThrowBadRequestException() {
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.empty());
+        stateCache.pass("resident1", Event.Type.IN, LocalDateTime.now());
+
+        assertThrows(BadRequestException.class, () -> stateCache.pass("resident1", Event.Type.IN, LocalDateTime.now()));
+    }
+
+    @Test
+    void testPass_WhenOlderThanLastPass_ShouldThrowBadRequestException() {
+        LocalDateTime now = LocalDateTime.now();
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(event(Event.Type.IN, now)));
+
+        assertThrows(BadRequestException.class, () -> stateCache.pass("resident1", Event.Type.OUT, now.minusMinutes(1)));
+    }
+
+    @Test
+    void testPass_WhenNotResident_ShouldThrowNotFoundException() {
+        when(residentRepository.existsById("stranger")).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> stateCache.pass("stranger", Event.Type.IN, LocalDateTime.now()));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void testRevert_ShouldRestorePreviousPass() {
+        LocalDateTime now = LocalDateTime.now();
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(event(Event.Type.OUT, now.minusHours(1))));
+        GuardStateCache.LastPass previous = stateCache.pass("resident1", Event.Type.IN, now);
+
+        stateCache.revert("resident1", new GuardStateCache.LastPass(Event.Type.IN, now), previous);
+
+        assertDoesNotThrow(() -> stateCache.pass("resident1", Event.Type.IN, now));
+    }
+
+    @Test
+    void testForget_ShouldReloadOnNextPass() {
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.empty());
+        stateCache.pass("resident1", Event.Type.IN, LocalDateTime.now());
+
+        stateCache.forget("resident1");
+        stateCache.pass("resident1", Event.Type.IN, LocalDateTime.now());
+
+        verify(eventRepository, times(2)).getLastInOutEvent("resident1");
+    }
+
+    @Test
+    void testForgetAfterCompletion_ShouldKeepResidentUntilTransactionCompletes() {
+        when(residentRepository.existsById("resident1")).thenReturn(true);
+        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.empty());
+        TransactionSynchronizationManager.initSynchronization();
+
+        stateCache.forgetAfterCompletion("resident1");
+        // Pass at the same moment still sees the resident
+        stateCache.pass("resident1", Event.Type.IN, LocalDateTime.now());
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        when(residentRepository.existsById("resident1")).thenReturn(false);
+        assertThrows(NotFoundException.class, () -> stateCache.pass("resident1", Event.Type.OUT, LocalDateTime.now()));
+        verify(eventBus).publish(Topic.GUARD_PASSES, "resident1");
+    }
+
+    private Event event(Event.Type type, LocalDateTime timestamp) {
+        var event = new Event();
+        event.setType(type);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
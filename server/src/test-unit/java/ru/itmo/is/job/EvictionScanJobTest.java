@@ -0,0 +1,94 @@
+package ru.itmo.is.job;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.dto.EvictionReason;
+import ru.itmo.is.dto.ToEvictionResidentResponse;
+import ru.itmo.is.dto.UserResponse;
+import ru.itmo.is.service.NotificationService;
+import ru.itmo.is.service.UserService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EvictionScanJobTest {
+
+    @Mock
+    private UserService userService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private JobContext context;
+
+    private EvictionScanJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new EvictionScanJob(userService, notificationService, new TransactionTemplate(transactionManager), "-");
+    }
+
+    @Test
+    void testRun_WithMoreResidentsThanChunk_ShouldWarnInChunksByLogin() {
+        List<ToEvictionResidentResponse> residents = new ArrayList<>();
+        for (int i = EvictionScanJob.CHUNK_SIZE + 10; i > 0; i--) {
+            residents.add(resident(String.format("user%03d", i)));
+        }
+        when(userService.getResidentsToEviction()).thenReturn(residents);
+
+        job.run(context);
+
+        InOrder inOrder = inOrder(notificationService, context);
+        inOrder.verify(notificationService).warnAboutEviction(argThat(reasons ->
+                reasons.size() == EvictionScanJob.CHUNK_SIZE && reasons.containsKey("user001")
+        ));
+        inOrder.verify(context).checkpoint("user100", EvictionScanJob.CHUNK_SIZE);
+        inOrder.verify(notificationService).warnAboutEviction(argThat(reasons ->
+                reasons.size() == 10 && reasons.containsKey("user110")
+        ));
+        inOrder.verify(context).checkpoint("user110", 10);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testRun_WhenContinuingInterruptedRun_ShouldSkipWarnedResidents() {
+        when(context.getCheckpoint()).thenReturn("user2");
+        when(userService.getResidentsToEviction()).thenReturn(List.of(
+                resident("user3"), resident("user1"), resident("user2")
+        ));
+
+        job.run(context);
+
+        verify(notificationService).warnAboutEviction(Map.of("user3", EvictionReason.NON_PAYMENT));
+        verify(context).checkpoint("user3", 1);
+    }
+
+    @Test
+    void testRun_WhenNobodyToEvict_ShouldNotWarn() {
+        when(userService.getResidentsToEviction()).thenReturn(List.of());
+
+        job.run(context);
+
+        verify(notificationService, never()).warnAboutEviction(anyMap());
+        verifyNoInteractions(transactionManager);
+    }
+
+    private ToEvictionResidentResponse resident(String login) {
+        var user = new UserResponse();
+        user.setLogin(login);
+        return new ToEvictionResidentResponse(user, EvictionReason.NON_PAYMENT);
+    }
+}
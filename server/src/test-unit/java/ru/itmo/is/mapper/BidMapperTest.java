@@ -81,6 +81,20 @@ class BidMapperTest {
         }
     }
 
+    @Test
+    void testMapBidTypeToModel_ShouldMapAllTypes() {
+        for (var type : BidType.values()) {
+            assertEquals(Bid.Type.valueOf(type.name()), bidMapper.mapBidTypeToModel(type));
+        }
+    }
+
+    @Test
+    void testMapBidStatusToModel_ShouldMapAllStatuses() {
+        for (var status : BidStatus.values()) {
+            assertEquals(Bid.Status.valueOf(status.name()), bidMapper.mapBidStatusToModel(status));
+        }
+    }
+
     @Test
     void testMapBidToDto_WithEvictionBid_ShouldMapCorrectly() {
         when(userMapper.mapUserResponse(sender)).thenReturn(userResponse);
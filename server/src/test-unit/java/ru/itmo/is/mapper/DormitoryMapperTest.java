@@ -4,9 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.itmo.is.dto.DormitoryResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
-import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
-import ru.itmo.is.entity.user.Resident;
 
 import java.util.ArrayList;
 
@@ -16,8 +14,6 @@ class DormitoryMapperTest {
 
     private DormitoryMapper dormitoryMapper;
     private Dormitory dormitory;
-    private Room room1;
-    private Room room2;
 
     @BeforeEach
     void setUp() {
@@ -30,23 +26,8 @@ class DormitoryMapperTest {
         dormitory.setId(1);
         dormitory.setAddress("Test Address");
         dormitory.setUniversities(new ArrayList<>());
-        dormitory.setRooms(new ArrayList<>());
-
-        room1 = new Room();
-        room1.setResidents(new ArrayList<>());
-        Resident resident1 = new Resident();
-        resident1.setLogin("r1");
-        room1.getResidents().add(resident1);
-
-        room2 = new Room();
-        room2.setResidents(new ArrayList<>());
-        Resident resident2 = new Resident();
-        resident2.setLogin("r2");
-        room2.getResidents().add(resident2);
-
+        dormitory.setOccupied(2);
         dormitory.getUniversities().add(university);
-        dormitory.getRooms().add(room1);
-        dormitory.getRooms().add(room2);
     }
 
     @Test
@@ -75,24 +56,12 @@ class DormitoryMapperTest {
     }
 
     @Test
-    void testToResponse_WithNoResidents_ShouldReturnZero() {
-        room1.setResidents(new ArrayList<>());
-        room2.setResidents(new ArrayList<>());
+    void testToResponse_ShouldTakeResidentNumberFromCounterWithoutLoadingRooms() {
+        dormitory.setRooms(null);
+        dormitory.setOccupied(0);
 
         DormitoryResponse result = dormitoryMapper.toResponse(dormitory);
 
         assertEquals(0, result.getResidentNumber());
     }
-
-    @Test
-    void testToResponse_WithMultipleResidentsPerRoom_ShouldSumCorrectly() {
-        Resident resident3 = new Resident();
-        resident3.setLogin("r3");
-        room1.getResidents().add(resident3);
-
-        DormitoryResponse result = dormitoryMapper.toResponse(dormitory);
-
-        assertEquals(3, result.getResidentNumber());
-    }
 }
-
@@ -12,6 +12,8 @@ import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
 import ru.itmo.is.security.PasswordManager;
 
 import java.time.LocalDateTime;
@@ -138,46 +140,43 @@ class UserMapperTest {
 
     @Test
     void testToResidentResponse_ShouldMapCorrectly() {
-        when(universityMapper.toResponse(any(University.class))).thenReturn(universityResponse);
-        when(dormitoryMapper.toResponse(any(Dormitory.class))).thenReturn(dormitoryResponse);
-
         LocalDateTime lastCameOut = LocalDateTime.now();
-        ResidentResponse result = userMapper.toResidentResponse(resident, 100, lastCameOut);
+        ResidentSummary summary = mock(ResidentSummary.class);
+        when(summary.getLogin()).thenReturn("testuser");
+        when(summary.getName()).thenReturn("Test");
+        when(summary.getRoomNumber()).thenReturn(101);
+        when(summary.getLastInOutTime()).thenReturn(lastCameOut);
+
+        ResidentResponse result = userMapper.toResidentResponse(summary, universityResponse, dormitoryResponse, 100);
 
         assertNotNull(result);
         assertEquals("testuser", result.getLogin());
+        assertEquals("Test", result.getName());
+        assertEquals(UserRole.RESIDENT, result.getRole());
+        assertEquals(universityResponse, result.getUniversity());
+        assertEquals(dormitoryResponse, result.getDormitory());
+        assertEquals(101, result.getRoomNumber());
         assertEquals(100, result.getDebt());
         assertEquals(lastCameOut, result.getLastCameOut());
     }
 
     @Test
-    void testNonPaymentEvictResponse_ShouldCreateResponse() {
-        ToEvictionResidentResponse result = userMapper.nonPaymentEvictResponse(user);
-
-        assertNotNull(result);
-        assertNotNull(result.getResident());
-        assertEquals(EvictionReason.NON_PAYMENT, result.getReason());
-        assertEquals("testuser", result.getResident().getLogin());
-    }
+    void testToEvictionResponse_ShouldCreateResponse() {
+        EvictionCandidate candidate = mock(EvictionCandidate.class);
+        when(candidate.getLogin()).thenReturn("testuser");
+        when(candidate.getName()).thenReturn("Test");
+        when(candidate.getSurname()).thenReturn("User");
+        when(candidate.getRole()).thenReturn("RESIDENT");
+        when(candidate.getReason()).thenReturn("NON_RESIDENCE");
 
-    @Test
-    void testNonResidenceEvictResponse_ShouldCreateResponse() {
-        ToEvictionResidentResponse result = userMapper.nonResidenceEvictResponse(user);
+        ToEvictionResidentResponse result = userMapper.toEvictionResponse(candidate);
 
         assertNotNull(result);
         assertNotNull(result.getResident());
         assertEquals(EvictionReason.NON_RESIDENCE, result.getReason());
         assertEquals("testuser", result.getResident().getLogin());
-    }
-
-    @Test
-    void testRuleViolationEvictResponse_ShouldCreateResponse() {
-        ToEvictionResidentResponse result = userMapper.ruleViolationEvictResponse(user);
-
-        assertNotNull(result);
-        assertNotNull(result.getResident());
-        assertEquals(EvictionReason.RULE_VIOLATION, result.getReason());
-        assertEquals("testuser", result.getResident().getLogin());
+        assertEquals("User", result.getResident().getSurname());
+        assertEquals(UserRole.RESIDENT, result.getResident().getRole());
     }
 }
 
@@ -0,0 +1,86 @@
+package ru.itmo.is.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import ru.itmo.is.cluster.ClusterEventBus;
+import ru.itmo.is.cluster.Topic;
+import ru.itmo.is.dto.NotificationResponse;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationHubTest {
+
+    private ClusterEventBus eventBus;
+    private NotificationHub notificationHub;
+
+    @BeforeEach
+    void setUp() {
+        eventBus = mock(ClusterEventBus.class);
+        notificationHub = new NotificationHub(eventBus, new ObjectMapper(), 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationHub.close();
+    }
+
+    @Test
+    void testSubscribe_ShouldRegisterStreamAndLoadUnreadOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        notificationHub.subscribe("user1", () -> {
+            loads.incrementAndGet();
+            return List.of(new NotificationResponse(1L, "Unread").bidId(1L));
+        });
+        notificationHub.subscribe("user1", List::of);
+        notificationHub.subscribe("user2", List::of);
+
+        assertEquals(1, loads.get());
+        assertEquals(3, notificationHub.connections());
+    }
+
+    @Test
+    void testPublish_WithoutStreams_ShouldDoNothing() {
+        assertDoesNotThrow(() -> notificationHub.publish("nobody", new NotificationResponse(1L, "Lost").bidId(1L)));
+        assertEquals(0, notificationHub.connections());
+    }
+
+    @Test
+    void testPublish_ShouldSendNotificationToOtherInstances() {
+        notificationHub.publish("user1", new NotificationResponse(7L, "Accepted").bidId(1L));
+
+        verify(eventBus).publish(eq(Topic.NOTIFICATIONS), argThat((String payload) ->
+                payload.contains("\"login\":\"user1\"") && payload.contains("\"id\":7")));
+    }
+
+    @Test
+    void testReceive_ShouldDeliverLocallyAndSkipMalformedPayload() {
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.captor();
+        notificationHub.subscribe();
+        verify(eventBus).subscribe(eq(Topic.NOTIFICATIONS), handler.capture(), any());
+        notificationHub.subscribe("user1", List::of);
+
+        assertDoesNotThrow(() -> handler.getValue().accept("not json"));
+        assertDoesNotThrow(() -> handler.getValue().accept(
+                "{\"login\":\"user1\",\"notification\":{\"id\":7,\"bidId\":1,\"text\":\"Accepted\"}}"));
+        verify(eventBus, never()).publish(any(), anyString());
+    }
+
+    @Test
+    void testClose_ShouldDropAllStreams() {
+        notificationHub.subscribe("user1", List::of);
+
+        notificationHub.close();
+
+        assertEquals(0, notificationHub.connections());
+    }
+}
@@ -0,0 +1,162 @@
+package ru.itmo.is.preview;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.web.multipart.MultipartFile;
+import ru.itmo.is.storage.FileData;
+import ru.itmo.is.storage.FileRecord;
+import ru.itmo.is.storage.FileStorage;
+import ru.itmo.is.storage.FilesystemBlobStore;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PreviewGeneratorTest {
+
+    private Path storageDir;
+    private FileStorage fileStorage;
+    private PreviewGenerator previewGenerator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageDir = Files.createTempDirectory("test-previews");
+        fileStorage = new FileStorage(new FilesystemBlobStore(storageDir.toString()));
+        previewGenerator = new PreviewGenerator(fileStorage, 512, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        previewGenerator.stop();
+    }
+
+    @Test
+    void testGenerate_WithLargeImage_ShouldSaveDownscaledPreview() throws IOException {
+        var image = new BufferedImage(4000, 2000, BufferedImage.TYPE_INT_RGB);
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        FileRecord file = save("scan.png", out.toByteArray());
+
+        previewGenerator.generate(file);
+
+        BufferedImage preview = readPreview(file);
+        assertEquals(512, preview.getWidth());
+        assertEquals(256, preview.getHeight());
+    }
+
+    @Test
+    void testGenerate_WithPdf_ShouldRenderFirstPage() throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var document = new PDDocument()) {
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.addPage(new PDPage(PDRectangle.A4));
+            document.save(out);
+        }
+        FileRecord file = save("passport.pdf", out.toByteArray());
+
+        previewGenerator.generate(file);
+
+        BufferedImage preview = readPreview(file);
+        assertEquals(512, preview.getHeight());
+        assertTrue(preview.getWidth() < preview.getHeight());
+    }
+
+    @Test
+    void testGenerate_WithFileNotOnDisk_ShouldRenderLocalCopy() throws IOException {
+        var image = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        byte[] content = out.toByteArray();
+        var data = new ByteArrayResource(content);
+        FileStorage storage = mock(FileStorage.class);
+        FileRecord file = new FileRecord("scan.png", "key", "remote-version");
+        when(storage.readStart(eq(file), anyInt())).thenReturn(Arrays.copyOf(content, 16));
+        when(storage.get(file)).thenReturn(new FileData("scan.png", data, content.length, Instant.now(), "remote-version"));
+
+        new PreviewGenerator(storage, 512, 1, 10).generate(file);
+
+        ArgumentCaptor<BufferedImage> preview = ArgumentCaptor.forClass(BufferedImage.class);
+        verify(storage).savePreview(eq("remote-version"), preview.capture());
+        assertEquals(100, preview.getValue().getWidth());
+        assertEquals(50, preview.getValue().getHeight());
+    }
+
+    @Test
+    void testGenerate_WithUnsupportedFile_ShouldMarkItWithoutDownloading() {
+        FileStorage storage = mock(FileStorage.class);
+        FileRecord file = new FileRecord("notes.txt", "key", "version");
+        when(storage.readStart(eq(file), anyInt())).thenReturn("not an image".getBytes(StandardCharsets.UTF_8));
+
+        new PreviewGenerator(storage, 512, 1, 10).generate(file);
+
+        verify(storage).markPreviewUnsupported("version");
+        verify(storage, never()).get(any());
+        verify(storage, never()).savePreview(any(), any());
+    }
+
+    @Test
+    void testGenerate_WithUnsupportedFile_ShouldNotBeTriedAgain() throws IOException {
+        FileRecord file = save("notes.txt", "not an image".getBytes(StandardCharsets.UTF_8));
+
+        previewGenerator.generate(file);
+
+        assertFalse(fileStorage.hasPreview(file.getVersion()));
+        assertTrue(fileStorage.isPreviewUnsupported(file.getVersion()));
+    }
+
+    @Test
+    void testGenerate_WithBrokenPdf_ShouldMarkIt() throws IOException {
+        FileRecord file = save("broken.pdf", "%PDF-1.7 truncated".getBytes(StandardCharsets.US_ASCII));
+
+        previewGenerator.generate(file);
+
+        assertFalse(fileStorage.hasPreview(file.getVersion()));
+        assertTrue(fileStorage.isPreviewUnsupported(file.getVersion()));
+    }
+
+    @Test
+    void testGenerate_WhenPreviewExists_ShouldNotReadFile() {
+        FileStorage storage = mock(FileStorage.class);
+        FileRecord file = new FileRecord("scan.png", "key", "version");
+        when(storage.hasPreview("version")).thenReturn(true);
+
+        new PreviewGenerator(storage, 512, 1, 10).generate(file);
+
+        verify(storage, never()).savePreview(any(), any());
+        verify(storage, never()).readStart(any(), anyInt());
+        verify(storage, never()).get(any());
+    }
+
+    private FileRecord save(String name, byte[] content) throws IOException {
+        MultipartFile multipartFile = mock(MultipartFile.class);
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(content));
+        when(multipartFile.getOriginalFilename()).thenReturn(name);
+        return fileStorage.save(multipartFile);
+    }
+
+    private BufferedImage readPreview(FileRecord file) throws IOException {
+        FileData preview = fileStorage.getPreview(file).orElseThrow();
+        try (var in = preview.data().getInputStream()) {
+            return ImageIO.read(in);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.itmo.is.entity.user.User;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +22,7 @@ class JwtManagerTest {
 
     @BeforeEach
     void setUp() {
-        jwtManager = new JwtManager(TEST_ACCESS_KEY, TEST_REFRESH_KEY);
+        jwtManager = new JwtManager(TEST_ACCESS_KEY, TEST_REFRESH_KEY, 100);
 
         testUser = new User();
         testUser.setLogin("testuser");
@@ -38,7 +40,7 @@ class JwtManagerTest {
     @Test
     void testCreateToken_ShouldContainCorrectSubject() {
         String token = jwtManager.createAccessToken(testUser);
-        Optional<String> login = jwtManager.getLoginFromAccessToken(token);
+        Optional<String> login = jwtManager.getAccessPrincipal(token).map(AccessPrincipal::login);
 
         assertTrue(login.isPresent());
         assertEquals(testUser.getLogin(), login.get());
@@ -47,7 +49,7 @@ class JwtManagerTest {
     @Test
     void testCreateToken_ShouldContainCorrectRole() {
         String token = jwtManager.createAccessToken(testUser);
-        Optional<User.Role> role = jwtManager.getRoleFromAccessToken(token);
+        Optional<User.Role> role = jwtManager.getAccessPrincipal(token).map(AccessPrincipal::role);
 
         assertTrue(role.isPresent());
         assertEquals(testUser.getRole(), role.get());
@@ -56,7 +58,7 @@ class JwtManagerTest {
     @Test
     void testGetLogin_WithValidToken_ShouldReturnLogin() {
         String token = jwtManager.createAccessToken(testUser);
-        Optional<String> login = jwtManager.getLoginFromAccessToken(token);
+        Optional<String> login = jwtManager.getAccessPrincipal(token).map(AccessPrincipal::login);
 
         assertTrue(login.isPresent());
         assertEquals("testuser", login.get());
@@ -65,7 +67,7 @@ class JwtManagerTest {
     @Test
     void testGetLogin_WithInvalidToken_ShouldReturnNull() {
         String invalidToken = "invalid.token.here";
-        Optional<String> login = jwtManager.getLoginFromAccessToken(invalidToken);
+        Optional<String> login = jwtManager.getAccessPrincipal(invalidToken).map(AccessPrincipal::login);
 
         assertTrue(login.isEmpty());
     }
@@ -74,7 +76,7 @@ class JwtManagerTest {
     void testGetRole_WithValidToken_ShouldReturnRole() {
         testUser.setRole(User.Role.MANAGER);
         String token = jwtManager.createAccessToken(testUser);
-        Optional<User.Role> role = jwtManager.getRoleFromAccessToken(token);
+        Optional<User.Role> role = jwtManager.getAccessPrincipal(token).map(AccessPrincipal::role);
 
         assertTrue(role.isPresent());
         assertEquals(User.Role.MANAGER, role.get());
@@ -83,7 +85,7 @@ class JwtManagerTest {
     @Test
     void testGetRole_WithInvalidToken_ShouldReturnNull() {
         String invalidToken = "invalid.token.here";
-        Optional<User.Role> role = jwtManager.getRoleFromAccessToken(invalidToken);
+        Optional<User.Role> role = jwtManager.getAccessPrincipal(invalidToken).map(AccessPrincipal::role);
 
         assertTrue(role.isEmpty());
     }
@@ -98,5 +100,41 @@ class JwtManagerTest {
 
         assertNotEquals(token1, token2);
     }
-}
 
+    @Test
+    void testGetAccessPrincipal_WithValidToken_ShouldReturnExpiration() {
+        String token = jwtManager.createAccessToken(testUser);
+        Optional<AccessPrincipal> principal = jwtManager.getAccessPrincipal(token);
+
+        assertTrue(principal.isPresent());
+        Duration ttl = Duration.between(Instant.now(), principal.get().expiresAt());
+        assertTrue(ttl.compareTo(Duration.ofMinutes(9)) > 0 && ttl.compareTo(Duration.ofMinutes(10)) <= 0);
+    }
+
+    @Test
+    void testGetAccessPrincipal_WhenCalledTwice_ShouldReturnCachedPrincipal() {
+        String token = jwtManager.createAccessToken(testUser);
+
+        AccessPrincipal first = jwtManager.getAccessPrincipal(token).orElseThrow();
+        AccessPrincipal second = jwtManager.getAccessPrincipal(token).orElseThrow();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void testGetAccessPrincipal_WithTamperedCachedToken_ShouldReturnEmpty() {
+        String token = jwtManager.createAccessToken(testUser);
+        jwtManager.getAccessPrincipal(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtManager.getAccessPrincipal(tampered).isEmpty());
+    }
+
+    @Test
+    void testGetAccessPrincipal_WithRefreshToken_ShouldReturnEmpty() {
+        String refreshToken = jwtManager.createRefreshToken(testUser);
+
+        assertTrue(jwtManager.getAccessPrincipal(refreshToken).isEmpty());
+        assertEquals(Optional.of("testuser"), jwtManager.getLoginFromRefreshToken(refreshToken));
+    }
+}
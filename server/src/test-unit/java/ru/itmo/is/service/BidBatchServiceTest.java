@@ -0,0 +1,164 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.itmo.is.dto.BidBatchAction;
+import ru.itmo.is.dto.BidBatchRequest;
+import ru.itmo.is.dto.BidBatchResult;
+import ru.itmo.is.entity.bid.Bid;
+import ru.itmo.is.entity.user.User;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.repository.BidRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BidBatchServiceTest {
+
+    @Mock
+    private BidService bidService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private BidRepository bidRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @InjectMocks
+    private BidBatchService bidBatchService;
+
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new User();
+        manager.setLogin("manager1");
+        manager.setRole(User.Role.MANAGER);
+
+        when(userService.getCurrentUserOrThrow()).thenReturn(manager);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> {
+            TransactionCallback<?> callback = inv.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+    }
+
+    @Test
+    void testProcessBids_WithAccept_ShouldAcceptAllAndNotifyOnce() {
+        Bid bid1 = bid(1L, Bid.Status.IN_PROCESS);
+        Bid bid2 = bid(2L, Bid.Status.IN_PROCESS);
+        when(bidRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(bid1, bid2));
+
+        List<BidBatchResult> results = bidBatchService.processBids(request(BidBatchAction.ACCEPT, 1L, 2L));
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(BidBatchResult::getSuccess));
+        verify(bidService).accept(bid1, manager);
+        verify(bidService).accept(bid2, manager);
+        verify(notificationService, times(1)).notifySendersAboutBidStatus(List.of(bid1, bid2));
+    }
+
+    @Test
+    void testProcessBids_WithDeny_ShouldPassComment() {
+        Bid bid1 = bid(1L, Bid.Status.IN_PROCESS);
+        when(bidRepository.findAllById(List.of(1L))).thenReturn(List.of(bid1));
+        BidBatchRequest req = request(BidBatchAction.DENY, 1L);
+        req.setComment("Not enough documents");
+
+        List<BidBatchResult> results = bidBatchService.processBids(req);
+
+        assertTrue(results.getFirst().getSuccess());
+        verify(bidService).deny(bid1, manager, "Not enough documents");
+        verify(bidService, never()).accept(any(), any());
+    }
+
+    @Test
+    void testProcessBids_WhenSomeBidsFail_ShouldReportThemAndProcessOthers() {
+        Bid noRoomBid = bid(1L, Bid.Status.IN_PROCESS);
+        Bid okBid = bid(2L, Bid.Status.IN_PROCESS);
+        Bid closedBid = bid(3L, Bid.Status.ACCEPTED);
+        when(bidRepository.findAllById(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(noRoomBid, okBid, closedBid));
+        doThrow(new BadRequestException("No free room")).when(bidService).accept(noRoomBid, manager);
+
+        List<BidBatchResult> results = bidBatchService.processBids(request(BidBatchAction.ACCEPT, 1L, 2L, 3L, 4L));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), results.stream().map(BidBatchResult::getId).toList());
+        assertEquals(List.of(false, true, false, false), results.stream().map(BidBatchResult::getSuccess).toList());
+        assertEquals("No free room", results.getFirst().getError());
+        assertEquals("No such bid", results.get(3).getError());
+        verify(bidService, never()).accept(eq(closedBid), any());
+        verify(notificationService).notifySendersAboutBidStatus(List.of(okBid));
+    }
+
+    @Test
+    void testProcessBids_WithManyIds_ShouldSplitIntoChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, BidBatchService.CHUNK_SIZE * 2L + 1).boxed().toList();
+        when(bidRepository.findAllById(anyList())).thenAnswer(inv -> {
+            List<Long> chunk = inv.getArgument(0);
+            return chunk.stream().map(id -> bid(id, Bid.Status.IN_PROCESS)).toList();
+        });
+
+        List<BidBatchResult> results = bidBatchService.processBids(
+                request(BidBatchAction.ACCEPT, ids.toArray(Long[]::new))
+        );
+
+        assertEquals(ids.size(), results.size());
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(bidRepository, times(3)).findAllById(anyList());
+        verify(notificationService, times(3)).notifySendersAboutBidStatus(anyList());
+    }
+
+    @Test
+    void testProcessBids_WhenChunkFailsUnexpectedly_ShouldReportItAndKeepOtherChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, BidBatchService.CHUNK_SIZE + 1L).boxed().toList();
+        when(bidRepository.findAllById(anyList())).thenAnswer(inv -> {
+            List<Long> chunk = inv.getArgument(0);
+            return chunk.stream().map(id -> bid(id, Bid.Status.IN_PROCESS)).toList();
+        });
+        doThrow(new IllegalStateException("Broken ledger")).when(bidService).accept(argThat(b -> b.getId() == 1L), any());
+
+        List<BidBatchResult> results = bidBatchService.processBids(
+                request(BidBatchAction.ACCEPT, ids.toArray(Long[]::new))
+        );
+
+        assertEquals(ids, results.stream().map(BidBatchResult::getId).toList());
+        assertTrue(results.subList(0, BidBatchService.CHUNK_SIZE).stream().noneMatch(BidBatchResult::getSuccess));
+        assertTrue(results.getLast().getSuccess());
+        verify(notificationService, times(1)).notifySendersAboutBidStatus(anyList());
+    }
+
+    @Test
+    void testProcessBids_WithDuplicateIds_ShouldProcessBidOnce() {
+        Bid bid1 = bid(1L, Bid.Status.IN_PROCESS);
+        when(bidRepository.findAllById(List.of(1L))).thenReturn(List.of(bid1));
+
+        List<BidBatchResult> results = bidBatchService.processBids(request(BidBatchAction.ACCEPT, 1L, 1L));
+
+        assertEquals(1, results.size());
+        verify(bidService, times(1)).accept(bid1, manager);
+    }
+
+    private Bid bid(long id, Bid.Status status) {
+        Bid bid = new Bid();
+        bid.setId(id);
+        bid.setStatus(status);
+        bid.setType(Bid.Type.OCCUPATION);
+        return bid;
+    }
+
+    private BidBatchRequest request(BidBatchAction action, Long... ids) {
+        return new BidBatchRequest(new ArrayList<>(List.of(ids)), action);
+    }
+}
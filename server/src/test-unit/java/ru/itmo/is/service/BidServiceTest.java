@@ -6,23 +6,30 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itmo.is.allocation.RoomAllocator;
+import ru.itmo.is.cache.ReferenceCache;
 import ru.itmo.is.dto.*;
 import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.bid.*;
 import ru.itmo.is.entity.dorm.Dormitory;
 import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
-import ru.itmo.is.entity.notification.Notification;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.BadRequestException;
 import ru.itmo.is.exception.ForbiddenException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.guard.GuardStateCache;
 import ru.itmo.is.mapper.BidMapper;
 import ru.itmo.is.mapper.RoomMapper;
 import ru.itmo.is.repository.*;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -49,19 +56,21 @@ class BidServiceTest {
     @Mock
     private ResidentRepository residentRepository;
     @Mock
-    private NotificationRepository notificationRepository;
-    @Mock
     private UserRepository userRepository;
     @Mock
-    private BidComparator bidComparator;
-    @Mock
     private BidMapper bidMapper;
     @Mock
     private RoomMapper roomMapper;
     @Mock
-    private RoomService roomService;
+    private RoomAllocator roomAllocator;
     @Mock
     private NotificationService notificationService;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private GuardStateCache guardStateCache;
+    @Mock
+    private ReferenceCache referenceCache;
     @InjectMocks
     private BidService bidService;
 
@@ -138,7 +147,7 @@ class BidServiceTest {
 
     @Test
     void testGetSelfOpenedBidTypes_ShouldReturnBidTypes() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.getOpenedBidTypes("user1")).thenReturn(List.of(Bid.Type.OCCUPATION));
         when(bidMapper.mapBidTypeToDto(Bid.Type.OCCUPATION)).thenReturn(BidType.OCCUPATION);
 
@@ -149,18 +158,29 @@ class BidServiceTest {
     }
 
     @Test
-    void testGetInProcessBids_ShouldReturnSortedBids() {
+    void testGetInProcessBids_ShouldReturnQueueOfCurrentManager() {
         Bid bid2 = new Bid();
         bid2.setId(2L);
-        when(bidRepository.getByStatusIn(List.of(Bid.Status.IN_PROCESS))).thenReturn(List.of(bid, bid2));
-        when(bidComparator.compare(any(), any())).thenReturn(0);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(manager.getLogin());
+        when(bidRepository.getInProcessQueue("manager1", Pageable.unpaged())).thenReturn(List.of(bid, bid2));
         when(bidMapper.mapBidToDto(any(Bid.class))).thenReturn(new EvictionResponse());
 
         List<BidResponse> result = bidService.getInProcessBids();
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(bidComparator, atLeastOnce()).compare(any(), any());
+        verify(userService, never()).getCurrentUserOrThrow();
+    }
+
+    @Test
+    void testGetInProcessBidsPage_ShouldRequestPageOfQueue() {
+        when(userService.getCurrentLoginOrThrow()).thenReturn(manager.getLogin());
+        when(bidRepository.getInProcessQueue("manager1", PageRequest.of(2, 10))).thenReturn(List.of(bid));
+        when(bidMapper.mapBidToDto(bid)).thenReturn(new EvictionResponse());
+
+        List<BidResponse> result = bidService.getInProcessBidsPage(2, 10);
+
+        assertEquals(1, result.size());
     }
 
     @Test
@@ -187,9 +207,53 @@ class BidServiceTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void testSearchBids_WhenMoreRowsThanLimit_ShouldReturnNextCursor() {
+        Bid bid2 = new Bid();
+        bid2.setId(2L);
+        Bid bid3 = new Bid();
+        bid3.setId(3L);
+        when(bidRepository.search(
+                eq(List.of(Bid.Status.values())), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                eq(Limit.of(3))
+        )).thenReturn(List.of(bid3, bid2, bid));
+        when(bidMapper.mapBidToDto(any(Bid.class))).thenReturn(new EvictionResponse());
+
+        BidPage result = bidService.searchBids(null, null, null, null, null, null, null, 2);
+
+        assertEquals(2, result.getItems().size());
+        assertEquals(2L, result.getNextCursor());
+    }
+
+    @Test
+    void testSearchBids_WhenLastPage_ShouldNotReturnNextCursor() {
+        when(bidMapper.mapBidStatusToModel(BidStatus.ACCEPTED)).thenReturn(Bid.Status.ACCEPTED);
+        when(bidMapper.mapBidTypeToModel(BidType.EVICTION)).thenReturn(Bid.Type.EVICTION);
+        when(bidRepository.search(
+                List.of(Bid.Status.ACCEPTED), Bid.Type.EVICTION, "user1", "manager1", null, null, 10L, Limit.of(21)
+        )).thenReturn(List.of(bid));
+        when(bidMapper.mapBidToDto(bid)).thenReturn(new EvictionResponse());
+
+        BidPage result = bidService.searchBids(
+                List.of(BidStatus.ACCEPTED), BidType.EVICTION, "user1", "manager1", null, null, 10L, 20
+        );
+
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void testSearchBids_WhenInvalidDateRange_ShouldThrowBadRequestException() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(BadRequestException.class,
+                () -> bidService.searchBids(null, null, null, null, now, now.minusDays(1), null, 20));
+        verifyNoInteractions(bidRepository);
+    }
+
     @Test
     void testGetSelfBids_ShouldReturnBids() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.getBySenderLoginOrderByIdDesc("user1")).thenReturn(List.of(bid));
         when(bidMapper.mapBidToDto(bid)).thenReturn(new EvictionResponse());
 
@@ -202,7 +266,7 @@ class BidServiceTest {
     @Test
     void testGetBid_WhenManager_ShouldReturnBid() {
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(manager);
+        when(userService.getCurrentRoleOrThrow()).thenReturn(User.Role.MANAGER);
         when(bidMapper.mapBidToDto(bid)).thenReturn(new EvictionResponse());
 
         BidResponse result = bidService.getBid(1L);
@@ -213,21 +277,21 @@ class BidServiceTest {
     @Test
     void testGetBid_WhenSender_ShouldReturnBid() {
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentRoleOrThrow()).thenReturn(User.Role.RESIDENT);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidMapper.mapBidToDto(bid)).thenReturn(new EvictionResponse());
 
         BidResponse result = bidService.getBid(1L);
 
         assertNotNull(result);
+        verify(userService, never()).getCurrentUserOrThrow();
     }
 
     @Test
     void testGetBid_WhenNotAuthorized_ShouldThrowForbiddenException() {
-        User otherUser = new User();
-        otherUser.setLogin("other");
-        otherUser.setRole(User.Role.RESIDENT);
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(otherUser);
+        when(userService.getCurrentRoleOrThrow()).thenReturn(User.Role.RESIDENT);
+        when(userService.getCurrentLoginOrThrow()).thenReturn("other");
 
         assertThrows(ForbiddenException.class, () -> {
             bidService.getBid(1L);
@@ -275,7 +339,7 @@ class BidServiceTest {
         assertEquals(Bid.Status.PENDING_REVISION, bid.getStatus());
         assertEquals("Need revision", bid.getComment());
         verify(bidRepository).save(bid);
-        verify(notificationRepository).save(any(Notification.class));
+        verify(notificationService).notifySenderAboutRevision(bid);
     }
 
     @Test
@@ -287,6 +351,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.OCCUPATION), anyList())).thenReturn(false);
         when(universityRepository.findById(1)).thenReturn(Optional.of(university));
@@ -300,7 +366,7 @@ class BidServiceTest {
     @Test
     void testCreateOccupationBid_WhenBidExists_ShouldThrowBadRequestException() {
         OccupationRequest req = new OccupationRequest();
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.OCCUPATION), anyList())).thenReturn(true);
 
@@ -317,7 +383,7 @@ class BidServiceTest {
         req.setText("Test");
         req.setAttachmentKeys(new ArrayList<>());
 
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.OCCUPATION), anyList())).thenReturn(false);
         when(universityRepository.findById(999)).thenReturn(Optional.empty());
@@ -336,6 +402,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(universityRepository.findById(1)).thenReturn(Optional.of(university));
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
@@ -352,6 +420,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.EVICTION), anyList())).thenReturn(false);
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
@@ -370,6 +440,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.DEPARTURE), anyList())).thenReturn(false);
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
@@ -387,6 +459,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.ROOM_CHANGE), anyList())).thenReturn(false);
         when(roomMapper.mapRoomTypeToModel(RoomType.BLOCK)).thenReturn(Room.Type.BLOCK);
@@ -406,6 +480,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.ROOM_CHANGE), anyList())).thenReturn(false);
         when(roomRepository.findById(1)).thenReturn(Optional.of(room));
@@ -420,9 +496,7 @@ class BidServiceTest {
     void testAcceptBid_WithOccupationBid_ShouldAcceptAndAssignRoom() {
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(List.of(room));
-        when(roomService.isRoomFree(any())).thenReturn(true);
+        when(roomAllocator.allocate(1, Room.Type.BLOCK)).thenReturn(Optional.of(room));
         doNothing().when(residentRepository).userIsResidentNow(anyString(), anyInt(), anyInt());
         when(userRepository.save(any(User.class))).thenReturn(currentUser);
         when(eventRepository.save(any(Event.class))).thenReturn(new Event());
@@ -432,6 +506,8 @@ class BidServiceTest {
         assertEquals(Bid.Status.ACCEPTED, occupationBid.getStatus());
         verify(residentRepository).userIsResidentNow(anyString(), anyInt(), anyInt());
         verify(eventRepository).save(any(Event.class));
+        verify(ledgerService).open(eq(occupationBid.getSender().getLogin()), eq(room), any(LocalDateTime.class));
+        verify(referenceCache).evictOccupancy();
     }
 
     @Test
@@ -451,6 +527,26 @@ class BidServiceTest {
         verify(eventRepository).save(any(Event.class));
     }
 
+    @Test
+    void testAcceptBid_WithEvictionBid_ShouldDenyOtherOpenBidsOnly() {
+        Bid openBid = new Bid();
+        openBid.setId(5L);
+        openBid.setStatus(Bid.Status.IN_PROCESS);
+        when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
+        when(bidRepository.findById(5L)).thenReturn(Optional.of(openBid));
+        when(userService.getCurrentUserOrThrow()).thenReturn(manager);
+        when(userService.getResidentByLogin("user1")).thenReturn(resident);
+        when(bidRepository.getBySenderLoginAndStatusIn(eq("user1"), anyList())).thenReturn(List.of(bid, openBid));
+
+        bidService.acceptBid(1L);
+
+        assertEquals(Bid.Status.ACCEPTED, bid.getStatus());
+        assertNull(bid.getComment());
+        assertEquals(Bid.Status.DENIED, openBid.getStatus());
+        verify(notificationService, times(1)).notifySenderAboutBidStatus(bid);
+        verify(notificationService).notifySenderAboutBidStatus(openBid);
+    }
+
     @Test
     void testAcceptBid_WithDepartureBid_ShouldAccept() {
         when(bidRepository.findById(3L)).thenReturn(Optional.of(departureBid));
@@ -476,15 +572,18 @@ class BidServiceTest {
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
         when(userService.getResidentByLogin("user1")).thenReturn(resident);
-        when(residentRepository.save(any(Resident.class))).thenReturn(resident);
         when(eventRepository.save(any(Event.class))).thenReturn(new Event());
-        when(roomService.isRoomFree(any())).thenReturn(true);
+        when(roomAllocator.reserveInsteadOf(room, newRoom)).thenReturn(true);
 
         bidService.acceptBid(4L);
 
         assertEquals(Bid.Status.ACCEPTED, roomChangeBid.getStatus());
-        verify(residentRepository).save(resident);
+        assertEquals(newRoom, resident.getRoom());
+        verify(roomAllocator).release(room);
+        verify(residentRepository).moveToRoom("user1", 2);
         verify(eventRepository).save(any(Event.class));
+        verify(ledgerService).changeRoom("user1", newRoom);
+        verify(referenceCache).evictOccupancy();
     }
 
     @Test
@@ -511,11 +610,8 @@ class BidServiceTest {
     void testAcceptBid_WithOccupationBid_WhenNoFreeRoom_ShouldThrowBadRequestException() {
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(List.of(room));
-        when(roomService.isRoomFree(any())).thenReturn(false);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.AISLE, 1))
-                .thenReturn(new ArrayList<>());
+        when(roomAllocator.allocate(1, Room.Type.BLOCK)).thenReturn(Optional.empty());
+        when(roomAllocator.allocate(1, Room.Type.AISLE)).thenReturn(Optional.empty());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.acceptBid(2L);
@@ -542,6 +638,9 @@ class BidServiceTest {
         assertEquals(User.Role.NON_RESIDENT, resident.getRole());
         verify(userRepository).save(resident);
         verify(eventRepository).save(any(Event.class));
+        verify(ledgerService).close("user1");
+        verify(referenceCache).evictOccupancy();
+        verify(guardStateCache).forgetAfterCompletion("user1");
     }
 
     @Test
@@ -598,7 +697,7 @@ class BidServiceTest {
         otherUser.setLogin("other");
         OccupationRequest req = new OccupationRequest();
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(otherUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(otherUser.getLogin());
 
         assertThrows(ForbiddenException.class, () -> {
             bidService.updateOccupationBid(2L, req);
@@ -610,7 +709,7 @@ class BidServiceTest {
         OccupationRequest req = new OccupationRequest();
         bid.setType(Bid.Type.EVICTION);
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.updateOccupationBid(1L, req);
@@ -622,7 +721,7 @@ class BidServiceTest {
         OccupationRequest req = new OccupationRequest();
         occupationBid.setStatus(Bid.Status.ACCEPTED);
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.updateOccupationBid(2L, req);
@@ -641,7 +740,7 @@ class BidServiceTest {
         otherUniversity.setId(1);
         otherUniversity.setDormitories(new ArrayList<>());
 
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(universityRepository.findById(1)).thenReturn(Optional.of(otherUniversity));
 
@@ -665,7 +764,7 @@ class BidServiceTest {
         EvictionRequest req = new EvictionRequest();
         occupationBid.setType(Bid.Type.OCCUPATION);
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.updateEvictionBid(2L, req);
@@ -687,7 +786,7 @@ class BidServiceTest {
         DepartureRequest req = new DepartureRequest();
         bid.setType(Bid.Type.EVICTION);
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.updateDepartureBid(1L, req);
@@ -709,7 +808,7 @@ class BidServiceTest {
         RoomChangeRequest req = new RoomChangeRequest();
         bid.setType(Bid.Type.EVICTION);
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.updateRoomChangeBid(1L, req);
@@ -723,7 +822,7 @@ class BidServiceTest {
         req.setRoomToId(999);
         req.setAttachmentKeys(new ArrayList<>());
 
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(roomRepository.findById(999)).thenReturn(Optional.empty());
 
@@ -739,7 +838,7 @@ class BidServiceTest {
         req.setRoomToId(999);
         req.setAttachmentKeys(new ArrayList<>());
 
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.ROOM_CHANGE), anyList())).thenReturn(false);
         when(roomRepository.findById(999)).thenReturn(Optional.empty());
@@ -760,11 +859,8 @@ class BidServiceTest {
 
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(new ArrayList<>());
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.AISLE, 1))
-                .thenReturn(List.of(aisleRoom));
-        when(roomService.isRoomFree(any())).thenReturn(true);
+        when(roomAllocator.allocate(1, Room.Type.BLOCK)).thenReturn(Optional.empty());
+        when(roomAllocator.allocate(1, Room.Type.AISLE)).thenReturn(Optional.of(aisleRoom));
         doNothing().when(residentRepository).userIsResidentNow(anyString(), anyInt(), anyInt());
         when(userRepository.save(any(User.class))).thenReturn(currentUser);
         when(eventRepository.save(any(Event.class))).thenReturn(new Event());
@@ -791,16 +887,13 @@ class BidServiceTest {
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
         when(userService.getResidentByLogin("user1")).thenReturn(resident);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(List.of(newRoom));
-        when(roomService.isRoomFree(any())).thenReturn(true);
-        when(residentRepository.save(any(Resident.class))).thenReturn(resident);
+        when(roomAllocator.allocateInsteadOf(room, Room.Type.BLOCK)).thenReturn(Optional.of(newRoom));
         when(eventRepository.save(any(Event.class))).thenReturn(new Event());
 
         bidService.acceptBid(4L);
 
         assertEquals(Bid.Status.ACCEPTED, roomChangeBid.getStatus());
-        verify(residentRepository).save(resident);
+        verify(residentRepository).moveToRoom("user1", 2);
     }
 
     @Test
@@ -812,12 +905,12 @@ class BidServiceTest {
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
         when(userService.getResidentByLogin("user1")).thenReturn(resident);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(new ArrayList<>());
+        when(roomAllocator.allocateInsteadOf(room, Room.Type.BLOCK)).thenReturn(Optional.empty());
 
         assertThrows(BadRequestException.class, () -> {
             bidService.acceptBid(4L);
         });
+        verify(roomAllocator, never()).release(any());
     }
 
     @Test
@@ -828,6 +921,8 @@ class BidServiceTest {
         req.setAttachmentKeys(List.of("key1"));
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.EVICTION), anyList())).thenReturn(false);
         when(bidFileRepository.getByKeyIn(List.of("key1"))).thenReturn(List.of(new BidFile()));
@@ -840,7 +935,7 @@ class BidServiceTest {
     @Test
     void testCreateEvictionBid_WhenBidExists_ShouldThrowBadRequestException() {
         EvictionRequest req = new EvictionRequest();
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.EVICTION), anyList())).thenReturn(true);
 
@@ -852,7 +947,7 @@ class BidServiceTest {
     @Test
     void testCreateDepartureBid_WhenBidExists_ShouldThrowBadRequestException() {
         DepartureRequest req = new DepartureRequest();
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.DEPARTURE), anyList())).thenReturn(true);
 
@@ -864,7 +959,7 @@ class BidServiceTest {
     @Test
     void testCreateRoomChangeBid_WhenBidExists_ShouldThrowBadRequestException() {
         RoomChangeRequest req = new RoomChangeRequest();
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.ROOM_CHANGE), anyList())).thenReturn(true);
 
@@ -880,6 +975,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
 
@@ -898,6 +995,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(3L)).thenReturn(Optional.of(departureBid));
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
 
@@ -915,6 +1014,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(roomMapper.mapRoomTypeToModel(RoomType.AISLE)).thenReturn(Room.Type.AISLE);
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
@@ -927,11 +1028,6 @@ class BidServiceTest {
 
     @Test
     void testAcceptBid_WithOccupationBid_WhenBlockRoomsNotFree_ShouldTryAisleRooms() {
-        Room occupiedBlockRoom = new Room();
-        occupiedBlockRoom.setId(1);
-        occupiedBlockRoom.setType(Room.Type.BLOCK);
-        occupiedBlockRoom.setResidents(List.of(new Resident()));
-
         Room freeAisleRoom = new Room();
         freeAisleRoom.setId(2);
         freeAisleRoom.setType(Room.Type.AISLE);
@@ -941,12 +1037,8 @@ class BidServiceTest {
 
         when(bidRepository.findById(2L)).thenReturn(Optional.of(occupationBid));
         when(userService.getCurrentUserOrThrow()).thenReturn(manager);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.BLOCK, 1))
-                .thenReturn(List.of(occupiedBlockRoom));
-        when(roomService.isRoomFree(occupiedBlockRoom)).thenReturn(false);
-        when(roomRepository.getByTypeAndDormitoryId(Room.Type.AISLE, 1))
-                .thenReturn(List.of(freeAisleRoom));
-        when(roomService.isRoomFree(freeAisleRoom)).thenReturn(true);
+        when(roomAllocator.allocate(1, Room.Type.BLOCK)).thenReturn(Optional.empty());
+        when(roomAllocator.allocate(1, Room.Type.AISLE)).thenReturn(Optional.of(freeAisleRoom));
         doNothing().when(residentRepository).userIsResidentNow(anyString(), anyInt(), anyInt());
         when(userRepository.save(any(User.class))).thenReturn(currentUser);
         when(eventRepository.save(any(Event.class))).thenReturn(new Event());
@@ -976,6 +1068,8 @@ class BidServiceTest {
         req.setAttachmentKeys(List.of("newKey"));
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
         when(bidFileRepository.getByKeyIn(List.of("newKey"))).thenReturn(List.of(newFile));
 
@@ -998,6 +1092,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.existsBySenderLoginAndTypeAndStatusIn(
                 eq("user1"), eq(Bid.Type.ROOM_CHANGE), anyList())).thenReturn(false);
         when(roomMapper.mapRoomTypeToModel(RoomType.BLOCK)).thenReturn(Room.Type.BLOCK);
@@ -1022,6 +1118,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>());
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(4L)).thenReturn(Optional.of(roomChangeBid));
         when(roomMapper.mapRoomTypeToModel(RoomType.AISLE)).thenReturn(Room.Type.AISLE);
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
@@ -1064,6 +1162,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>()); // No new attachments
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
 
@@ -1092,6 +1192,8 @@ class BidServiceTest {
         req.setAttachmentKeys(List.of("newKey1", "newKey2"));
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
         when(bidFileRepository.getByKeyIn(List.of("newKey1", "newKey2")))
                 .thenReturn(List.of(newFile1, newFile2));
@@ -1121,6 +1223,8 @@ class BidServiceTest {
         req.setAttachmentKeys(new ArrayList<>()); // Remove all files
 
         when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(bidRepository.findById(1L)).thenReturn(Optional.of(bid));
         when(bidFileRepository.getByKeyIn(anyList())).thenReturn(new ArrayList<>());
 
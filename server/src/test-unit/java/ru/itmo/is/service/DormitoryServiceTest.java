@@ -9,7 +9,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.itmo.is.dto.DormitoryRequest;
 import ru.itmo.is.dto.DormitoryResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
-import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
 import ru.itmo.is.exception.BadRequestException;
 import ru.itmo.is.exception.NotFoundException;
@@ -125,12 +124,8 @@ class DormitoryServiceTest {
 
     @Test
     void testUpdateDormitory_WithResidentsAndAddressChange_ShouldThrowBadRequestException() {
-        Room room = new Room();
-        ru.itmo.is.entity.user.Resident resident = new ru.itmo.is.entity.user.Resident();
-        resident.setLogin("resident1");
-        room.setResidents(List.of(resident)); // Add a resident
-        dormitory.setRooms(List.of(room));
         when(dormitoryRepository.findById(1)).thenReturn(Optional.of(dormitory));
+        when(dormitoryRepository.getOccupied(1)).thenReturn(1);
         when(universityRepository.getByIdIn(List.of(1))).thenReturn(List.of(university));
         dormitoryRequest.setAddress("New Address");
 
@@ -0,0 +1,93 @@
+package ru.itmo.is.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itmo.is.exception.InvalidDataStateException;
+import ru.itmo.is.entity.user.ResidentLedger;
+import ru.itmo.is.repository.EventRepository;
+import ru.itmo.is.repository.ResidentLedgerRepository;
+import ru.itmo.is.repository.RoomRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventServiceTest {
+
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private RoomRepository roomRepository;
+    @Mock
+    private ResidentLedgerRepository ledgerRepository;
+    @InjectMocks
+    private EventService eventService;
+
+    @Test
+    void testGetLastPaymentTime_ShouldUseTopOneLookup() {
+        LocalDateTime lastPayment = LocalDateTime.now().minusDays(3);
+        when(eventRepository.getLastPaymentOrOccupationTime("resident1"))
+                .thenReturn(Optional.of(lastPayment));
+
+        LocalDateTime result = eventService.getLastPaymentTime("resident1");
+
+        assertEquals(lastPayment, result);
+        verify(eventRepository, never()).getByTypeInAndUsrLoginOrderByTimestampDesc(any(), any());
+    }
+
+    @Test
+    void testGetLastPaymentTime_WhenNoEvents_ShouldThrowInvalidDataStateException() {
+        when(eventRepository.getLastPaymentOrOccupationTime("resident1"))
+                .thenReturn(Optional.empty());
+
+        assertThrows(InvalidDataStateException.class, () -> eventService.getLastPaymentTime("resident1"));
+    }
+
+    @Test
+    void testCalculateResidentDebt_ShouldMultiplyCostByUnpaidMonths() {
+        when(roomRepository.getResidentRoomCost("resident1")).thenReturn(1000);
+        when(eventRepository.getLastPaymentOrOccupationTime("resident1"))
+                .thenReturn(Optional.of(LocalDateTime.now().minusMonths(3).minusDays(1)));
+
+        assertEquals(3000, eventService.calculateResidentDebt("resident1"));
+    }
+
+    @Test
+    void testCalculateResidentDebt_WithLedger_ShouldNotReadEvents() {
+        ResidentLedger ledger = new ResidentLedger();
+        ledger.setLogin("resident1");
+        ledger.setRoomCost(1200);
+        ledger.setPaidUntil(LocalDateTime.now().minusMonths(2).minusDays(1));
+        when(ledgerRepository.findById("resident1")).thenReturn(Optional.of(ledger));
+
+        assertEquals(2400, eventService.calculateResidentDebt("resident1"));
+        verifyNoInteractions(eventRepository, roomRepository);
+    }
+
+    @Test
+    void testGetLastPaymentTime_WithLedger_ShouldReturnPaidUntil() {
+        ResidentLedger ledger = new ResidentLedger();
+        ledger.setPaidUntil(LocalDateTime.now().minusDays(10));
+        when(ledgerRepository.findById("resident1")).thenReturn(Optional.of(ledger));
+
+        assertEquals(ledger.getPaidUntil(), eventService.getLastPaymentTime("resident1"));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void testCalculateDebt_WhenPaidThisMonth_ShouldReturnZero() {
+        assertEquals(0, eventService.calculateDebt(1000, LocalDateTime.now()));
+    }
+
+    @Test
+    void testCalculateDebt_WithoutPayment_ShouldThrowInvalidDataStateException() {
+        assertThrows(InvalidDataStateException.class, () -> eventService.calculateDebt(1000, null));
+    }
+}
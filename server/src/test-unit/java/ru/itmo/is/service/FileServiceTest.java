@@ -3,21 +3,34 @@ package ru.itmo.is.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import ru.itmo.is.cache.ReferenceCache;
+import ru.itmo.is.dto.FileUploadRequest;
+import ru.itmo.is.dto.FileUploadResponse;
 import ru.itmo.is.entity.bid.BidFile;
+import ru.itmo.is.entity.bid.BidFileUpload;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.preview.PreviewGenerator;
 import ru.itmo.is.repository.BidFileRepository;
+import ru.itmo.is.repository.BidFileUploadRepository;
 import ru.itmo.is.storage.FileData;
 import ru.itmo.is.storage.FileRecord;
 import ru.itmo.is.storage.FileStorage;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,8 +39,13 @@ class FileServiceTest {
     @Mock
     private BidFileRepository bidFileRepository;
     @Mock
+    private BidFileUploadRepository bidFileUploadRepository;
+    @Mock
     private FileStorage fileStorage;
-    @InjectMocks
+    @Mock
+    private PreviewGenerator previewGenerator;
+    @Mock
+    private ReferenceCache referenceCache;
     private FileService fileService;
 
     private MultipartFile multipartFile;
@@ -37,6 +55,16 @@ class FileServiceTest {
 
     @BeforeEach
     void setUp() {
+        fileService = new FileService(
+                bidFileRepository,
+                bidFileUploadRepository,
+                fileStorage,
+                previewGenerator,
+                referenceCache,
+                Duration.ofHours(24),
+                DataSize.ofMegabytes(50),
+                Duration.ofHours(24)
+        );
         multipartFile = mock(MultipartFile.class);
 
         bidFile = new BidFile();
@@ -44,7 +72,7 @@ class FileServiceTest {
         bidFile.setName("test.pdf");
 
         fileRecord = new FileRecord(bidFile);
-        fileData = new FileData("test.pdf", null);
+        fileData = new FileData("test.pdf", null, 0, Instant.now(), "test-key-123");
     }
 
     @Test
@@ -62,27 +90,169 @@ class FileServiceTest {
 
     @Test
     void testGet_WhenFileExists_ShouldReturnFileData() {
-        when(bidFileRepository.findById("test-key-123")).thenReturn(Optional.of(bidFile));
+        when(bidFileRepository.getRecord("test-key-123")).thenReturn(Optional.of(fileRecord));
         when(fileStorage.get(any(FileRecord.class))).thenReturn(fileData);
 
         FileData result = fileService.get("test-key-123");
 
         assertNotNull(result);
         assertEquals("test.pdf", result.name());
-        verify(bidFileRepository).findById("test-key-123");
+        verify(bidFileRepository).getRecord("test-key-123");
         verify(fileStorage).get(any(FileRecord.class));
     }
 
     @Test
     void testGet_WhenFileNotFound_ShouldThrowNotFoundException() {
-        when(bidFileRepository.findById("non-existent-key")).thenReturn(Optional.empty());
+        when(bidFileRepository.getRecord("non-existent-key")).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> {
             fileService.get("non-existent-key");
         });
 
-        verify(bidFileRepository).findById("non-existent-key");
+        verify(bidFileRepository).getRecord("non-existent-key");
         verify(fileStorage, never()).get(any(FileRecord.class));
     }
-}
 
+    @Test
+    void testUpload_ShouldKeepContentHash() {
+        var record = new FileRecord("test.pdf", "test-key-123", "abc");
+        when(fileStorage.save(multipartFile)).thenReturn(record);
+
+        fileService.upload(multipartFile);
+
+        verify(bidFileRepository).save(argThat(file -> "abc".equals(file.getContentHash())));
+    }
+
+    @Test
+    void testCollectGarbage_ShouldDeleteOnlyUnreferencedBlobs() {
+        when(fileStorage.getBlobsModifiedBefore(any())).thenReturn(List.of("used", "orphan", "reuploaded"));
+        when(bidFileRepository.getReferencedHashes(List.of("used", "orphan", "reuploaded"))).thenReturn(Set.of("used"));
+        when(fileStorage.deleteBlob(eq("orphan"), any())).thenReturn(true);
+        when(fileStorage.deleteBlob(eq("reuploaded"), any())).thenReturn(false);
+
+        int deleted = fileService.collectGarbage();
+
+        assertEquals(1, deleted);
+        verify(fileStorage, never()).deleteBlob(eq("used"), any());
+    }
+
+    @Test
+    void testDeleteDetachedFiles_ShouldDeleteRowsAndEvictTheirRecords() {
+        when(bidFileRepository.getDetachedKeysCreatedBefore(any())).thenReturn(List.of("detached-1", "detached-2"));
+        when(bidFileRepository.deleteDetached(List.of("detached-1", "detached-2"))).thenReturn(1);
+
+        int deleted = fileService.deleteDetachedFiles();
+
+        assertEquals(1, deleted);
+        verify(referenceCache).evictFiles(List.of("detached-1", "detached-2"));
+    }
+
+    @Test
+    void testStartUpload_WhenFileTooLarge_ShouldThrowBadRequestException() {
+        var req = new FileUploadRequest("scan.pdf", DataSize.ofMegabytes(51).toBytes());
+
+        assertThrows(BadRequestException.class, () -> fileService.startUpload(req));
+        verifyNoInteractions(fileStorage, bidFileUploadRepository);
+    }
+
+    @Test
+    void testStartUpload_ShouldCreatePartAndSaveUpload() {
+        when(fileStorage.createPart()).thenReturn("upload-id");
+
+        FileUploadResponse result = fileService.startUpload(new FileUploadRequest("scan.pdf", 100L));
+
+        assertEquals(new FileUploadResponse("upload-id", 0L, 100L), result);
+        verify(bidFileUploadRepository).save(argThat(upload -> "scan.pdf".equals(upload.getName()) && upload.getSize() == 100));
+        verifyNoInteractions(bidFileRepository);
+    }
+
+    @Test
+    void testFinishUpload_WhenNotAllBytesReceived_ShouldThrowConflictException() {
+        when(bidFileUploadRepository.findById("upload-id")).thenReturn(Optional.of(upload()));
+        when(fileStorage.getPartSize("upload-id")).thenReturn(40L);
+
+        assertThrows(ConflictException.class, () -> fileService.finishUpload("upload-id"));
+        verify(fileStorage, never()).savePart(any(), any());
+        verifyNoInteractions(bidFileRepository);
+    }
+
+    @Test
+    void testFinishUpload_ShouldSaveBidFileAndDeleteUpload() {
+        BidFileUpload upload = upload();
+        when(bidFileUploadRepository.findById("upload-id")).thenReturn(Optional.of(upload));
+        when(fileStorage.getPartSize("upload-id")).thenReturn(100L);
+        when(fileStorage.savePart("upload-id", "scan.pdf")).thenReturn(new FileRecord("scan.pdf", "test-key-123", "abc"));
+
+        String key = fileService.finishUpload("upload-id");
+
+        assertEquals("test-key-123", key);
+        verify(bidFileRepository).save(argThat(file -> "abc".equals(file.getContentHash())));
+        verify(bidFileUploadRepository).delete(upload);
+    }
+
+    @Test
+    void testAppendUpload_WhenUploadNotFound_ShouldThrowNotFoundException() {
+        when(bidFileUploadRepository.findById("unknown")).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> fileService.appendUpload("unknown", 0, null));
+        verifyNoInteractions(fileStorage);
+    }
+
+    @Test
+    void testDeleteExpiredUploads_ShouldDeleteRowsAndParts() {
+        when(bidFileUploadRepository.getIdsCreatedBefore(any())).thenReturn(List.of("old-1", "old-2"));
+
+        int deleted = fileService.deleteExpiredUploads();
+
+        assertEquals(2, deleted);
+        verify(bidFileUploadRepository).deleteAllById(List.of("old-1", "old-2"));
+        verify(fileStorage).deletePart("old-1");
+        verify(fileStorage).deletePart("old-2");
+    }
+
+    private BidFileUpload upload() {
+        var upload = new BidFileUpload();
+        upload.setId("upload-id");
+        upload.setName("scan.pdf");
+        upload.setSize(100);
+        return upload;
+    }
+
+    @Test
+    void testUpload_ShouldSubmitPreview() {
+        when(fileStorage.save(multipartFile)).thenReturn(fileRecord);
+
+        fileService.upload(multipartFile);
+
+        verify(previewGenerator).submit(fileRecord);
+    }
+
+    @Test
+    void testGetPreview_WhenReady_ShouldReturnPreview() {
+        when(bidFileRepository.getRecord("test-key-123")).thenReturn(Optional.of(fileRecord));
+        when(fileStorage.getPreview(fileRecord)).thenReturn(Optional.of(fileData));
+
+        assertSame(fileData, fileService.getPreview("test-key-123"));
+        verifyNoInteractions(previewGenerator);
+    }
+
+    @Test
+    void testGetPreview_WhenNotReady_ShouldSubmitPreviewAndThrowNotFoundException() {
+        when(bidFileRepository.getRecord("test-key-123")).thenReturn(Optional.of(fileRecord));
+        when(fileStorage.getPreview(fileRecord)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> fileService.getPreview("test-key-123"));
+        verify(previewGenerator).submit(fileRecord);
+    }
+
+    @Test
+    void testGetPreview_WhenFileHasNoPreview_ShouldThrowNotFoundExceptionWithoutSubmitting() {
+        when(bidFileRepository.getRecord("test-key-123")).thenReturn(Optional.of(fileRecord));
+        when(fileStorage.getPreview(fileRecord)).thenReturn(Optional.empty());
+        when(fileStorage.isPreviewUnsupported(fileRecord.getVersion())).thenReturn(true);
+
+        assertThrows(NotFoundException.class, () -> fileService.getPreview("test-key-123"));
+        verifyNoInteractions(previewGenerator);
+        verify(fileStorage, never()).get(any());
+    }
+}
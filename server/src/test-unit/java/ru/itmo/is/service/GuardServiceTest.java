@@ -6,20 +6,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import ru.itmo.is.dto.GuardHistory;
+import ru.itmo.is.dto.*;
 import ru.itmo.is.entity.Event;
 import ru.itmo.is.entity.user.Resident;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.InternalServerErrorException;
+import ru.itmo.is.exception.ServiceUnavailableException;
+import ru.itmo.is.guard.GuardEventWriter;
+import ru.itmo.is.guard.GuardStateCache;
 import ru.itmo.is.mapper.EventMapper;
 import ru.itmo.is.repository.EventRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,21 +34,23 @@ class GuardServiceTest {
     private UserService userService;
     @Mock
     private EventMapper eventMapper;
+    @Mock
+    private GuardStateCache stateCache;
+    @Mock
+    private GuardEventWriter eventWriter;
     @InjectMocks
     private GuardService guardService;
 
     private Resident resident;
-    private Event lastEvent;
     private GuardHistory guardHistory;
+    private GuardStateCache.LastPass outPass;
 
     @BeforeEach
     void setUp() {
         resident = new Resident();
         resident.setLogin("resident1");
 
-        lastEvent = new Event();
-        lastEvent.setType(Event.Type.OUT);
-        lastEvent.setTimestamp(LocalDateTime.now());
+        outPass = new GuardStateCache.LastPass(Event.Type.OUT, LocalDateTime.now().minusHours(1));
 
         guardHistory = new GuardHistory();
         guardHistory.setType(GuardHistory.TypeEnum.IN);
@@ -53,67 +58,102 @@ class GuardServiceTest {
     }
 
     @Test
-    void testEntry_WhenLastEventWasOut_ShouldCreateInEvent() {
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(lastEvent));
-        when(userService.getResidentByLogin("resident1")).thenReturn(resident);
-
-        guardService.entry("resident1");
-
-        verify(eventRepository).save(any(Event.class));
-    }
-
-    @Test
-    void testEntry_WhenNoLastEvent_ShouldCreateInEvent() {
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.empty());
-        when(userService.getResidentByLogin("resident1")).thenReturn(resident);
+    void testEntry_WhenPassAllowed_ShouldWaitForWrite() {
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class))).thenReturn(outPass);
+        when(eventWriter.submit(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         guardService.entry("resident1");
 
-        verify(eventRepository).save(any(Event.class));
+        verify(eventWriter).submit(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class));
     }
 
     @Test
     void testEntry_WhenLastEventWasIn_ShouldThrowBadRequestException() {
-        lastEvent.setType(Event.Type.IN);
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(lastEvent));
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class)))
+                .thenThrow(new BadRequestException("Last guard event was the same"));
 
         assertThrows(BadRequestException.class, () -> {
             guardService.entry("resident1");
         });
 
-        verify(eventRepository, never()).save(any(Event.class));
+        verifyNoInteractions(eventWriter);
     }
 
     @Test
-    void testExit_WhenLastEventWasIn_ShouldCreateOutEvent() {
-        lastEvent.setType(Event.Type.IN);
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(lastEvent));
-        when(userService.getResidentByLogin("resident1")).thenReturn(resident);
+    void testExit_WhenPassAllowed_ShouldWaitForWrite() {
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.OUT), any(LocalDateTime.class))).thenReturn(outPass);
+        when(eventWriter.submit(eq("resident1"), eq(Event.Type.OUT), any(LocalDateTime.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         guardService.exit("resident1");
 
-        verify(eventRepository).save(any(Event.class));
+        verify(eventWriter).submit(eq("resident1"), eq(Event.Type.OUT), any(LocalDateTime.class));
     }
 
     @Test
-    void testExit_WhenNoLastEvent_ShouldCreateOutEvent() {
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.empty());
-        when(userService.getResidentByLogin("resident1")).thenReturn(resident);
-
-        guardService.exit("resident1");
+    void testExit_WhenWriteFailed_ShouldThrowInternalServerErrorException() {
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.OUT), any(LocalDateTime.class))).thenReturn(outPass);
+        when(eventWriter.submit(eq("resident1"), eq(Event.Type.OUT), any(LocalDateTime.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db is down")));
 
-        verify(eventRepository).save(any(Event.class));
+        assertThrows(InternalServerErrorException.class, () -> {
+            guardService.exit("resident1");
+        });
     }
 
     @Test
-    void testExit_WhenLastEventWasOut_ShouldThrowBadRequestException() {
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(lastEvent));
+    void testEntry_WhenQueueIsFull_ShouldRevertStateAndThrowServiceUnavailableException() {
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class))).thenReturn(outPass);
+        when(eventWriter.submit(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class)))
+                .thenThrow(new ServiceUnavailableException("Queue is full"));
 
-        assertThrows(BadRequestException.class, () -> {
-            guardService.exit("resident1");
+        assertThrows(ServiceUnavailableException.class, () -> {
+            guardService.entry("resident1");
         });
 
-        verify(eventRepository, never()).save(any(Event.class));
+        verify(stateCache).revert(eq("resident1"), argThat(pass -> pass.type() == Event.Type.IN), eq(outPass));
+    }
+
+    @Test
+    void testBatch_ShouldReportEveryEventInRequestOrder() {
+        LocalDateTime passedAt = LocalDateTime.now().minusMinutes(5);
+        when(eventMapper.mapGuardEventType(GuardEventType.IN)).thenReturn(Event.Type.IN);
+        when(stateCache.pass("resident1", Event.Type.IN, passedAt)).thenReturn(outPass);
+        when(stateCache.pass("resident2", Event.Type.IN, passedAt))
+                .thenThrow(new BadRequestException("Last guard event was the same"));
+        when(eventWriter.submit("resident1", Event.Type.IN, passedAt))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        List<GuardBatchResult> results = guardService.batch(new GuardBatchRequest(List.of(
+                guardEvent("resident1", passedAt),
+                guardEvent("resident2", passedAt),
+                guardEvent("resident3", LocalDateTime.now().plusHours(1))
+        )));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).getSuccess());
+        assertNull(results.get(0).getError());
+        assertFalse(results.get(1).getSuccess());
+        assertEquals("Last guard event was the same", results.get(1).getError());
+        assertFalse(results.get(2).getSuccess());
+        assertEquals("Event time is in the future", results.get(2).getError());
+        verify(stateCache, never()).pass(eq("resident3"), any(), any());
+    }
+
+    @Test
+    void testBatch_WhenWriteFailed_ShouldReportFailure() {
+        when(eventMapper.mapGuardEventType(GuardEventType.IN)).thenReturn(Event.Type.IN);
+        when(stateCache.pass(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class))).thenReturn(outPass);
+        when(eventWriter.submit(eq("resident1"), eq(Event.Type.IN), any(LocalDateTime.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("db is down")));
+
+        List<GuardBatchResult> results = guardService.batch(new GuardBatchRequest(List.of(
+                guardEvent("resident1", null)
+        )));
+
+        assertFalse(results.getFirst().getSuccess());
+        assertEquals("Event was not saved", results.getFirst().getError());
     }
 
     @Test
@@ -142,7 +182,7 @@ class GuardServiceTest {
         event.setType(Event.Type.OUT);
         event.setTimestamp(LocalDateTime.now());
 
-        when(userService.getCurrentUserOrThrow()).thenReturn(user);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(user.getLogin());
         when(userService.getResidentByLogin("resident1")).thenReturn(resident);
         when(eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
                 List.of(Event.Type.IN, Event.Type.OUT), "resident1")).thenReturn(List.of(event));
@@ -153,5 +193,10 @@ class GuardServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
     }
-}
 
+    private GuardEventRequest guardEvent(String login, LocalDateTime timestamp) {
+        var event = new GuardEventRequest(login, GuardEventType.IN);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+}
@@ -6,19 +6,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.itmo.is.dto.EvictionReason;
 import ru.itmo.is.dto.NotificationResponse;
 import ru.itmo.is.entity.bid.Bid;
 import ru.itmo.is.entity.notification.Notification;
 import ru.itmo.is.entity.user.User;
 import ru.itmo.is.exception.ForbiddenException;
 import ru.itmo.is.exception.NotFoundException;
+import ru.itmo.is.notification.NotificationHub;
 import ru.itmo.is.repository.NotificationRepository;
+import ru.itmo.is.repository.UserRepository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +36,11 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
     @Mock
+    private UserRepository userRepository;
+    @Mock
     private UserService userService;
+    @Mock
+    private NotificationHub notificationHub;
     @InjectMocks
     private NotificationService notificationService;
 
@@ -56,7 +69,7 @@ class NotificationServiceTest {
 
     @Test
     void testGetUnreadNotifications_ShouldReturnNotifications() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(notificationRepository.getByReceiverLoginAndStatus(
                 "user1", Notification.Status.CREATED)).thenReturn(List.of(notification));
 
@@ -72,7 +85,7 @@ class NotificationServiceTest {
 
     @Test
     void testGetUnreadNotifications_WithNoNotifications_ShouldReturnEmptyList() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(notificationRepository.getByReceiverLoginAndStatus(
                 "user1", Notification.Status.CREATED)).thenReturn(List.of());
 
@@ -84,7 +97,7 @@ class NotificationServiceTest {
 
     @Test
     void testMarkAsRead_WhenNotificationExistsAndBelongsToUser_ShouldUpdateStatus() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification));
 
         notificationService.markAsRead(1L);
@@ -94,7 +107,7 @@ class NotificationServiceTest {
 
     @Test
     void testMarkAsRead_WhenNotificationNotFound_ShouldThrowNotFoundException() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(notificationRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> {
@@ -107,7 +120,7 @@ class NotificationServiceTest {
     @Test
     void testMarkAsRead_WhenNotificationBelongsToOtherUser_ShouldThrowForbiddenException() {
         notification.setReceiver(otherUser);
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
         when(notificationRepository.findById(1L)).thenReturn(Optional.of(notification));
 
         assertThrows(ForbiddenException.class, () -> {
@@ -119,11 +132,118 @@ class NotificationServiceTest {
 
     @Test
     void testMarkAllAsRead_ShouldUpdateAllNotifications() {
-        when(userService.getCurrentUserOrThrow()).thenReturn(currentUser);
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
 
         notificationService.markAllAsRead();
 
         verify(notificationRepository).setAllReadStatus("user1");
     }
-}
 
+    @Test
+    void testNotifySendersAboutBidStatus_ShouldSaveNotificationsInOneBatch() {
+        Bid accepted = new Bid();
+        accepted.setStatus(Bid.Status.ACCEPTED);
+        accepted.setSender(currentUser);
+        Bid denied = new Bid();
+        denied.setStatus(Bid.Status.DENIED);
+        denied.setSender(otherUser);
+        Bid inProcess = new Bid();
+        inProcess.setStatus(Bid.Status.IN_PROCESS);
+
+        notificationService.notifySendersAboutBidStatus(List.of(accepted, denied, inProcess));
+
+        verify(notificationRepository).saveAll(argThat(notifications ->
+                notifications instanceof List<Notification> list
+                        && list.size() == 2
+                        && list.get(0).getReceiver() == currentUser
+                        && list.get(1).getReceiver() == otherUser
+        ));
+        verify(notificationRepository, never()).save(any());
+        verify(notificationHub).publish(eq("user1"), any(NotificationResponse.class));
+        verify(notificationHub).publish(eq("user2"), any(NotificationResponse.class));
+    }
+
+    @Test
+    void testNotifySenderAboutRevision_ShouldSaveAndPublishNotification() {
+        Bid bid = new Bid();
+        bid.setId(5L);
+        bid.setSender(currentUser);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(inv -> {
+            Notification saved = inv.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        notificationService.notifySenderAboutRevision(bid);
+
+        verify(notificationHub).publish("user1", new NotificationResponse(7L, "Вам нужно поправить/дополнить данные в заявке").bidId(5L));
+    }
+
+    @Test
+    void testSubscribe_ShouldReplayUnreadNotificationsOfCurrentUser() {
+        SseEmitter emitter = new SseEmitter();
+        when(userService.getCurrentLoginOrThrow()).thenReturn(currentUser.getLogin());
+        when(notificationRepository.getByReceiverLoginAndStatus("user1", Notification.Status.CREATED))
+                .thenReturn(List.of(notification));
+        when(notificationHub.subscribe(eq("user1"), any())).thenAnswer(inv -> {
+            Supplier<List<NotificationResponse>> unread = inv.getArgument(1);
+            assertEquals(List.of(new NotificationResponse(1L, "Test notification").bidId(1L)), unread.get());
+            return emitter;
+        });
+
+        assertSame(emitter, notificationService.subscribe());
+    }
+
+    @Test
+    void testNotifySendersAboutBidStatus_WhenNothingToNotify_ShouldNotSave() {
+        notificationService.notifySendersAboutBidStatus(List.of());
+
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void testWarnAboutEviction_WhenSameWarningUnread_ShouldWarnOthersOnly() {
+        Notification unread = new Notification();
+        unread.setReceiver(currentUser);
+        unread.setText("Вы в списке на выселение: нарушение режима общежития");
+        when(notificationRepository.getByReceiverLoginInAndStatusAndBidIsNull(any(), eq(Notification.Status.CREATED)))
+                .thenReturn(List.of(unread));
+        when(userRepository.findAllById(argThat(logins -> logins.iterator().next().equals("user2"))))
+                .thenReturn(List.of(otherUser));
+
+        notificationService.warnAboutEviction(Map.of(
+                "user1", EvictionReason.RULE_VIOLATION,
+                "user2", EvictionReason.NON_PAYMENT
+        ));
+
+        verify(notificationRepository).saveAll(argThat(notifications ->
+                notifications instanceof List<Notification> list
+                        && list.size() == 1
+                        && list.get(0).getReceiver() == otherUser
+                        && list.get(0).getBid() == null
+        ));
+        verify(notificationHub).publish(eq("user2"), argThat(response -> response.getBidId() == null));
+        verify(notificationHub, never()).publish(eq("user1"), any());
+    }
+
+    @Test
+    void testRemindAboutDebt_ShouldSaveAndPublishNotificationWithDebt() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(currentUser));
+
+        notificationService.remindAboutDebt(Map.of("user1", 12000));
+
+        verify(notificationRepository).saveAll(argThat(notifications ->
+                notifications instanceof List<Notification> list
+                        && list.size() == 1
+                        && list.get(0).getText().equals("Задолженность за проживание: 12000 руб.")
+        ));
+        verify(notificationHub).publish(eq("user1"), any(NotificationResponse.class));
+    }
+
+    @Test
+    void testRemindAboutDebt_WhenNothingToRemind_ShouldNotSave() {
+        notificationService.remindAboutDebt(Map.of());
+
+        verifyNoInteractions(notificationRepository, userRepository);
+    }
+}
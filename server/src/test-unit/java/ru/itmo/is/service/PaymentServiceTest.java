@@ -22,6 +22,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +34,8 @@ class PaymentServiceTest {
     private EventRepository eventRepository;
     @Mock
     private EventService eventService;
+    @Mock
+    private LedgerService ledgerService;
     @InjectMocks
     private PaymentService paymentService;
 
@@ -72,8 +75,8 @@ class PaymentServiceTest {
         when(userService.getResidentByLogin("resident1")).thenReturn(resident);
         when(eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
                 List.of(Event.Type.PAYMENT), "resident1")).thenReturn(new ArrayList<>());
-        when(eventService.calculateResidentDebt("resident1")).thenReturn(500);
         when(eventService.getLastPaymentTime("resident1")).thenReturn(null);
+        when(eventService.calculateDebt(1000, null)).thenReturn(500);
 
         PaymentResponse result = paymentService.getSelfPaymentInfo();
 
@@ -88,8 +91,9 @@ class PaymentServiceTest {
         when(userService.getResidentByLogin("resident1")).thenReturn(resident);
         when(eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
                 List.of(Event.Type.PAYMENT), "resident1")).thenReturn(List.of(paymentEvent));
-        when(eventService.calculateResidentDebt("resident1")).thenReturn(500);
-        when(eventService.getLastPaymentTime("resident1")).thenReturn(LocalDateTime.now());
+        LocalDateTime lastPaymentTime = LocalDateTime.now();
+        when(eventService.getLastPaymentTime("resident1")).thenReturn(lastPaymentTime);
+        when(eventService.calculateDebt(1000, lastPaymentTime)).thenReturn(500);
 
         PaymentResponse result = paymentService.getPaymentInfo("resident1");
 
@@ -115,6 +119,8 @@ class PaymentServiceTest {
                 event.getRoom().equals(room) &&
                 event.getPaymentSum().equals(500))
         );
+        verify(ledgerService).lock("resident1");
+        verify(ledgerService).recordPayment(eq(resident), argThat(event -> event.getPaymentSum() == 500));
     }
 
     @Test
@@ -128,6 +134,7 @@ class PaymentServiceTest {
         });
 
         verify(eventRepository, never()).save(any(Event.class));
+        verify(ledgerService, never()).recordPayment(any(), any());
     }
 
     @Test
@@ -135,8 +142,8 @@ class PaymentServiceTest {
         when(userService.getResidentByLogin("resident1")).thenReturn(resident);
         when(eventRepository.getByTypeInAndUsrLoginOrderByTimestampDesc(
                 List.of(Event.Type.PAYMENT), "resident1")).thenReturn(List.of(paymentEvent));
-        when(eventService.calculateResidentDebt("resident1")).thenReturn(0);
         when(eventService.getLastPaymentTime("resident1")).thenReturn(null);
+        when(eventService.calculateDebt(1000, null)).thenReturn(0);
 
         PaymentResponse result = paymentService.getPaymentInfo("resident1");
 
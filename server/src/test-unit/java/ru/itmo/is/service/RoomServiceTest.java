@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itmo.is.allocation.RoomAllocator;
 import ru.itmo.is.dto.RoomRequest;
 import ru.itmo.is.dto.RoomResponse;
 import ru.itmo.is.entity.dorm.Dormitory;
@@ -36,6 +37,8 @@ class RoomServiceTest {
     private DormitoryRepository dormitoryRepository;
     @Mock
     private RoomMapper roomMapper;
+    @Mock
+    private RoomAllocator roomAllocator;
     @InjectMocks
     private RoomService roomService;
 
@@ -113,6 +116,7 @@ class RoomServiceTest {
         
         when(userService.getCurrentResidentOrThrow()).thenReturn(resident);
         when(roomRepository.getInDormitory(1)).thenReturn(List.of(room, otherRoom));
+        when(roomAllocator.isFree(any())).thenReturn(true);
         when(roomMapper.roomToDto(otherRoom)).thenReturn(roomResponse);
 
         List<RoomResponse> result = roomService.getForResident();
@@ -154,16 +158,18 @@ class RoomServiceTest {
     @Test
     void testDeleteRoom_WhenExistsAndNoResidents_ShouldDeleteRoom() {
         when(roomRepository.findById(1)).thenReturn(Optional.of(room));
+        when(roomRepository.getOccupied(1)).thenReturn(0);
 
         roomService.deleteRoom(1);
 
         verify(roomRepository).delete(room);
+        verify(roomAllocator).invalidate(1);
     }
 
     @Test
     void testDeleteRoom_WhenHasResidents_ShouldThrowBadRequestException() {
-        room.getResidents().add(resident);
         when(roomRepository.findById(1)).thenReturn(Optional.of(room));
+        when(roomRepository.getOccupied(1)).thenReturn(1);
 
         assertThrows(BadRequestException.class, () -> {
             roomService.deleteRoom(1);
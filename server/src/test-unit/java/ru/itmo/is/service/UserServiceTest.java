@@ -5,10 +5,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import ru.itmo.is.dto.EvictionReason;
 import ru.itmo.is.dto.ResidentResponse;
 import ru.itmo.is.dto.ToEvictionResidentResponse;
 import ru.itmo.is.dto.UserResponse;
-import ru.itmo.is.entity.Event;
+import ru.itmo.is.dto.UserRole;
 import ru.itmo.is.entity.dorm.Dormitory;
 import ru.itmo.is.entity.dorm.Room;
 import ru.itmo.is.entity.dorm.University;
@@ -21,20 +23,20 @@ import ru.itmo.is.exception.UnauthorizedException;
 import ru.itmo.is.mapper.DormitoryMapper;
 import ru.itmo.is.mapper.UniversityMapper;
 import ru.itmo.is.mapper.UserMapper;
-import ru.itmo.is.repository.EventRepository;
-import ru.itmo.is.repository.ResidentRepository;
-import ru.itmo.is.repository.UserRepository;
+import ru.itmo.is.repository.*;
+import ru.itmo.is.repository.projection.EvictionCandidate;
+import ru.itmo.is.repository.projection.ResidentSummary;
 import ru.itmo.is.security.SecurityContext;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -42,13 +44,15 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private EventRepository eventRepository;
-    @Mock
     private SecurityContext securityContext;
     @Mock
     private ResidentRepository residentRepository;
     @Mock
     private EventService eventService;
+    @Mock
+    private UniversityRepository universityRepository;
+    @Mock
+    private DormitoryRepository dormitoryRepository;
     private UserService userService;
 
     private User user;
@@ -69,11 +73,14 @@ class UserServiceTest {
         UserMapper userMapper = new UserMapper(universityMapper, dormitoryMapper);
         userService = new UserService(
                 userRepository,
-                eventRepository,
                 securityContext,
                 residentRepository,
                 userMapper,
-                eventService
+                eventService,
+                universityRepository,
+                dormitoryRepository,
+                universityMapper,
+                dormitoryMapper
         );
     }
 
@@ -99,7 +106,6 @@ class UserServiceTest {
     @Test
     void testGetCurrentResidentOrThrow_WhenUserIsResident_ShouldReturnResident() {
         when(securityContext.getUsername()).thenReturn("testuser");
-        when(userRepository.findById("testuser")).thenReturn(Optional.of(user));
         when(residentRepository.findById("testuser")).thenReturn(Optional.of(resident));
 
         Resident result = userService.getCurrentResidentOrThrow();
@@ -110,7 +116,6 @@ class UserServiceTest {
     @Test
     void testGetCurrentResidentOrThrow_WhenUserIsNotResident_ShouldThrowForbiddenException() {
         when(securityContext.getUsername()).thenReturn("testuser");
-        when(userRepository.findById("testuser")).thenReturn(Optional.of(user));
         when(residentRepository.findById("testuser")).thenReturn(Optional.empty());
 
         assertThrows(ForbiddenException.class, () -> {
@@ -127,6 +132,32 @@ class UserServiceTest {
 
         assertNotNull(result);
         assertEquals("testuser", result.getLogin());
+        verify(securityContext).setUser(user);
+    }
+
+    @Test
+    void testGetCurrentUserOrThrow_WhenAlreadyLoadedInRequest_ShouldNotQueryAgain() {
+        when(securityContext.getUser()).thenReturn(user);
+
+        User result = userService.getCurrentUserOrThrow();
+
+        assertSame(user, result);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testGetCurrentLoginOrThrow_ShouldUseTokenClaimsOnly() {
+        when(securityContext.getUsername()).thenReturn("testuser");
+
+        assertEquals("testuser", userService.getCurrentLoginOrThrow());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testGetCurrentRoleOrThrow_WhenNotLoggedIn_ShouldThrowUnauthorizedException() {
+        when(securityContext.getUsername()).thenReturn(null);
+
+        assertThrows(UnauthorizedException.class, () -> userService.getCurrentRoleOrThrow());
     }
 
     @Test
@@ -168,42 +199,57 @@ class UserServiceTest {
 
     @Test
     void testGetResidents_ShouldReturnResidentsList() {
-        resident.setName("Test");
-        resident.setSurname("User");
-        
-        // Set up university and room for the resident
         University university = new University();
         university.setId(1);
         university.setName("Test University");
         university.setAddress("Test Address");
         university.setDormitories(new java.util.ArrayList<>());
-        resident.setUniversity(university);
-        
+
         Dormitory dormitory = new Dormitory();
-        dormitory.setId(1);
+        dormitory.setId(2);
         dormitory.setAddress("Test Address");
         dormitory.setUniversities(new java.util.ArrayList<>());
         dormitory.setRooms(new java.util.ArrayList<>());
-        dormitory.getUniversities().add(university);
-        university.getDormitories().add(dormitory);
-        
-        Room room = new Room();
-        room.setNumber(101);
-        room.setDormitory(dormitory);
-        room.setResidents(new java.util.ArrayList<>());
-        dormitory.getRooms().add(room);
-        resident.setRoom(room);
-        
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT)))
-                .thenReturn(List.of(resident));
-        when(eventService.calculateResidentDebt("testuser")).thenReturn(0);
-        when(eventRepository.getLastInOutEvent("testuser")).thenReturn(Optional.empty());
-
-        List<ResidentResponse> result = userService.getResidents();
+        dormitory.setOccupied(3);
+
+        LocalDateTime lastPayment = LocalDateTime.now().minusMonths(2);
+        LocalDateTime lastCameOut = LocalDateTime.now().minusHours(1);
+        ResidentSummary summary = mock(ResidentSummary.class);
+        when(summary.getLogin()).thenReturn("testuser");
+        when(summary.getUniversityId()).thenReturn(1);
+        when(summary.getDormitoryId()).thenReturn(2);
+        when(summary.getRoomNumber()).thenReturn(101);
+        when(summary.getRoomCost()).thenReturn(1000);
+        when(summary.getLastPaymentTime()).thenReturn(lastPayment);
+        when(summary.getLastInOutTime()).thenReturn(lastCameOut);
+
+        when(residentRepository.getResidentSummaries(null, Limit.unlimited())).thenReturn(List.of(summary));
+        when(universityRepository.findAllById(Set.of(1))).thenReturn(List.of(university));
+        when(dormitoryRepository.findAllById(Set.of(2))).thenReturn(List.of(dormitory));
+        when(eventService.calculateDebt(1000, lastPayment)).thenReturn(2000);
+
+        List<ResidentResponse> result = userService.getResidents(null, null);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("testuser", result.get(0).getLogin());
+        assertEquals("Test University", result.get(0).getUniversity().getName());
+        assertEquals(2, result.get(0).getDormitory().getId());
+        assertEquals(3, result.get(0).getDormitory().getResidentNumber());
+        assertEquals(101, result.get(0).getRoomNumber());
+        assertEquals(2000, result.get(0).getDebt());
+        assertEquals(lastCameOut, result.get(0).getLastCameOut());
+    }
+
+    @Test
+    void testGetResidents_WithPage_ShouldPassKeysetToRepository() {
+        when(residentRepository.getResidentSummaries("testuser", Limit.of(50))).thenReturn(List.of());
+        when(universityRepository.findAllById(Set.of())).thenReturn(List.of());
+        when(dormitoryRepository.findAllById(Set.of())).thenReturn(List.of());
+
+        List<ResidentResponse> result = userService.getResidents("testuser", 50);
+
+        assertTrue(result.isEmpty());
     }
 
     @Test
@@ -237,110 +283,40 @@ class UserServiceTest {
     }
 
     @Test
-    void testGetResidentsToEviction_WithDebtResidents_ShouldReturnEvictionList() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of("resident1"));
-        when(userRepository.getByLoginIn(List.of("resident1"))).thenReturn(List.of(resident1));
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of());
-
-        List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
-
-        assertNotNull(result);
-        assertEquals(1, result.size());
-    }
-
-    @Test
-    void testGetResidentsToEviction_WithNonResidenceResidents_ShouldReturnEvictionList() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        Event outEvent = new Event();
-        outEvent.setType(Event.Type.OUT);
-        outEvent.setTimestamp(LocalDateTime.now().minusDays(10));
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of());
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of(resident1));
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(outEvent));
+    void testGetResidentsToEviction_ShouldMapCandidatesInQueryOrder() {
+        EvictionCandidate debtor = candidate("resident1", "NON_PAYMENT");
+        EvictionCandidate violator = candidate("resident2", "RULE_VIOLATION");
+        when(residentRepository.streamEvictionCandidates(eq(LocalDate.now()), any(LocalDateTime.class)))
+                .thenReturn(Stream.of(debtor, violator));
 
         List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("resident1", result.get(0).getResident().getLogin());
-    }
-
-    @Test
-    void testGetResidentsToEviction_WithRuleViolationResidents_ShouldReturnEvictionList() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        Event inEvent = new Event();
-        inEvent.setType(Event.Type.IN);
-        inEvent.setTimestamp(LocalDateTime.of(LocalDate.now(), LocalTime.of(3, 0)));
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of());
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of(resident1));
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(inEvent));
-
-        List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
-
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("resident1", result.get(0).getResident().getLogin());
-    }
-
-    @Test
-    void testGetResidentsToEviction_WithMultipleReasons_ShouldNotDuplicate() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        Event outEvent = new Event();
-        outEvent.setType(Event.Type.OUT);
-        outEvent.setTimestamp(java.time.LocalDateTime.of(
-                java.time.LocalDate.now().minusDays(10), java.time.LocalTime.of(3, 0)));
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of("resident1"));
-        when(userRepository.getByLoginIn(List.of("resident1"))).thenReturn(List.of(resident1));
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of(resident1));
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(outEvent));
-
-        List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
-
-        assertNotNull(result);
-        assertEquals(1, result.size());
+        assertEquals(2, result.size());
         assertEquals("resident1", result.get(0).getResident().getLogin());
+        assertEquals(UserRole.RESIDENT, result.get(0).getResident().getRole());
+        assertEquals(EvictionReason.NON_PAYMENT, result.get(0).getReason());
+        assertEquals("resident2", result.get(1).getResident().getLogin());
+        assertEquals(EvictionReason.RULE_VIOLATION, result.get(1).getReason());
     }
 
     @Test
-    void testGetResidentsToEviction_WithNoResidents_ShouldReturnEmptyList() {
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of());
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of());
+    void testGetResidentsToEviction_ShouldTreatOutOlderThanWeekAsNonResidence() {
+        when(residentRepository.streamEvictionCandidates(any(LocalDate.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.empty());
 
-        List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
+        userService.getResidentsToEviction();
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        verify(residentRepository).streamEvictionCandidates(
+                eq(LocalDate.now()),
+                argThat(deadline -> !deadline.isAfter(LocalDateTime.now().minusDays(7))
+                        && deadline.isAfter(LocalDateTime.now().minusDays(7).minusMinutes(1)))
+        );
     }
 
     @Test
-    void testGetResidentsToEviction_WithRecentOutEvent_ShouldNotInclude() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        Event outEvent = new Event();
-        outEvent.setType(Event.Type.OUT);
-        outEvent.setTimestamp(LocalDateTime.of(LocalDate.now().minusDays(5), LocalTime.of(10, 0))); // Less than 7 days
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of());
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of(resident1));
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(outEvent));
+    void testGetResidentsToEviction_WithNoCandidates_ShouldReturnEmptyList() {
+        when(residentRepository.streamEvictionCandidates(any(LocalDate.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.empty());
 
         List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
 
@@ -348,23 +324,13 @@ class UserServiceTest {
         assertTrue(result.isEmpty());
     }
 
-    @Test
-    void testGetResidentsToEviction_WithNormalTimeEvent_ShouldNotInclude() {
-        User resident1 = new Resident();
-        resident1.setLogin("resident1");
-        resident1.setRole(User.Role.RESIDENT);
-
-        Event inEvent = new Event();
-        inEvent.setType(Event.Type.IN);
-        inEvent.setTimestamp(LocalDateTime.of(LocalDate.now(), LocalTime.of(10, 0))); // Normal time
-
-        when(eventService.getResidentsToEvictionByDebt()).thenReturn(List.of());
-        when(userRepository.getUsersByRoleIn(List.of(User.Role.RESIDENT))).thenReturn(List.of(resident1));
-        when(eventRepository.getLastInOutEvent("resident1")).thenReturn(Optional.of(inEvent));
-
-        List<ToEvictionResidentResponse> result = userService.getResidentsToEviction();
-
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+    private EvictionCandidate candidate(String login, String reason) {
+        EvictionCandidate candidate = mock(EvictionCandidate.class);
+        when(candidate.getLogin()).thenReturn(login);
+        when(candidate.getName()).thenReturn("Name");
+        when(candidate.getSurname()).thenReturn("Surname");
+        when(candidate.getRole()).thenReturn("RESIDENT");
+        when(candidate.getReason()).thenReturn(reason);
+        return candidate;
     }
 }
@@ -4,16 +4,32 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
+import ru.itmo.is.exception.BadRequestException;
+import ru.itmo.is.exception.ConflictException;
 import ru.itmo.is.exception.InternalServerErrorException;
 import ru.itmo.is.exception.NotFoundException;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,6 +37,8 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class FileStorageTest {
+    private static final byte[] CONTENT = "test".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
 
     private FileStorage fileStorage;
     private MultipartFile multipartFile;
@@ -29,7 +47,7 @@ class FileStorageTest {
     @BeforeEach
     void setUp() throws IOException {
         testStorageDir = Files.createTempDirectory("test-storage").toString();
-        fileStorage = new FileStorage(testStorageDir);
+        fileStorage = new FileStorage(new FilesystemBlobStore(testStorageDir));
 
         multipartFile = mock(MultipartFile.class);
         lenient().when(multipartFile.getOriginalFilename()).thenReturn("test.pdf");
@@ -37,30 +55,38 @@ class FileStorageTest {
 
     @Test
     void testSave_ShouldSaveFileAndReturnRecord() throws IOException {
-        doAnswer(invocation -> {
-            Path path = invocation.getArgument(0);
-            Files.createFile(path);
-            return null;
-        }).when(multipartFile).transferTo(any(Path.class));
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
 
         FileRecord result = fileStorage.save(multipartFile);
 
         assertNotNull(result);
         assertNotNull(result.getKey());
         assertEquals("test.pdf", result.getName());
-        verify(multipartFile).transferTo(any(Path.class));
+        assertEquals(CONTENT_HASH, result.getContentHash());
+        Path blob = Paths.get(testStorageDir, "blobs", "9f", "86", CONTENT_HASH);
+        assertArrayEquals(CONTENT, Files.readAllBytes(blob));
+    }
+
+    @Test
+    void testSave_WithSameContentTwice_ShouldStoreOneBlob() throws IOException {
+        when(multipartFile.getInputStream())
+                .thenReturn(new ByteArrayInputStream(CONTENT), new ByteArrayInputStream(CONTENT));
+
+        FileRecord first = fileStorage.save(multipartFile);
+        FileRecord second = fileStorage.save(multipartFile);
+
+        assertNotEquals(first.getKey(), second.getKey());
+        assertEquals(first.getContentHash(), second.getContentHash());
+        try (Stream<Path> files = Files.walk(Paths.get(testStorageDir))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
     }
 
     @Test
     void testSave_WhenDirectoryNotExists_ShouldCreateDirectory() throws IOException {
         String newDir = testStorageDir + "/new";
-        ReflectionTestUtils.setField(fileStorage, "storageDir", newDir);
-        doAnswer(invocation -> {
-            Path path = invocation.getArgument(0);
-            Files.createDirectories(path.getParent());
-            Files.createFile(path);
-            return null;
-        }).when(multipartFile).transferTo(any(Path.class));
+        fileStorage = new FileStorage(new FilesystemBlobStore(newDir));
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
 
         FileRecord result = fileStorage.save(multipartFile);
 
@@ -70,7 +96,7 @@ class FileStorageTest {
 
     @Test
     void testSave_WhenIOException_ShouldThrowInternalServerErrorException() throws IOException {
-        doThrow(new IOException("IO Error")).when(multipartFile).transferTo(any(Path.class));
+        when(multipartFile.getInputStream()).thenThrow(new IOException("IO Error"));
 
         assertThrows(InternalServerErrorException.class, () -> {
             fileStorage.save(multipartFile);
@@ -82,19 +108,28 @@ class FileStorageTest {
         String key = "test-key";
         Path filePath = Paths.get(testStorageDir, key);
         Files.createDirectories(filePath.getParent());
-        Files.createFile(filePath);
+        Files.write(filePath, new byte[]{1, 2, 3});
 
-        FileRecord fr = new FileRecord("test.pdf", key);
+        FileRecord fr = new FileRecord("test.pdf", key, null);
         FileData result = fileStorage.get(fr);
 
         assertNotNull(result);
         assertEquals("test.pdf", result.name());
         assertNotNull(result.data());
+        assertEquals(3, result.size());
+        assertEquals(Files.getLastModifiedTime(filePath).toInstant(), result.lastModified());
+    }
+
+    @Test
+    void testGet_WhenKeyIsDirectory_ShouldThrowNotFoundException() throws IOException {
+        Files.createDirectories(Paths.get(testStorageDir, "dir-key"));
+
+        assertThrows(NotFoundException.class, () -> fileStorage.get(new FileRecord("test.pdf", "dir-key", null)));
     }
 
     @Test
     void testGet_WhenFileNotExists_ShouldThrowNotFoundException() {
-        FileRecord fr = new FileRecord("test.pdf", "non-existent-key");
+        FileRecord fr = new FileRecord("test.pdf", "non-existent-key", null);
 
         assertThrows(NotFoundException.class, () -> {
             fileStorage.get(fr);
@@ -109,7 +144,7 @@ class FileStorageTest {
         File file = Files.createFile(filePath).toFile();
         file.setReadable(false);
 
-        FileRecord fr = new FileRecord("test.pdf", key);
+        FileRecord fr = new FileRecord("test.pdf", key, null);
 
         assertThrows(NotFoundException.class, () -> {
             fileStorage.get(fr);
@@ -118,19 +153,162 @@ class FileStorageTest {
         file.setReadable(true);
     }
 
+    @Test
+    void testGet_WithContentHash_ShouldReadBlobAndUseHashAsVersion() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+
+        FileData result = fileStorage.get(saved);
+
+        assertEquals(CONTENT.length, result.size());
+        assertEquals(CONTENT_HASH, result.version());
+        assertArrayEquals(CONTENT, result.data().getContentAsByteArray());
+    }
+
     @Test
     void testGenerateKey_ShouldGenerateUniqueKey() throws IOException {
-        doAnswer(invocation -> {
-            Path path = invocation.getArgument(0);
-            Files.createFile(path);
-            return null;
-        }).when(multipartFile).transferTo(any(Path.class));
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
 
         FileRecord result = fileStorage.save(multipartFile);
 
         assertNotNull(result);
         assertNotNull(result.getKey());
-        assertEquals(8, result.getKey().length());
+        assertEquals(16, result.getKey().length());
     }
-}
 
+    @Test
+    void testGetBlobsModifiedBefore_ShouldSkipFreshBlobsAndDeleteStaleUploads() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+        Path staleUpload = Files.createFile(Paths.get(testStorageDir, "tmp", "upload-stale"));
+        Files.setLastModifiedTime(staleUpload, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+
+        List<String> old = fileStorage.getBlobsModifiedBefore(Instant.now().minus(Duration.ofDays(1)));
+        List<String> all = fileStorage.getBlobsModifiedBefore(Instant.now().plusSeconds(1));
+
+        assertEquals(List.of(), old);
+        assertEquals(List.of(saved.getContentHash()), all);
+        assertFalse(Files.exists(staleUpload));
+    }
+
+    @Test
+    void testDeleteBlob_WhenModifiedAfterGivenTime_ShouldKeepBlob() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+
+        assertFalse(fileStorage.deleteBlob(saved.getContentHash(), Instant.now().minus(Duration.ofDays(1))));
+        assertTrue(fileStorage.deleteBlob(saved.getContentHash(), Instant.now().plusSeconds(1)));
+        assertThrows(NotFoundException.class, () -> fileStorage.get(saved));
+    }
+
+    @Test
+    void testDeleteBlob_WhenUploadedAgainAtTheSameTime_ShouldNeverLoseUpload() throws Exception {
+        when(multipartFile.getInputStream()).thenAnswer(inv -> new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+        Path blob = Paths.get(testStorageDir, "blobs", "9f", "86", CONTENT_HASH);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Every round the collector has seen an old blob and deletes it while the same content is uploaded
+            for (int round = 0; round < 200; round++) {
+                Files.setLastModifiedTime(blob, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> upload = executor.submit(() -> {
+                    start.await();
+                    return fileStorage.save(multipartFile);
+                });
+                Future<Boolean> collection = executor.submit(() -> {
+                    start.await();
+                    return fileStorage.deleteBlob(CONTENT_HASH, Instant.now().minus(Duration.ofDays(1)));
+                });
+                start.countDown();
+                upload.get();
+                collection.get();
+
+                assertTrue(Files.exists(blob), "Upload lost in round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertArrayEquals(CONTENT, fileStorage.get(saved).data().getContentAsByteArray());
+    }
+
+    @Test
+    void testAppendPart_WithChunks_ShouldResumeFromReceivedBytes() {
+        String id = fileStorage.createPart();
+
+        long afterFirst = fileStorage.appendPart(id, 0, CONTENT.length, chunk(0, 2));
+        long afterSecond = fileStorage.appendPart(id, afterFirst, CONTENT.length, chunk(2, 4));
+        FileRecord result = fileStorage.savePart(id, "test.pdf");
+
+        assertEquals(2, afterFirst);
+        assertEquals(CONTENT.length, afterSecond);
+        assertEquals(CONTENT_HASH, result.getContentHash());
+        assertEquals("test.pdf", result.getName());
+        assertTrue(Files.exists(Paths.get(testStorageDir, "blobs", "9f", "86", CONTENT_HASH)));
+        assertThrows(NotFoundException.class, () -> fileStorage.getPartSize(id));
+    }
+
+    @Test
+    void testAppendPart_WhenOffsetIsNotReceivedSize_ShouldThrowConflictException() {
+        String id = fileStorage.createPart();
+        fileStorage.appendPart(id, 0, CONTENT.length, chunk(0, 2));
+
+        assertThrows(ConflictException.class, () -> fileStorage.appendPart(id, 0, CONTENT.length, chunk(0, 2)));
+        assertEquals(2, fileStorage.getPartSize(id));
+    }
+
+    @Test
+    void testAppendPart_WhenChunkExceedsLimit_ShouldDiscardChunk() {
+        String id = fileStorage.createPart();
+        fileStorage.appendPart(id, 0, CONTENT.length, chunk(0, 2));
+
+        assertThrows(BadRequestException.class,
+                () -> fileStorage.appendPart(id, 2, CONTENT.length, new ByteArrayResource("stop".getBytes())));
+        assertEquals(2, fileStorage.getPartSize(id));
+    }
+
+    @Test
+    void testAppendPart_WhenPartNotExists_ShouldThrowNotFoundException() {
+        assertThrows(NotFoundException.class, () -> fileStorage.appendPart("unknown", 0, CONTENT.length, chunk(0, 2)));
+    }
+
+    @Test
+    void testGetPreview_WhenSaved_ShouldReturnJpegNamedAfterFile() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        when(multipartFile.getOriginalFilename()).thenReturn("scan.pdf");
+        FileRecord saved = fileStorage.save(multipartFile);
+        assertTrue(fileStorage.getPreview(saved).isEmpty());
+
+        fileStorage.savePreview(saved.getContentHash(), new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB));
+        FileData result = fileStorage.getPreview(saved).orElseThrow();
+
+        assertEquals("scan.jpg", result.name());
+        assertEquals(CONTENT_HASH, result.version());
+        assertTrue(result.size() > 0);
+    }
+
+    @Test
+    void testDeleteBlob_ShouldDeletePreview() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+        fileStorage.savePreview(saved.getContentHash(), new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB));
+        fileStorage.markPreviewUnsupported(saved.getContentHash());
+
+        assertTrue(fileStorage.deleteBlob(saved.getContentHash(), Instant.now().plusSeconds(1)));
+        assertFalse(fileStorage.hasPreview(saved.getContentHash()));
+        assertFalse(fileStorage.isPreviewUnsupported(saved.getContentHash()));
+    }
+
+    @Test
+    void testReadStart_ShouldReturnOnlyRequestedBytes() throws IOException {
+        when(multipartFile.getInputStream()).thenReturn(new ByteArrayInputStream(CONTENT));
+        FileRecord saved = fileStorage.save(multipartFile);
+
+        assertArrayEquals(Arrays.copyOf(CONTENT, 2), fileStorage.readStart(saved, 2));
+        assertArrayEquals(CONTENT, fileStorage.readStart(saved, CONTENT.length + 10));
+    }
+
+    private Resource chunk(int from, int to) {
+        return new ByteArrayResource(Arrays.copyOfRange(CONTENT, from, to));
+    }
+}
@@ -12,12 +12,14 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.web.method.HandlerMethod;
 import ru.itmo.is.entity.user.User;
+import ru.itmo.is.security.AccessPrincipal;
 import ru.itmo.is.security.Anonymous;
 import ru.itmo.is.security.JwtManager;
 import ru.itmo.is.security.RolesAllowed;
 import ru.itmo.is.security.SecurityContext;
 
 import java.lang.reflect.Method;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -51,8 +53,7 @@ class AuthInterceptorTest {
     void testPreHandle_WithValidBearerToken_ShouldSetContext() throws Exception {
         // Given: Valid Bearer token
         when(request.getHeader("Authorization")).thenReturn("Bearer valid-token");
-        when(jwtManager.getLoginFromAccessToken("valid-token")).thenReturn(Optional.of("user1"));
-        when(jwtManager.getRoleFromAccessToken("valid-token")).thenReturn(Optional.of(User.Role.RESIDENT));
+        when(jwtManager.getAccessPrincipal("valid-token")).thenReturn(principal("user1", User.Role.RESIDENT));
         when(securityContext.getRole()).thenReturn(User.Role.RESIDENT);
         when(securityContext.isAnonymous()).thenReturn(false);
         
@@ -72,7 +73,7 @@ class AuthInterceptorTest {
     void testPreHandle_WithInvalidToken_ShouldSetAnonymous() throws Exception {
         // Given: Invalid token throws exception
         when(request.getHeader("Authorization")).thenReturn("Bearer invalid-token");
-        when(jwtManager.getLoginFromAccessToken("invalid-token")).thenThrow(new RuntimeException("Invalid token"));
+        when(jwtManager.getAccessPrincipal("invalid-token")).thenThrow(new RuntimeException("Invalid token"));
         
         setupHandlerMethodWithAnonymousAnnotation();
 
@@ -114,7 +115,7 @@ class AuthInterceptorTest {
         // Then: Should set anonymous
         assertTrue(result);
         verify(securityContext).setAnonymous();
-        verify(jwtManager, never()).getLoginFromAccessToken(anyString());
+        verify(jwtManager, never()).getAccessPrincipal(anyString());
     }
 
     @Test
@@ -136,8 +137,7 @@ class AuthInterceptorTest {
     void testPreHandle_WithRolesAllowed_WhenRoleMatches_ShouldAllowAccess() throws Exception {
         // Given: Authenticated user with matching role
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtManager.getLoginFromAccessToken("token")).thenReturn(Optional.of("manager1"));
-        when(jwtManager.getRoleFromAccessToken("token")).thenReturn(Optional.of(User.Role.MANAGER));
+        when(jwtManager.getAccessPrincipal("token")).thenReturn(principal("manager1", User.Role.MANAGER));
         when(securityContext.getRole()).thenReturn(User.Role.MANAGER);
         when(securityContext.isAnonymous()).thenReturn(false);
         
@@ -156,8 +156,7 @@ class AuthInterceptorTest {
         // Given: Authenticated user with non-matching role
         // User is RESIDENT but endpoint requires MANAGER
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtManager.getLoginFromAccessToken("token")).thenReturn(Optional.of("user1"));
-        when(jwtManager.getRoleFromAccessToken("token")).thenReturn(Optional.of(User.Role.RESIDENT));
+        when(jwtManager.getAccessPrincipal("token")).thenReturn(principal("user1", User.Role.RESIDENT));
         when(securityContext.getRole()).thenReturn(User.Role.RESIDENT);
         when(securityContext.isAnonymous()).thenReturn(false);
         
@@ -176,8 +175,7 @@ class AuthInterceptorTest {
     void testPreHandle_WithRolesAllowed_WhenRoleMatchesDifferentRole_ShouldAllowAccess() throws Exception {
         // Given: Authenticated user with GUARD role accessing endpoint that requires GUARD
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtManager.getLoginFromAccessToken("token")).thenReturn(Optional.of("guard1"));
-        when(jwtManager.getRoleFromAccessToken("token")).thenReturn(Optional.of(User.Role.GUARD));
+        when(jwtManager.getAccessPrincipal("token")).thenReturn(principal("guard1", User.Role.GUARD));
         when(securityContext.getRole()).thenReturn(User.Role.GUARD);
         when(securityContext.isAnonymous()).thenReturn(false);
         
@@ -243,8 +241,7 @@ class AuthInterceptorTest {
     void testPreHandle_WithRolesAllowed_WhenMultipleRolesInAnnotation_ShouldCheckAll() throws Exception {
         // Given: User with MANAGER role accessing endpoint that requires MANAGER
         when(request.getHeader("Authorization")).thenReturn("Bearer token");
-        when(jwtManager.getLoginFromAccessToken("token")).thenReturn(Optional.of("manager1"));
-        when(jwtManager.getRoleFromAccessToken("token")).thenReturn(Optional.of(User.Role.MANAGER));
+        when(jwtManager.getAccessPrincipal("token")).thenReturn(principal("manager1", User.Role.MANAGER));
         when(securityContext.getRole()).thenReturn(User.Role.MANAGER);
         when(securityContext.isAnonymous()).thenReturn(false);
         
@@ -259,6 +256,10 @@ class AuthInterceptorTest {
         verify(response, never()).setStatus(anyInt());
     }
 
+    private Optional<AccessPrincipal> principal(String login, User.Role role) {
+        return Optional.of(new AccessPrincipal(login, role, Instant.now().plusSeconds(600)));
+    }
+
     private void setupHandlerMethodWithAnonymousAnnotation() throws Exception {
         Method method = TestController.class.getMethod("anonymousMethod");
         doReturn(method).when(handlerMethod).getMethod();